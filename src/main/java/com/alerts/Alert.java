@@ -1,5 +1,7 @@
 package com.alerts;
 
+import com.alerts.dispatch.AlertDispatcher;
+
 // Represents an alert
 public class Alert {
     private String patientId;
@@ -24,7 +26,25 @@ public class Alert {
         return timestamp;
     }
 
+    /**
+     * Returns the human-readable line used when the alert is printed or logged.
+     *
+     * @return the alert description
+     */
+    public String getMessage() {
+        return "Alert for patient " + getPatientId() + ", Condition: " + getCondition() + ", Time: " + getTimestamp();
+    }
+
+    /**
+     * Sends the alert to the default {@link AlertDispatcher}, or prints it
+     * right away when no dispatcher is set.
+     */
     public void triggerAlert() {
-        System.out.println("Alert for patient " + patientId + ", Condition: " + condition + ", Time: " + timestamp);
+        AlertDispatcher dispatcher = AlertDispatcher.getDefault();
+        if (dispatcher != null) {
+            dispatcher.submit(this);
+        } else {
+            System.out.println(getMessage());
+        }
     }
 }
@@ -0,0 +1,218 @@
+package com.alerts;
+
+import com.alerts.strategy.AlertStrategy;
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Periodically evaluates every patient in a {@link DataStorage} with an
+ * {@link AlertGenerator} and the registered {@link AlertStrategy} instances.
+ * <p>
+ * Each cycle splits the patients into chunks that are evaluated in parallel
+ * on a {@link ForkJoinPool}, so the time per cycle scales with the number of
+ * cores rather than growing linearly on one thread. A cycle that runs past its
+ * deadline stops picking up new patients and reports how many it skipped.
+ * Cycles never overlap, so a patient is never evaluated by two threads at
+ * once.
+ */
+public class AlertEvaluationScheduler {
+
+    // Chunks per worker thread, so faster workers can pick up the slack of slower ones
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final DataStorage dataStorage;
+    private final AlertGenerator alertGenerator;
+    private final List<AlertStrategy> strategies = new CopyOnWriteArrayList<>();
+    private final ForkJoinPool pool;
+    private final ScheduledExecutorService ticker;
+    private ScheduledFuture<?> schedule;
+
+    private volatile long lastCycleNanos;
+    private volatile int lastCyclePatients;
+    private volatile int lastCycleSkipped;
+    private final AtomicInteger cycleCount = new AtomicInteger();
+    private final AtomicInteger missedDeadlines = new AtomicInteger();
+
+    /**
+     * Creates a scheduler that uses one worker thread per available processor.
+     *
+     * @param dataStorage    the storage whose patients are evaluated
+     * @param alertGenerator the generator that evaluates each patient
+     */
+    public AlertEvaluationScheduler(DataStorage dataStorage, AlertGenerator alertGenerator) {
+        this(dataStorage, alertGenerator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a scheduler with a fixed number of worker threads.
+     *
+     * @param dataStorage    the storage whose patients are evaluated
+     * @param alertGenerator the generator that evaluates each patient
+     * @param parallelism    the number of worker threads
+     */
+    public AlertEvaluationScheduler(DataStorage dataStorage, AlertGenerator alertGenerator, int parallelism) {
+        this.dataStorage = dataStorage;
+        this.alertGenerator = alertGenerator;
+        this.pool = new ForkJoinPool(parallelism);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-evaluation-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a strategy to run on every patient in each cycle, after the
+     * {@link AlertGenerator}.
+     *
+     * @param strategy the strategy to add
+     */
+    public void addStrategy(AlertStrategy strategy) {
+        strategies.add(strategy);
+    }
+
+    /**
+     * Starts running a cycle at a fixed rate. A cycle that has not finished
+     * within one period stops evaluating further patients.
+     *
+     * @param period the time between the starts of two cycles
+     * @param unit   the unit of {@code period}
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (schedule != null) {
+            throw new IllegalStateException("Scheduler already started");
+        }
+        long periodNanos = unit.toNanos(period);
+        schedule = ticker.scheduleAtFixedRate(() -> runCycle(periodNanos), 0, period, unit);
+    }
+
+    /**
+     * Runs one evaluation cycle immediately and waits for it to finish.
+     *
+     * @param deadline the time the cycle may take before it stops evaluating
+     *                 further patients
+     * @param unit     the unit of {@code deadline}
+     */
+    public void runCycle(long deadline, TimeUnit unit) {
+        runCycle(unit.toNanos(deadline));
+    }
+
+    /**
+     * Runs one evaluation cycle without a deadline and waits for it to finish.
+     */
+    public void runCycle() {
+        runCycle(Long.MAX_VALUE);
+    }
+
+    private synchronized void runCycle(long budgetNanos) {
+        long start = System.nanoTime();
+        boolean hasDeadline = budgetNanos != Long.MAX_VALUE;
+        long deadline = start + budgetNanos;
+
+        List<Patient> patients = dataStorage.getAllPatients();
+        int chunkSize = Math.max(1, patients.size() / (pool.getParallelism() * CHUNKS_PER_THREAD));
+        AtomicInteger evaluated = new AtomicInteger();
+
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < patients.size(); from += chunkSize) {
+            List<Patient> chunk = patients.subList(from, Math.min(from + chunkSize, patients.size()));
+            chunks.add(pool.submit(() -> evaluateChunk(chunk, hasDeadline, deadline, evaluated)));
+        }
+        for (Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                System.err.println("Alert evaluation chunk failed: " + e.getCause());
+            }
+        }
+
+        lastCycleNanos = System.nanoTime() - start;
+        lastCyclePatients = evaluated.get();
+        lastCycleSkipped = patients.size() - evaluated.get();
+        if (lastCycleSkipped > 0) {
+            missedDeadlines.incrementAndGet();
+        }
+        cycleCount.incrementAndGet();
+    }
+
+    private void evaluateChunk(List<Patient> chunk, boolean hasDeadline, long deadline, AtomicInteger evaluated) {
+        for (Patient patient : chunk) {
+            if (hasDeadline && System.nanoTime() - deadline > 0) {
+                return;
+            }
+            try {
+                alertGenerator.evaluateData(patient);
+                for (AlertStrategy strategy : strategies) {
+                    strategy.checkAlert(patient);
+                }
+            } catch (Exception e) {
+                System.err.println("An error occurred while evaluating alerts for patient " + patient.getPatientId());
+                e.printStackTrace();
+            }
+            evaluated.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns how long the most recent cycle took.
+     *
+     * @param unit the unit to return the duration in
+     * @return the duration of the last completed cycle
+     */
+    public long getLastCycleDuration(TimeUnit unit) {
+        return unit.convert(lastCycleNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns how many patients the most recent cycle evaluated.
+     *
+     * @return the number of patients evaluated in the last completed cycle
+     */
+    public int getLastCyclePatientCount() {
+        return lastCyclePatients;
+    }
+
+    /**
+     * Returns how many patients the most recent cycle skipped because it ran
+     * past its deadline.
+     *
+     * @return the number of patients skipped in the last completed cycle
+     */
+    public int getLastCycleSkippedCount() {
+        return lastCycleSkipped;
+    }
+
+    public int getCycleCount() {
+        return cycleCount.get();
+    }
+
+    public int getMissedDeadlineCount() {
+        return missedDeadlines.get();
+    }
+
+    /**
+     * Stops scheduling new cycles and shuts down the worker threads.
+     */
+    public synchronized void shutdown() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+        ticker.shutdown();
+        pool.shutdown();
+    }
+}
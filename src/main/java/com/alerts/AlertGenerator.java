@@ -1,11 +1,19 @@
 package com.alerts;
 
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.factory.AlertFactory;
+import com.alerts.factory.BloodOxygenAlertFactory;
+import com.alerts.factory.BloodPressureAlertFactory;
+import com.alerts.factory.ECGAlertFactory;
 import com.data_management.DataStorage;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
+import com.data_management.RecordSeries;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@code AlertGenerator} class is responsible for monitoring patient data
@@ -17,6 +25,13 @@ public class AlertGenerator {
     public static final int MILLISECONDS_ONE_DAY = 86400000; // 86400000 is equivalent to the amount of milliseconds in one day. So we take all the data of the past day
     public static final int TEN_MIN_MS = 600000; // 86400000 is equivalent to the amount of milliseconds in one day. So we take all the data of the past day
     private DataStorage dataStorage;
+    private IncrementalAlertEvaluator incrementalEvaluator;
+    private final Map<Integer, EcgAnomalyDetector.Settings> ecgSettings = new ConcurrentHashMap<>();
+    private final AlertFactory bloodPressureAlerts = new BloodPressureAlertFactory();
+    private final AlertFactory bloodOxygenAlerts = new BloodOxygenAlertFactory();
+    private final AlertFactory ecgAlerts = new ECGAlertFactory();
+    private volatile AlertDispatcher dispatcher;
+    private volatile AlertSuppressionCache suppressionCache;
 
     /**
      * Constructs an {@code AlertGenerator} with a specified {@code DataStorage}.
@@ -30,6 +45,90 @@ public class AlertGenerator {
         this.dataStorage = dataStorage;
     }
 
+    /**
+     * Constructs an {@code AlertGenerator} that can evaluate incrementally.
+     * In incremental mode, {@link #evaluateData} only evaluates measurements
+     * added since the previous call for the same patient, and every alert
+     * fires once instead of on every evaluation of the last 24 hours.
+     *
+     * @param dataStorage the data storage system that provides access to patient
+     *                    data
+     * @param incremental {@code true} to evaluate only new measurements
+     */
+    public AlertGenerator(DataStorage dataStorage, boolean incremental) {
+        this(dataStorage);
+        if (incremental) {
+            this.incrementalEvaluator = new IncrementalAlertEvaluator(this::triggerAlert, this::getEcgSettings);
+        }
+    }
+
+    /**
+     * Configures the ECG anomaly detection for one patient, e.g. a longer
+     * window for high-rate waveforms.
+     *
+     * @param patientId           the patient to configure
+     * @param windowSize          the number of preceding samples to average
+     * @param thresholdMultiplier how many times the average a sample must exceed
+     */
+    public void setEcgSettings(int patientId, int windowSize, double thresholdMultiplier) {
+        ecgSettings.put(patientId, new EcgAnomalyDetector.Settings(windowSize, thresholdMultiplier));
+    }
+
+    /**
+     * Returns the ECG anomaly detection settings for one patient.
+     *
+     * @param patientId the patient to look up
+     * @return the configured settings, or {@link EcgAnomalyDetector.Settings#DEFAULT}
+     */
+    public EcgAnomalyDetector.Settings getEcgSettings(int patientId) {
+        return ecgSettings.getOrDefault(patientId, EcgAnomalyDetector.Settings.DEFAULT);
+    }
+
+    /**
+     * Sends the alerts of this generator to the given dispatcher instead of the
+     * default one, so they are delivered off the evaluation thread.
+     *
+     * @param dispatcher the dispatcher, or {@code null} to use the default one
+     */
+    public void setDispatcher(AlertDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        bloodPressureAlerts.setDispatcher(dispatcher);
+        bloodOxygenAlerts.setDispatcher(dispatcher);
+        ecgAlerts.setDispatcher(dispatcher);
+    }
+
+    /**
+     * Sets the cache used to drop alerts that repeat a recent alert for the same
+     * patient and condition. Without one, which is the default, every alert is
+     * reported, also when each evaluation of the last 24 hours finds it again.
+     *
+     * @param suppressionCache the cache, or {@code null} to report every alert
+     */
+    public void setSuppressionCache(AlertSuppressionCache suppressionCache) {
+        this.suppressionCache = suppressionCache;
+        bloodPressureAlerts.setSuppressionCache(suppressionCache);
+        bloodOxygenAlerts.setSuppressionCache(suppressionCache);
+        ecgAlerts.setSuppressionCache(suppressionCache);
+    }
+
+    /**
+     * Returns the cache used to drop repeated alerts.
+     *
+     * @return the cache, or {@code null} if every alert is reported
+     */
+    public AlertSuppressionCache getSuppressionCache() {
+        return suppressionCache;
+    }
+
+    /**
+     * Returns whether this generator evaluates only new measurements.
+     *
+     * @return {@code true} in incremental mode
+     */
+    public boolean isIncremental() {
+        return incrementalEvaluator != null;
+    }
+
     /**
      * Evaluates the specified patient's data to determine if any alert conditions
      * are met. If a condition is met, an alert is triggered via the
@@ -41,35 +140,52 @@ public class AlertGenerator {
      * @param patient the patient data to evaluate for alert conditions
      */
     public void evaluateData(Patient patient) {
+        if (incrementalEvaluator != null) {
+            incrementalEvaluator.evaluate(patient);
+            return;
+        }
+
         long endTime = System.currentTimeMillis();
-        long startTime = System.currentTimeMillis() - MILLISECONDS_ONE_DAY;
-        List<PatientRecord> records = patient.getRecords(startTime, endTime);
+        long startTime = endTime - MILLISECONDS_ONE_DAY;
 
-        List<PatientRecord> systolicRecords = filterRecordsByType(records, "SystolicPressure");
-        List<PatientRecord> diastolicRecords = filterRecordsByType(records, "DiastolicPressure");
+        List<PatientRecord> systolicRecords = patient.getRecords("SystolicPressure", startTime, endTime);
+        List<PatientRecord> diastolicRecords = patient.getRecords("DiastolicPressure", startTime, endTime);
 
         bloodPressureAlert(systolicRecords, "SystolicPressure");
         bloodPressureAlert(diastolicRecords, "DiastolicPressure");
 
-        List<PatientRecord> saturationRecords = filterRecordsByType(records, "Saturation");
+        List<PatientRecord> saturationRecords = patient.getRecords("Saturation", startTime, endTime);
         bloodSaturation(saturationRecords);
 
-        hypotensiveHypoxemiaAlert(patient);
+        hypotensiveHypoxemiaAlert(patient.getPatientId(), systolicRecords, saturationRecords);
 
-        List<PatientRecord> ecgRecords = filterRecordsByType(records, "ECG");
+        List<PatientRecord> ecgRecords = patient.getRecords("ECG", startTime, endTime);
         ecgAlert(ecgRecords);
     }
 
     /**
-     * Triggers an alert for the monitoring system. This method can be extended to
-     * notify medical staff, log the alert, or perform other actions. The method
-     * currently assumes that the alert information is fully formed when passed as
-     * an argument.
+     * Triggers an alert for the monitoring system, unless the suppression cache
+     * has seen it recently. The alert is queued on this generator's
+     * {@link AlertDispatcher} if one is set, and otherwise handled by
+     * {@link Alert#triggerAlert()}.
      *
      * @param alert the alert object containing details about the alert condition
      */
     private void triggerAlert(Alert alert) {
-        alert.triggerAlert();
+        AlertSuppressionCache cache = suppressionCache;
+        if (cache != null && !cache.shouldNotify(alert)) {
+            return;
+        }
+        dispatch(alert);
+    }
+
+    private void dispatch(Alert alert) {
+        AlertDispatcher target = dispatcher;
+        if (target != null) {
+            target.submit(alert);
+        } else {
+            alert.triggerAlert();
+        }
     }
 
     public List<PatientRecord> filterRecordsByType(List<PatientRecord> records, String type) {
@@ -125,8 +241,7 @@ public class AlertGenerator {
             }
 
             if (consecutiveTrend >= 2) {
-                Alert alert = new Alert(String.valueOf(records.get(i).getPatientId()), type + " Trend Alert " + (increase ? "increase" : "decrease"), records.get(i).getTimestamp());
-                triggerAlert(alert);
+                bloodPressureAlerts.raiseAlert(String.valueOf(records.get(i).getPatientId()), type + " Trend Alert " + (increase ? "increase" : "decrease"), records.get(i).getTimestamp());
             }
         }
     }
@@ -140,11 +255,11 @@ public class AlertGenerator {
                 double value = record.getMeasurementValue();
                 if (type.equals("DiastolicPressure")) {
                     if (value > 120 || value < 60) {
-                        triggerAlert(new Alert(patientId, type + " Critical Threshold Alert", record.getTimestamp()));
+                        bloodPressureAlerts.raiseAlert(patientId, type + " Critical Threshold Alert", record.getTimestamp());
                     }
                 } else if (type.equals("SystolicPressure")) {
                     if (value > 180 || value < 90) {
-                        triggerAlert(new Alert(patientId, type + " Critical Threshold Alert", record.getTimestamp()));
+                        bloodPressureAlerts.raiseAlert(patientId, type + " Critical Threshold Alert", record.getTimestamp());
                     }
                 }
             }
@@ -156,23 +271,20 @@ public class AlertGenerator {
         bloodSaturationRapidDropAlert(records);
     }
 
+    /**
+     * Triggers one alert per episode in which saturation lies more than 5%
+     * below the highest reading of the preceding {@link #TEN_MIN_MS}.
+     *
+     * @param records the saturation records, ordered by timestamp
+     */
     public void bloodSaturationRapidDropAlert(List<PatientRecord> records) {
         if (!records.isEmpty()) {
             String patientId = String.valueOf(records.get(0).getPatientId());
+            SaturationDropDetector detector = new SaturationDropDetector();
 
-            for (int i = 0; i < records.size(); i++) {
-                for (int j = i; j < records.size(); j++) {
-                    PatientRecord r1 = records.get(i);
-                    PatientRecord r2 = records.get(j);
-                    long time_diff = r2.getTimestamp() - r1.getTimestamp();
-                    if (time_diff > TEN_MIN_MS) {
-                        break;
-                    } else {
-                        double valDiff = r2.getMeasurementValue() - r1.getMeasurementValue();
-                        if (valDiff < -5.0) {
-                            triggerAlert(new Alert(patientId, "Rapid Drop of Blood Saturation", r2.getTimestamp()));
-                        }
-                    }
+            for (PatientRecord record : records) {
+                if (detector.offer(record.getMeasurementValue(), record.getTimestamp())) {
+                    bloodOxygenAlerts.raiseAlert(patientId, "Rapid Drop of Blood Saturation", record.getTimestamp());
                 }
             }
         }
@@ -185,7 +297,7 @@ public class AlertGenerator {
 
                 double value = record.getMeasurementValue();
                 if (value < 92.0) {
-                    triggerAlert(new Alert(patientId, "Low Saturation Alert", record.getTimestamp()));
+                    bloodOxygenAlerts.raiseAlert(patientId, "Low Saturation Alert", record.getTimestamp());
                 }
             }
         }
@@ -193,12 +305,24 @@ public class AlertGenerator {
 
     public void hypotensiveHypoxemiaAlert(Patient patient) {
         long endTime = System.currentTimeMillis();
-        long startTime = System.currentTimeMillis() - MILLISECONDS_ONE_DAY;
-        List<PatientRecord> records = patient.getRecords(startTime, endTime);
+        long startTime = endTime - MILLISECONDS_ONE_DAY;
 
-        List<PatientRecord> systolicRecords = filterRecordsByType(records, "SystolicPressure");
-        List<PatientRecord> saturation = filterRecordsByType(records, "Saturation");
+        hypotensiveHypoxemiaAlert(patient.getPatientId(),
+                patient.getRecords("SystolicPressure", startTime, endTime),
+                patient.getRecords("Saturation", startTime, endTime));
+    }
 
+    /**
+     * Checks for saturation readings below 92% taken while the most recent
+     * systolic pressure reading is at or below 90 mmHg. Both lists must be
+     * ordered by timestamp.
+     *
+     * @param patientId       the patient the records belong to
+     * @param systolicRecords the systolic pressure records
+     * @param saturation      the saturation records
+     */
+    public void hypotensiveHypoxemiaAlert(int patientId, List<PatientRecord> systolicRecords, List<PatientRecord> saturation) {
+        int firstCandidate = 0;
         for (int i = 0; i < systolicRecords.size(); i++) {
             PatientRecord systolicRecord = systolicRecords.get(i);
             if (systolicRecord.getMeasurementValue() > 90) {
@@ -206,43 +330,56 @@ public class AlertGenerator {
             }
             long currentTime = systolicRecord.getTimestamp();
             long nextTimeStamp = (i + 1 >= systolicRecords.size()) ? Long.MAX_VALUE : systolicRecords.get(i + 1).getTimestamp();
-            for (int j = 0; j < saturation.size(); j++) {
+            while (firstCandidate < saturation.size() && saturation.get(firstCandidate).getTimestamp() < currentTime) {
+                firstCandidate++;
+            }
+            for (int j = firstCandidate; j < saturation.size(); j++) {
                 PatientRecord saturationRecord = saturation.get(j);
                 if (saturationRecord.getTimestamp() > nextTimeStamp) {
                     break;
-                } else if (saturationRecord.getTimestamp() < currentTime) {
-                    continue;
                 }
 
                 if (saturationRecord.getMeasurementValue() < 92.0) {
-                    String patientId = String.valueOf(records.get(0).getPatientId());
-                    triggerAlert(new Alert(patientId, "Hypotensive Hypoxemia Alert", saturationRecord.getTimestamp()));
+                    bloodOxygenAlerts.raiseAlert(String.valueOf(patientId), "Hypotensive Hypoxemia Alert", saturationRecord.getTimestamp());
                 }
 
             }
         }
     }
 
+    /**
+     * Triggers an alert for every ECG sample that exceeds the patient's
+     * threshold relative to the mean of the preceding window.
+     *
+     * @param records the ECG records of one patient, ordered by timestamp
+     */
     public void ecgAlert(List<PatientRecord> records) {
-        int windowSize = 5;
-        double thresholdMult = 1.5;
-
-        for (int i = 0; i < records.size() - windowSize; i++) {
-            double valSum = 0;
-            for (int j = 0; j < windowSize; j++) {
-                valSum += records.get(i + j).getMeasurementValue();
+        if (records.isEmpty()) {
+            return;
+        }
+        int patientId = records.get(0).getPatientId();
+        EcgAnomalyDetector detector = new EcgAnomalyDetector(getEcgSettings(patientId));
+
+        if (records instanceof RecordSeries.View) {
+            // Read the primitive columns directly instead of creating a record per sample
+            RecordSeries.View view = (RecordSeries.View) records;
+            for (int i = 0; i < view.size(); i++) {
+                if (detector.offer(view.getValue(i))) {
+                    ecgAlerts.raiseAlert(String.valueOf(patientId), "ECG Irregularity", view.getTimestamp(i));
+                }
             }
-            double avg = valSum / windowSize;
-            double nextPoint = records.get(i + windowSize).getMeasurementValue();
-            if (nextPoint > thresholdMult * avg) {
-                String patientId = String.valueOf(records.get(0).getPatientId());
-                triggerAlert(new Alert(patientId, "ECG Irregularity", records.get(i + windowSize).getTimestamp()));
+        } else {
+            for (PatientRecord record : records) {
+                if (detector.offer(record.getMeasurementValue())) {
+                    ecgAlerts.raiseAlert(String.valueOf(patientId), "ECG Irregularity", record.getTimestamp());
+                }
             }
         }
     }
 
     public void triggeredAlert(String patientId, long timeStamp) {
-        triggerAlert(new Alert(patientId, "Alert was triggered by nurse or patient", timeStamp));
+        // Manual alerts are always reported
+        dispatch(new Alert(patientId, "Alert was triggered by nurse or patient", timeStamp));
     }
 
 }
@@ -0,0 +1,175 @@
+package com.alerts;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers which alerts were recently raised so the same condition for the
+ * same patient is not reported again on every evaluation cycle.
+ * <p>
+ * An alert for a (patient, condition) pair is let through when it is the first
+ * one for that pair, or when its timestamp is at least the re-notify interval
+ * after the last alert that was let through. Alerts for older or equal
+ * timestamps, which is what a rescan of the last day produces, are suppressed.
+ * All times are measurement timestamps, so the cache behaves the same for live
+ * and replayed data. The cache never sends anything by itself: a condition is
+ * only reported again when a newer alert for it is raised after the interval.
+ * Reminders on a timer are what
+ * {@link com.alerts.decorator.RepeatedAlertDecorator} is for.
+ * <p>
+ * Entries whose last notification is older than the time-to-live, relative to
+ * the newest timestamp seen, are evicted. The sweep runs at most once per
+ * bucket of {@code ttl / 4} milliseconds, so memory stays bounded by the pairs
+ * that were active within the time-to-live.
+ */
+public class AlertSuppressionCache {
+    public static final long DEFAULT_RENOTIFY_INTERVAL_MS = 10 * 60 * 1000L;
+    public static final long DEFAULT_TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private final long renotifyIntervalMs;
+    private final long ttlMs;
+    private final long bucketMs;
+    private final Map<Key, Long> lastNotified = new ConcurrentHashMap<>();
+    private final AtomicLong newestTimestamp = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong lastSweepBucket = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Creates a cache with a 10 minute re-notify interval and a 24 hour
+     * time-to-live.
+     */
+    public AlertSuppressionCache() {
+        this(DEFAULT_RENOTIFY_INTERVAL_MS, DEFAULT_TTL_MS);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param renotifyIntervalMs the minimum time between two alerts for the same
+     *                           patient and condition
+     * @param ttlMs              how long an entry is kept after its last
+     *                           notification; must not be shorter than the
+     *                           re-notify interval
+     */
+    public AlertSuppressionCache(long renotifyIntervalMs, long ttlMs) {
+        if (renotifyIntervalMs < 0 || ttlMs < renotifyIntervalMs) {
+            throw new IllegalArgumentException("Invalid re-notify interval " + renotifyIntervalMs + " or TTL " + ttlMs);
+        }
+        this.renotifyIntervalMs = renotifyIntervalMs;
+        this.ttlMs = ttlMs;
+        this.bucketMs = Math.max(1, ttlMs / 4);
+    }
+
+    /**
+     * Decides whether an alert should be reported and, if so, records it.
+     *
+     * @param patientId the patient the alert is about
+     * @param condition the alert condition
+     * @param timestamp the time of the measurement that caused the alert
+     * @return {@code true} if the alert should be reported, {@code false} if it
+     * is a duplicate
+     */
+    public boolean shouldNotify(String patientId, String condition, long timestamp) {
+        Key key = new Key(patientId, condition);
+        boolean[] notify = new boolean[1];
+        lastNotified.compute(key, (k, last) -> {
+            if (last == null || timestamp >= last + renotifyIntervalMs) {
+                notify[0] = true;
+                return timestamp;
+            }
+            return last;
+        });
+        if (!notify[0]) {
+            suppressed.incrementAndGet();
+        }
+        advance(timestamp);
+        return notify[0];
+    }
+
+    /**
+     * Decides whether an alert should be reported and, if so, records it.
+     *
+     * @param alert the alert
+     * @return {@code true} if the alert should be reported, {@code false} if it
+     * is a duplicate
+     */
+    public boolean shouldNotify(Alert alert) {
+        return shouldNotify(alert.getPatientId(), alert.getCondition(), alert.getTimestamp());
+    }
+
+    private void advance(long timestamp) {
+        long newest = newestTimestamp.accumulateAndGet(timestamp, Math::max);
+        long bucket = Math.floorDiv(newest, bucketMs);
+        long previous = lastSweepBucket.get();
+        if (bucket > previous && lastSweepBucket.compareAndSet(previous, bucket)) {
+            long cutoff = newest - ttlMs;
+            lastNotified.values().removeIf(last -> last < cutoff);
+        }
+    }
+
+    /**
+     * Forgets all recorded alerts.
+     */
+    public void clear() {
+        lastNotified.clear();
+        newestTimestamp.set(Long.MIN_VALUE);
+        lastSweepBucket.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * Returns the number of (patient, condition) pairs currently remembered.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return lastNotified.size();
+    }
+
+    /**
+     * Returns the number of alerts suppressed since the cache was created.
+     *
+     * @return the number of suppressed alerts
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    public long getRenotifyIntervalMs() {
+        return renotifyIntervalMs;
+    }
+
+    private static final class Key {
+        private final String patientId;
+        private final String condition;
+        private final int hash;
+
+        Key(String patientId, String condition) {
+            this.patientId = patientId;
+            this.condition = condition;
+            this.hash = 31 * patientId.hashCode() + condition.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return patientId.equals(other.patientId) && condition.equals(other.condition);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return patientId + "/" + condition;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.alerts;
+
+/**
+ * Streaming detector for ECG samples that spike above the recent average.
+ * <p>
+ * A sample is anomalous when it is greater than the threshold multiplier times
+ * the mean of the preceding window of samples. The window is kept in a
+ * primitive ring buffer with a running sum, so each sample costs O(1)
+ * regardless of the window length. This class is not thread-safe.
+ */
+public class EcgAnomalyDetector {
+
+    // Rebuild the running sum from the buffer this often to stop rounding errors from accumulating
+    private static final int RESUM_INTERVAL = 1 << 16;
+
+    private final Settings settings;
+    private final double[] window;
+    private int head;
+    private int count;
+    private double sum;
+    private int updatesSinceResum;
+
+    /**
+     * Creates a detector with the given settings.
+     *
+     * @param settings the window length and threshold to use
+     */
+    public EcgAnomalyDetector(Settings settings) {
+        this.settings = settings;
+        this.window = new double[settings.getWindowSize()];
+    }
+
+    /**
+     * Creates a detector with the given window length and threshold.
+     *
+     * @param windowSize          the number of preceding samples to average
+     * @param thresholdMultiplier how many times the average a sample must exceed
+     */
+    public EcgAnomalyDetector(int windowSize, double thresholdMultiplier) {
+        this(new Settings(windowSize, thresholdMultiplier));
+    }
+
+    /**
+     * Adds the next ECG sample.
+     *
+     * @param value the sample value
+     * @return {@code true} if the sample exceeds the threshold relative to the
+     * mean of the preceding full window
+     */
+    public boolean offer(double value) {
+        int windowSize = window.length;
+        boolean anomaly = count == windowSize && value > settings.getThresholdMultiplier() * (sum / windowSize);
+
+        if (count == windowSize) {
+            sum -= window[head];
+        } else {
+            count++;
+        }
+        window[head] = value;
+        sum += value;
+        head = head + 1 == windowSize ? 0 : head + 1;
+
+        if (++updatesSinceResum == RESUM_INTERVAL) {
+            updatesSinceResum = 0;
+            double exact = 0;
+            for (int i = 0; i < count; i++) {
+                exact += window[i];
+            }
+            sum = exact;
+        }
+        return anomaly;
+    }
+
+    /**
+     * Returns the mean of the samples currently in the window.
+     *
+     * @return the window mean, or 0 if no sample was offered yet
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Forgets all samples.
+     */
+    public void reset() {
+        head = 0;
+        count = 0;
+        sum = 0;
+        updatesSinceResum = 0;
+    }
+
+    /**
+     * Immutable window length and threshold for an {@link EcgAnomalyDetector}.
+     */
+    public static final class Settings {
+        /**
+         * The settings used when none are configured: a spike is a sample above
+         * 1.5 times the mean of the 5 preceding samples.
+         */
+        public static final Settings DEFAULT = new Settings(5, 1.5);
+
+        private final int windowSize;
+        private final double thresholdMultiplier;
+
+        /**
+         * Creates detector settings.
+         *
+         * @param windowSize          the number of preceding samples to average,
+         *                            at least 1
+         * @param thresholdMultiplier how many times the average a sample must
+         *                            exceed
+         */
+        public Settings(int windowSize, double thresholdMultiplier) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("windowSize must be at least 1");
+            }
+            this.windowSize = windowSize;
+            this.thresholdMultiplier = thresholdMultiplier;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public double getThresholdMultiplier() {
+            return thresholdMultiplier;
+        }
+    }
+}
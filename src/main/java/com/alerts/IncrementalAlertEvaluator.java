@@ -0,0 +1,272 @@
+package com.alerts;
+
+import com.data_management.Patient;
+import com.data_management.RecordSeries;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Evaluates the {@link AlertGenerator} rules incrementally, one measurement at
+ * a time.
+ * <p>
+ * Instead of re-reading the last 24 hours of data on every evaluation, this
+ * class keeps per-patient rule state (blood pressure trend counters, an
+ * {@link EcgAnomalyDetector} and a {@link SaturationDropDetector}) and only
+ * looks at measurements added since the previous evaluation. Each measurement
+ * is processed once, so each alert fires once, when it first appears.
+ * <p>
+ * Each series is read from a watermark: the latest timestamp evaluated and
+ * how many of its measurements were evaluated. A measurement that arrives out
+ * of order, e.g. from a replay or a segment file, is evaluated if its
+ * timestamp is not older than the watermark, including one with the same
+ * timestamp as the latest evaluated. An older one is never evaluated, as the
+ * rule state has already moved past it; it is stored but raises no alert.
+ * Evaluations of different patients may run in parallel.
+ */
+public class IncrementalAlertEvaluator {
+
+    // Processing order for measurements with equal timestamps; systolic pressure
+    // comes before saturation so the hypotensive hypoxemia rule sees it first.
+    private static final String[] RECORD_TYPES = {"SystolicPressure", "DiastolicPressure", "Saturation", "ECG"};
+    private static final int SYSTOLIC = 0;
+    private static final int DIASTOLIC = 1;
+    private static final int SATURATION = 2;
+    private static final int ECG = 3;
+
+    private final Consumer<Alert> alertConsumer;
+    private final IntFunction<EcgAnomalyDetector.Settings> ecgSettings;
+    private final Map<Integer, PatientState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an evaluator that hands every alert it raises to the given
+     * consumer.
+     *
+     * @param alertConsumer receives each triggered alert
+     */
+    public IncrementalAlertEvaluator(Consumer<Alert> alertConsumer) {
+        this(alertConsumer, patientId -> EcgAnomalyDetector.Settings.DEFAULT);
+    }
+
+    /**
+     * Creates an evaluator with per-patient ECG detection settings.
+     *
+     * @param alertConsumer receives each triggered alert
+     * @param ecgSettings   returns the ECG settings of a patient; a patient's
+     *                      detector is rebuilt when the returned settings change
+     */
+    public IncrementalAlertEvaluator(Consumer<Alert> alertConsumer, IntFunction<EcgAnomalyDetector.Settings> ecgSettings) {
+        this.alertConsumer = alertConsumer;
+        this.ecgSettings = ecgSettings;
+    }
+
+    /**
+     * Evaluates the measurements added to the patient since the previous call.
+     * On the first call for a patient, only the last 24 hours are evaluated.
+     *
+     * @param patient the patient whose new measurements should be evaluated
+     */
+    public void evaluate(Patient patient) {
+        PatientState state = states.computeIfAbsent(patient.getPatientId(), PatientState::new);
+        synchronized (state) {
+            long windowStart = System.currentTimeMillis() - AlertGenerator.MILLISECONDS_ONE_DAY;
+            RecordSeries.View[] views = new RecordSeries.View[RECORD_TYPES.length];
+            int[] positions = new int[RECORD_TYPES.length];
+            for (int t = 0; t < RECORD_TYPES.length; t++) {
+                RecordSeries series = patient.getSeries(RECORD_TYPES[t]);
+                if (series == null) {
+                    continue;
+                }
+                if (state.evaluatedAtLast[t] == 0) {
+                    views[t] = series.range(windowStart, Long.MAX_VALUE);
+                } else {
+                    // From the latest evaluated timestamp on, skipping what was evaluated at it
+                    views[t] = series.range(state.lastTimestamp[t] - 1, Long.MAX_VALUE);
+                    positions[t] = Math.min(state.evaluatedAtLast[t], views[t].size());
+                }
+            }
+
+            // Feed the new measurements of all types in timestamp order
+            while (true) {
+                int next = -1;
+                long nextTimestamp = Long.MAX_VALUE;
+                for (int t = 0; t < views.length; t++) {
+                    if (views[t] != null && positions[t] < views[t].size()
+                            && (next == -1 || views[t].getTimestamp(positions[t]) < nextTimestamp)) {
+                        next = t;
+                        nextTimestamp = views[t].getTimestamp(positions[t]);
+                    }
+                }
+                if (next == -1) {
+                    break;
+                }
+                process(state, next, views[next].getValue(positions[next]), nextTimestamp);
+                positions[next]++;
+            }
+
+            for (int t = 0; t < views.length; t++) {
+                if (views[t] != null && !views[t].isEmpty()) {
+                    state.advance(t, views[t]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates a single measurement pushed by a streaming source, bypassing
+     * the storage. Measurements of types without rules are ignored.
+     *
+     * @param patientId        the patient the measurement belongs to
+     * @param measurementValue the measured value
+     * @param recordType       the type of measurement, e.g. "Saturation"
+     * @param timestamp        the time of the measurement, in milliseconds since
+     *                         UNIX epoch
+     */
+    public void onMeasurement(int patientId, double measurementValue, String recordType, long timestamp) {
+        for (int t = 0; t < RECORD_TYPES.length; t++) {
+            if (RECORD_TYPES[t].equals(recordType)) {
+                PatientState state = states.computeIfAbsent(patientId, PatientState::new);
+                synchronized (state) {
+                    process(state, t, measurementValue, timestamp);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops the rule state kept for a patient, e.g. after discharge.
+     *
+     * @param patientId the patient whose state should be removed
+     */
+    public void reset(int patientId) {
+        states.remove(patientId);
+    }
+
+    private void process(PatientState state, int type, double value, long timestamp) {
+        switch (type) {
+            case SYSTOLIC:
+                if (value > 180 || value < 90) {
+                    raise(state, "SystolicPressure Critical Threshold Alert", timestamp);
+                }
+                state.systolicTrend.update(state, "SystolicPressure", value, timestamp);
+                state.hasSystolic = true;
+                state.lastSystolic = value;
+                break;
+            case DIASTOLIC:
+                if (value > 120 || value < 60) {
+                    raise(state, "DiastolicPressure Critical Threshold Alert", timestamp);
+                }
+                state.diastolicTrend.update(state, "DiastolicPressure", value, timestamp);
+                break;
+            case SATURATION:
+                if (value < 92.0) {
+                    raise(state, "Low Saturation Alert", timestamp);
+                    if (state.hasSystolic && state.lastSystolic <= 90) {
+                        raise(state, "Hypotensive Hypoxemia Alert", timestamp);
+                    }
+                }
+                if (state.saturationDrops.offer(value, timestamp)) {
+                    raise(state, "Rapid Drop of Blood Saturation", timestamp);
+                }
+                break;
+            case ECG:
+                EcgAnomalyDetector.Settings settings = ecgSettings.apply(state.patientId);
+                if (state.ecg == null || state.ecg.getSettings() != settings) {
+                    state.ecg = new EcgAnomalyDetector(settings);
+                }
+                if (state.ecg.offer(value)) {
+                    raise(state, "ECG Irregularity", timestamp);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void raise(PatientState state, String condition, long timestamp) {
+        alertConsumer.accept(new Alert(state.patientIdText, condition, timestamp));
+    }
+
+    /**
+     * Rule state of one patient.
+     */
+    private final class PatientState {
+        private final int patientId;
+        private final String patientIdText;
+        // Per type, the latest evaluated timestamp and how many measurements at it were evaluated, 0 if none
+        private final long[] lastTimestamp = new long[RECORD_TYPES.length];
+        private final int[] evaluatedAtLast = new int[RECORD_TYPES.length];
+
+        private final TrendState systolicTrend = new TrendState();
+        private final TrendState diastolicTrend = new TrendState();
+        private boolean hasSystolic;
+        private double lastSystolic;
+
+        private final SaturationDropDetector saturationDrops = new SaturationDropDetector();
+
+        private EcgAnomalyDetector ecg;
+
+        private PatientState(int patientId) {
+            this.patientId = patientId;
+            this.patientIdText = String.valueOf(patientId);
+        }
+
+        /**
+         * Moves the watermark of a type to the end of a view whose
+         * measurements were all evaluated.
+         */
+        private void advance(int type, RecordSeries.View view) {
+            int last = view.size() - 1;
+            long timestamp = view.getTimestamp(last);
+            int count = 1;
+            while (count <= last && view.getTimestamp(last - count) == timestamp) {
+                count++;
+            }
+            lastTimestamp[type] = timestamp;
+            evaluatedAtLast[type] = count;
+        }
+    }
+
+    /**
+     * Counts consecutive blood pressure changes of at least 10 mmHg in the same
+     * direction, matching {@link AlertGenerator#bloodPressureTrendAlert}.
+     */
+    private final class TrendState {
+        private boolean hasPrevious;
+        private double previous;
+        private int consecutiveTrend;
+        private boolean increase;
+        private boolean decrease;
+
+        private void update(PatientState state, String type, double value, long timestamp) {
+            if (!hasPrevious) {
+                hasPrevious = true;
+                previous = value;
+                return;
+            }
+            double valueChange = value - previous;
+            previous = value;
+
+            if (valueChange >= 10) {
+                consecutiveTrend = increase ? consecutiveTrend + 1 : 1;
+                increase = true;
+                decrease = false;
+            } else if (valueChange <= -10) {
+                consecutiveTrend = decrease ? consecutiveTrend + 1 : 1;
+                increase = false;
+                decrease = true;
+            } else {
+                consecutiveTrend = 0;
+                increase = false;
+                decrease = false;
+            }
+
+            if (consecutiveTrend >= 2) {
+                raise(state, type + " Trend Alert " + (increase ? "increase" : "decrease"), timestamp);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.alerts;
+
+/**
+ * Detects rapid drops in blood saturation in a single linear pass.
+ * <p>
+ * A reading is part of a drop when it lies more than the drop threshold below
+ * the highest reading taken within the preceding window (10 minutes and 5
+ * percentage points by default). The detector keeps a monotonic deque of the
+ * readings that can still become the window maximum, so each reading is
+ * pushed and popped at most once.
+ * <p>
+ * Consecutive readings that are all part of a drop form one episode, and
+ * {@link #offer} reports only the first reading of each episode. Readings
+ * must be offered in timestamp order. This class is not thread-safe.
+ */
+public class SaturationDropDetector {
+    private final long windowMillis;
+    private final double dropThreshold;
+
+    // Ring buffer holding the deque, values strictly decreasing from head to tail
+    private long[] timestamps = new long[16];
+    private double[] values = new double[16];
+    private int head;
+    private int count;
+    private boolean inEpisode;
+
+    /**
+     * Creates a detector for drops of more than 5 percentage points within
+     * {@link AlertGenerator#TEN_MIN_MS}.
+     */
+    public SaturationDropDetector() {
+        this(AlertGenerator.TEN_MIN_MS, 5.0);
+    }
+
+    /**
+     * Creates a detector with a custom window and threshold.
+     *
+     * @param windowMillis  how far back to look for a higher reading, in
+     *                      milliseconds
+     * @param dropThreshold the drop, in percentage points, that must be exceeded
+     */
+    public SaturationDropDetector(long windowMillis, double dropThreshold) {
+        this.windowMillis = windowMillis;
+        this.dropThreshold = dropThreshold;
+    }
+
+    /**
+     * Adds the next saturation reading.
+     *
+     * @param value     the saturation value, in percent
+     * @param timestamp the time of the reading, in milliseconds since UNIX epoch
+     * @return {@code true} if this reading starts a new drop episode
+     */
+    public boolean offer(double value, long timestamp) {
+        int mask = values.length - 1;
+        while (count > 0 && timestamps[head] < timestamp - windowMillis) {
+            head = (head + 1) & mask;
+            count--;
+        }
+        boolean drop = count > 0 && value - values[head] < -dropThreshold;
+        boolean episodeStart = drop && !inEpisode;
+        inEpisode = drop;
+
+        while (count > 0 && values[(head + count - 1) & mask] <= value) {
+            count--;
+        }
+        if (count == values.length) {
+            grow();
+            mask = values.length - 1;
+        }
+        int tail = (head + count) & mask;
+        timestamps[tail] = timestamp;
+        values[tail] = value;
+        count++;
+        return episodeStart;
+    }
+
+    /**
+     * Returns whether the most recent reading was part of a drop episode.
+     *
+     * @return {@code true} while a drop episode is ongoing
+     */
+    public boolean isInEpisode() {
+        return inEpisode;
+    }
+
+    /**
+     * Forgets all readings, e.g. before scanning a new list of records.
+     */
+    public void reset() {
+        head = 0;
+        count = 0;
+        inEpisode = false;
+    }
+
+    private void grow() {
+        long[] newTimestamps = new long[timestamps.length * 2];
+        double[] newValues = new double[values.length * 2];
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) & (values.length - 1);
+            newTimestamps[i] = timestamps[index];
+            newValues[i] = values[index];
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+        head = 0;
+    }
+}
@@ -2,16 +2,33 @@ package com.alerts.decorator;
 
 import com.alerts.Alert;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A concrete decorator that adds repetition tracking to an Alert.
  * <p>
  * This decorator enhances an alert by indicating how many times it has been repeated
  * and optionally simulating repeated alert checks over time.
+ * <p>
+ * The repeated checks run on a shared scheduler thread, so starting them never
+ * blocks the caller.
  */
 public class RepeatedAlertDecorator extends AlertDecorator {
+    public static final long DEFAULT_RECHECK_INTERVAL_MS = 1000;
+
+    private static final ScheduledExecutorService RECHECKS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "alert-recheck");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Number of times this alert is considered to have been repeated
     private int repeatCount;
+    private final long recheckIntervalMs;
 
     /**
      * Constructs a RepeatedAlertDecorator.
@@ -20,8 +37,20 @@ public class RepeatedAlertDecorator extends AlertDecorator {
      * @param repeatCount    the number of times the alert has been repeated
      */
     public RepeatedAlertDecorator(Alert decoratedAlert, int repeatCount) {
+        this(decoratedAlert, repeatCount, DEFAULT_RECHECK_INTERVAL_MS);
+    }
+
+    /**
+     * Constructs a RepeatedAlertDecorator with a custom time between checks.
+     *
+     * @param decoratedAlert    the original Alert to decorate
+     * @param repeatCount       the number of times the alert has been repeated
+     * @param recheckIntervalMs the time between two checks in milliseconds
+     */
+    public RepeatedAlertDecorator(Alert decoratedAlert, int repeatCount, long recheckIntervalMs) {
         super(decoratedAlert); // Initialize the base AlertDecorator
         this.repeatCount = repeatCount;
+        this.recheckIntervalMs = recheckIntervalMs;
     }
 
     /**
@@ -35,20 +64,30 @@ public class RepeatedAlertDecorator extends AlertDecorator {
     }
 
     /**
-     * Simulates performing repeated checks for this alert over time.
-     * Waits 1 second between checks and logs each check to the console.
+     * Schedules the repeated checks for this alert. One check is logged to the
+     * console per interval until {@code repeatCount} checks have run. The
+     * method returns immediately.
+     *
+     * @return a handle that can be used to cancel the remaining checks, or
+     * {@code null} if there is nothing to check
      */
-    public void repeatCheck() {
-        for (int i = 0; i < repeatCount; i++) {
-            // Simulate a delay for each repeat
-            try {
-                Thread.sleep(1000); // 1 second delay
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-
-            // Log the repeated alert check with a timestamp
-            System.out.println("Rechecking alert: " + getCondition() + " at " + System.currentTimeMillis());
+    public ScheduledFuture<?> repeatCheck() {
+        if (repeatCount <= 0) {
+            return null;
+        }
+        AtomicInteger remaining = new AtomicInteger(repeatCount);
+        ScheduledFuture<?>[] handle = new ScheduledFuture<?>[1];
+        synchronized (handle) {
+            handle[0] = RECHECKS.scheduleAtFixedRate(() -> {
+                // Log the repeated alert check with a timestamp
+                System.out.println("Rechecking alert: " + getCondition() + " at " + System.currentTimeMillis());
+                if (remaining.decrementAndGet() == 0) {
+                    synchronized (handle) {
+                        handle[0].cancel(false);
+                    }
+                }
+            }, recheckIntervalMs, recheckIntervalMs, TimeUnit.MILLISECONDS);
         }
+        return handle[0];
     }
-}
\ No newline at end of file
+}
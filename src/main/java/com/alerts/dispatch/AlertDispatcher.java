@@ -0,0 +1,237 @@
+package com.alerts.dispatch;
+
+import com.alerts.Alert;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers alerts to one or more {@link AlertSink}s on a dedicated thread.
+ * <p>
+ * Evaluation threads only put alerts on a bounded queue, so a burst of alerts
+ * never stalls rule evaluation on console, file or network I/O. The
+ * dispatcher thread drains the queue in batches and hands each batch to every
+ * sink. When the queue is full, the {@link OverflowPolicy} decides whether the
+ * producer waits or an alert is dropped; dropped alerts are counted.
+ */
+public class AlertDispatcher implements AutoCloseable {
+
+    /**
+     * What {@link #submit} does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait until the dispatcher has made room. */
+        BLOCK,
+        /** Drop the alert being submitted. */
+        DROP_NEWEST,
+        /** Drop the oldest queued alert to make room for the new one. */
+        DROP_OLDEST
+    }
+
+    private static volatile AlertDispatcher defaultDispatcher;
+
+    private final BlockingQueue<Alert> queue;
+    private final List<AlertSink> sinks;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxBatchSize;
+    private final Thread thread;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts a dispatcher.
+     *
+     * @param capacity       the maximum number of queued alerts
+     * @param maxBatchSize   the maximum number of alerts handed to a sink at once
+     * @param overflowPolicy what to do when the queue is full
+     * @param sinks          the destinations of every alert
+     */
+    public AlertDispatcher(int capacity, int maxBatchSize, OverflowPolicy overflowPolicy, AlertSink... sinks) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sinks = new ArrayList<>(Arrays.asList(sinks));
+        this.thread = new Thread(this::run, "alert-dispatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Creates and starts a dispatcher with room for 65536 alerts, batches of up
+     * to 1024 alerts, and {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @param sinks the destinations of every alert
+     */
+    public AlertDispatcher(AlertSink... sinks) {
+        this(65536, 1024, OverflowPolicy.DROP_OLDEST, sinks);
+    }
+
+    /**
+     * Returns the dispatcher used by {@link Alert#triggerAlert()}.
+     *
+     * @return the default dispatcher, or {@code null} if alerts are printed
+     * synchronously
+     */
+    public static AlertDispatcher getDefault() {
+        return defaultDispatcher;
+    }
+
+    /**
+     * Sets the dispatcher used by {@link Alert#triggerAlert()}.
+     *
+     * @param dispatcher the new default, or {@code null} to print alerts
+     *                   synchronously again
+     */
+    public static void setDefault(AlertDispatcher dispatcher) {
+        defaultDispatcher = dispatcher;
+    }
+
+    /**
+     * Queues an alert for delivery. An alert submitted while the dispatcher
+     * is closing is dropped unless the dispatcher thread already took it.
+     *
+     * @param alert the alert to deliver
+     * @return {@code true} if the alert was queued, {@code false} if it was
+     * dropped
+     */
+    public boolean submit(Alert alert) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        if (!enqueue(alert)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        // Closed in the meantime: the dispatcher thread may have exited before the alert was queued
+        if (!running && queue.remove(alert)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Puts an alert on the queue according to the overflow policy.
+     *
+     * @return {@code false} if the alert could not be queued
+     */
+    private boolean enqueue(Alert alert) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    // Waits in steps, so a producer does not wait forever once nothing drains the queue
+                    while (!queue.offer(alert, 100, TimeUnit.MILLISECONDS)) {
+                        if (!running) {
+                            return false;
+                        }
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case DROP_OLDEST:
+                while (!queue.offer(alert)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                return true;
+            case DROP_NEWEST:
+            default:
+                return queue.offer(alert);
+        }
+    }
+
+    private void run() {
+        List<Alert> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Alert first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Drain what is left and stop
+                running = false;
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Alert> batch) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.deliver(batch);
+            } catch (Exception e) {
+                System.err.println("Error delivering alerts to " + sink.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    /**
+     * Stops accepting alerts, delivers the alerts still queued and closes the
+     * sinks. Alerts that are still queued once the dispatcher thread has
+     * stopped, or after ten seconds, are counted as dropped.
+     */
+    @Override
+    public void close() {
+        // The dispatcher thread polls with a timeout, so it notices this without an interrupt
+        // that could abort a sink in the middle of a write
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Alert> undelivered = new ArrayList<>();
+        queue.drainTo(undelivered);
+        dropped.addAndGet(undelivered.size());
+        for (AlertSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                System.err.println("Error closing alert sink: " + e.getMessage());
+            }
+        }
+        if (defaultDispatcher == this) {
+            defaultDispatcher = null;
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of alerts waiting to be delivered.
+     *
+     * @return the current queue length
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+}
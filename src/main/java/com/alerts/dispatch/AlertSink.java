@@ -0,0 +1,32 @@
+package com.alerts.dispatch;
+
+import com.alerts.Alert;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A destination for alerts drained by an {@link AlertDispatcher}.
+ * <p>
+ * Sinks are only called from the dispatcher thread, so implementations do not
+ * need to be thread-safe.
+ */
+public interface AlertSink {
+
+    /**
+     * Delivers a batch of alerts, in the order they were submitted.
+     *
+     * @param alerts the alerts to deliver; the list is reused after this call returns
+     * @throws IOException if the alerts could not be delivered
+     */
+    void deliver(List<Alert> alerts) throws IOException;
+
+    /**
+     * Releases any resources held by the sink. Called once when the dispatcher
+     * shuts down.
+     *
+     * @throws IOException if the resources could not be released
+     */
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,38 @@
+package com.alerts.dispatch;
+
+import com.alerts.Alert;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Prints alerts to the console, one line per alert, with a single write per
+ * batch.
+ */
+public class ConsoleAlertSink implements AlertSink {
+    private final PrintStream out;
+    private final StringBuilder buffer = new StringBuilder();
+
+    public ConsoleAlertSink() {
+        this(System.out);
+    }
+
+    /**
+     * Creates a sink that prints to the given stream.
+     *
+     * @param out the stream to print to
+     */
+    public ConsoleAlertSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) {
+        buffer.setLength(0);
+        for (Alert alert : alerts) {
+            buffer.append(alert.getMessage()).append(System.lineSeparator());
+        }
+        out.print(buffer);
+        out.flush();
+    }
+}
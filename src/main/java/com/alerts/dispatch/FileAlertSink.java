@@ -0,0 +1,48 @@
+package com.alerts.dispatch;
+
+import com.alerts.Alert;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends alerts to a text file, one line per alert. The file stays open for
+ * the lifetime of the sink and is flushed once per batch.
+ */
+public class FileAlertSink implements AlertSink {
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the given file for appending, creating it and its parent folders if
+     * needed.
+     *
+     * @param file the file to append alerts to
+     * @throws IOException if the file cannot be opened
+     */
+    public FileAlertSink(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) throws IOException {
+        for (Alert alert : alerts) {
+            writer.write(alert.getMessage());
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
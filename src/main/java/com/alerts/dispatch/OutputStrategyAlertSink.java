@@ -0,0 +1,39 @@
+package com.alerts.dispatch;
+
+import com.alerts.Alert;
+import com.cardio_generator.outputs.OutputStrategy;
+
+import java.util.List;
+
+/**
+ * Forwards alerts to an {@link OutputStrategy}, e.g. a
+ * {@link com.cardio_generator.outputs.TcpOutputStrategy} or
+ * {@link com.cardio_generator.outputs.WebSocketOutputStrategy}, with the label
+ * "Alert" and the alert condition as data.
+ */
+public class OutputStrategyAlertSink implements AlertSink {
+    private final OutputStrategy outputStrategy;
+
+    /**
+     * Creates a sink that forwards to the given output strategy.
+     *
+     * @param outputStrategy the output to send alerts to
+     */
+    public OutputStrategyAlertSink(OutputStrategy outputStrategy) {
+        this.outputStrategy = outputStrategy;
+    }
+
+    @Override
+    public void deliver(List<Alert> alerts) {
+        for (Alert alert : alerts) {
+            int patientId;
+            try {
+                patientId = Integer.parseInt(alert.getPatientId());
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping alert with non-numeric patient ID: " + alert.getPatientId());
+                continue;
+            }
+            outputStrategy.output(patientId, alert.getTimestamp(), "Alert", alert.getCondition());
+        }
+    }
+}
@@ -1,8 +1,57 @@
 package com.alerts.factory;
 
 import com.alerts.Alert;
+import com.alerts.AlertSuppressionCache;
+import com.alerts.dispatch.AlertDispatcher;
 
 public abstract class AlertFactory {
 
+    // Set at runtime and read by the threads that raise alerts
+    private volatile AlertDispatcher dispatcher;
+    private volatile AlertSuppressionCache suppressionCache;
+
     public abstract Alert createAlert(String patientID, String condition, long timestamp);
+
+    /**
+     * Creates an alert and submits it to this factory's dispatcher, or to the
+     * default dispatcher if none was set. If a suppression cache is set and the
+     * same alert was raised recently, nothing is created or submitted.
+     *
+     * @param patientID the patient the alert is about
+     * @param condition the alert condition
+     * @param timestamp the time of the measurement that caused the alert
+     * @return the created alert, or {@code null} if it was suppressed
+     */
+    public Alert raiseAlert(String patientID, String condition, long timestamp) {
+        AlertSuppressionCache cache = suppressionCache;
+        if (cache != null && !cache.shouldNotify(patientID, condition, timestamp)) {
+            return null;
+        }
+        Alert alert = createAlert(patientID, condition, timestamp);
+        AlertDispatcher target = dispatcher;
+        if (target != null) {
+            target.submit(alert);
+        } else {
+            alert.triggerAlert();
+        }
+        return alert;
+    }
+
+    /**
+     * Sets the dispatcher that {@link #raiseAlert} submits alerts to.
+     *
+     * @param dispatcher the dispatcher, or {@code null} to use the default one
+     */
+    public void setDispatcher(AlertDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Sets the cache that {@link #raiseAlert} uses to drop duplicate alerts.
+     *
+     * @param suppressionCache the cache, or {@code null} to raise every alert
+     */
+    public void setSuppressionCache(AlertSuppressionCache suppressionCache) {
+        this.suppressionCache = suppressionCache;
+    }
 }
@@ -24,10 +24,8 @@ public class BloodPressureStrategy implements AlertStrategy {
         long endTime = System.currentTimeMillis();
         long startTime = endTime - AlertGenerator.MILLISECONDS_ONE_DAY;
 
-        List<PatientRecord> records = patient.getRecords(startTime, endTime);
-
-        List<PatientRecord> systolicRecords = generator.filterRecordsByType(records, "SystolicPressure");
-        List<PatientRecord> diastolicRecords = generator.filterRecordsByType(records, "DiastolicPressure");
+        List<PatientRecord> systolicRecords = patient.getRecords("SystolicPressure", startTime, endTime);
+        List<PatientRecord> diastolicRecords = patient.getRecords("DiastolicPressure", startTime, endTime);
 
         generator.bloodPressureAlert(systolicRecords, "SystolicPressure");
         generator.bloodPressureAlert(diastolicRecords, "DiastolicPressure");
@@ -4,7 +4,6 @@ import com.alerts.Alert;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,8 +20,7 @@ public class HeartRateStrategy implements AlertStrategy {
         long now = System.currentTimeMillis();
         long oneDayAgo = now - ONE_DAY_MS;
 
-        List<PatientRecord> allRecords = patient.getRecords(oneDayAgo, now);
-        List<PatientRecord> heartRateRecords = filterRecordsByType(allRecords, "HeartRate");
+        List<PatientRecord> heartRateRecords = patient.getRecords("HeartRate", oneDayAgo, now);
 
         checkHighHeartRate(heartRateRecords);
         checkLowHeartRate(heartRateRecords);
@@ -48,14 +46,4 @@ public class HeartRateStrategy implements AlertStrategy {
         Alert alert = new Alert(String.valueOf(patientId), message, timestamp);
         alert.triggerAlert();
     }
-
-    private List<PatientRecord> filterRecordsByType(List<PatientRecord> records, String type) {
-        List<PatientRecord> filtered = new ArrayList<>();
-        for (PatientRecord record : records) {
-            if (record.getRecordType().equals(type)) {
-                filtered.add(record);
-            }
-        }
-        return filtered;
-    }
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 package com.alerts.strategy;
 
 import com.alerts.Alert;
+import com.alerts.SaturationDropDetector;
 import com.data_management.Patient;
 import com.data_management.PatientRecord;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,8 +22,7 @@ public class OxygenSaturationStrategy implements AlertStrategy {
         long endTime = System.currentTimeMillis();
         long startTime = endTime - (24 * 60 * 60 * 1000); // Last 24 hours
 
-        List<PatientRecord> allRecords = patient.getRecords(startTime, endTime);
-        List<PatientRecord> saturationRecords = filterRecordsByType(allRecords, "Saturation");
+        List<PatientRecord> saturationRecords = patient.getRecords("Saturation", startTime, endTime);
 
         checkLowSaturation(saturationRecords);
         checkRapidDrop(saturationRecords);
@@ -38,18 +37,10 @@ public class OxygenSaturationStrategy implements AlertStrategy {
     }
 
     private void checkRapidDrop(List<PatientRecord> records) {
-        for (int i = 0; i < records.size(); i++) {
-            for (int j = i + 1; j < records.size(); j++) {
-                long timeDiff = records.get(j).getTimestamp() - records.get(i).getTimestamp();
-                if (timeDiff > TEN_MINUTES_MS) {
-                    break;
-                }
-
-                double diff = records.get(j).getMeasurementValue() - records.get(i).getMeasurementValue();
-                if (diff < -5.0) {
-                    triggerAlert(records.get(j).getPatientId(), "Rapid Drop of Blood Saturation", records.get(j).getTimestamp());
-                    break; // Optional: only trigger once per window
-                }
+        SaturationDropDetector detector = new SaturationDropDetector(TEN_MINUTES_MS, 5.0);
+        for (PatientRecord record : records) {
+            if (detector.offer(record.getMeasurementValue(), record.getTimestamp())) {
+                triggerAlert(record.getPatientId(), "Rapid Drop of Blood Saturation", record.getTimestamp());
             }
         }
     }
@@ -58,14 +49,4 @@ public class OxygenSaturationStrategy implements AlertStrategy {
         Alert alert = new Alert(String.valueOf(patientId), message, timestamp);
         alert.triggerAlert();
     }
-
-    private List<PatientRecord> filterRecordsByType(List<PatientRecord> records, String type) {
-        List<PatientRecord> filtered = new ArrayList<>();
-        for (PatientRecord record : records) {
-            if (record.getRecordType().equals(type)) {
-                filtered.add(record);
-            }
-        }
-        return filtered;
-    }
 }
\ No newline at end of file
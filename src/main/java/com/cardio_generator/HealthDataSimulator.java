@@ -1,8 +1,6 @@
 package com.cardio_generator;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import com.cardio_generator.generators.AlertGenerator;
@@ -11,6 +9,7 @@ import com.cardio_generator.generators.BloodPressureDataGenerator;
 import com.cardio_generator.generators.BloodSaturationDataGenerator;
 import com.cardio_generator.generators.BloodLevelsDataGenerator;
 import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
 import com.cardio_generator.outputs.ConsoleOutputStrategy;
 import com.cardio_generator.outputs.FileOutputStrategy;
 import com.cardio_generator.outputs.OutputStrategy;
@@ -31,10 +30,21 @@ import java.nio.file.Paths;
 public class HealthDataSimulator {
 
 
+    private static final long DEFAULT_SEED = 42;
+    // 2024-01-01T00:00:00Z, the start of the virtual clock in replay mode
+    private static final long REPLAY_START = 1_704_067_200_000L;
+
     private static int patientCount = 50; // Default number of patients
-    private static ScheduledExecutorService scheduler;
+    private static int workerThreads = Runtime.getRuntime().availableProcessors();
+    private static int ecgSampleRate = ECGDataGenerator.DEFAULT_SAMPLE_RATE;
+    private static TimingWheelScheduler scheduler;
     private static OutputStrategy outputStrategy = new ConsoleOutputStrategy(); // Default output strategy
-    private static final Random random = new Random();
+    private static Random random = new Random();
+    // Replay mode: the virtual time to simulate, or 0 to follow the wall clock
+    private static long replayMillis = 0;
+    private static double replaySpeed = 0;
+    private static long seed = DEFAULT_SEED;
+    private static boolean seeded = false;
 
     private static HealthDataSimulator instance;
 
@@ -64,16 +74,56 @@ public class HealthDataSimulator {
      */
     public static void main(String[] args) throws IOException {
         parseArguments(args);
+        if (replayMillis > 0 || seeded) {
+            random = new Random(seed);
+        }
 
-        scheduler = Executors.newScheduledThreadPool(patientCount * 4);
+        // A fixed number of threads, however many patients are simulated
+        scheduler = new TimingWheelScheduler(outputStrategy, workerThreads);
 
         List<Integer> patientIds = initializePatientIds(patientCount);
-        Collections.shuffle(patientIds); // Randomize the order of patient IDs
+        Collections.shuffle(patientIds, random); // Randomize the order of patient IDs
 
         scheduleTasksForPatients(patientIds);
+        if (replayMillis > 0) {
+            runReplay();
+            return;
+        }
+        scheduler.start();
+
+        // Stop generating and close the output cleanly, e.g. to write out buffered file output
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outputStrategy.close();
+        }, "simulator-shutdown"));
     }
 
 
+    /**
+     * Simulates {@code --replay} hours of data on a virtual clock, then closes
+     * the output. With the same seed and options, every run writes the same
+     * data.
+     */
+    private static void runReplay() {
+        long started = System.nanoTime();
+        try {
+            scheduler.runVirtual(REPLAY_START, replayMillis, replaySpeed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scheduler.shutdown();
+            outputStrategy.close();
+        }
+        System.out.println("Replayed " + TimeUnit.MILLISECONDS.toMinutes(replayMillis) + " minutes for "
+                + patientCount + " patients (" + scheduler.getGeneratedCount() + " generator runs) in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+    }
+
     /**
      * This method looks at the command-line arguments and decides what to do.
      * For example: how many patients to simulate, or which output type to use.
@@ -82,6 +132,12 @@ public class HealthDataSimulator {
      * @throws IOException if it can't create a folder for file output
      */
     private static void parseArguments(String[] args) throws IOException {
+        String outputArg = null;
+        boolean binary = false;
+        long segmentMinutes = 0;
+        long segmentMegabytes = 0;
+        long batchMillis = 0;
+        boolean compress = false;
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
                 case "-h":
@@ -98,39 +154,86 @@ public class HealthDataSimulator {
                         }
                     }
                     break;
+                case "--threads":
+                    if (i + 1 < args.length) {
+                        try {
+                            workerThreads = Math.max(1, Integer.parseInt(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid number of threads. Using default value: " + workerThreads);
+                        }
+                    }
+                    break;
+                case "--ecg-rate":
+                    if (i + 1 < args.length) {
+                        try {
+                            ecgSampleRate = Math.min(Math.max(1, Integer.parseInt(args[++i])),
+                                    ECGDataGenerator.MAX_SAMPLE_RATE);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid ECG sample rate. Using default value: " + ecgSampleRate);
+                        }
+                    }
+                    break;
                 case "--output":
                     if (i + 1 < args.length) {
-                        String outputArg = args[++i];
-                        if (outputArg.equals("console")) {
-                            outputStrategy = new ConsoleOutputStrategy();
-                        } else if (outputArg.startsWith("file:")) {
-                            String baseDirectory = outputArg.substring(5);
-                            Path outputPath = Paths.get(baseDirectory);
-                            if (!Files.exists(outputPath)) {
-                                Files.createDirectories(outputPath);
-                            }
-                            outputStrategy = new FileOutputStrategy(baseDirectory);
-                        } else if (outputArg.startsWith("websocket:")) {
-                            try {
-                                int port = Integer.parseInt(outputArg.substring(10));
-                                // Initialize your WebSocket output strategy here
-                                outputStrategy = new WebSocketOutputStrategy(port);
-                                System.out.println("WebSocket output will be on port: " + port);
-                            } catch (NumberFormatException e) {
-                                System.err.println(
-                                        "Invalid port for WebSocket output. Please specify a valid port number.");
-                            }
-                        } else if (outputArg.startsWith("tcp:")) {
-                            try {
-                                int port = Integer.parseInt(outputArg.substring(4));
-                                // Initialize your TCP socket output strategy here
-                                outputStrategy = new TcpOutputStrategy(port);
-                                System.out.println("TCP socket output will be on port: " + port);
-                            } catch (NumberFormatException e) {
-                                System.err.println("Invalid port for TCP output. Please specify a valid port number.");
+                        outputArg = args[++i];
+                    }
+                    break;
+                case "--binary":
+                    binary = true;
+                    break;
+                case "--batch-ms":
+                    if (i + 1 < args.length) {
+                        try {
+                            batchMillis = Long.parseLong(args[++i]);
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid batch window. Samples are sent one by one.");
+                        }
+                    }
+                    break;
+                case "--compress":
+                    compress = true;
+                    break;
+                case "--replay":
+                    if (i + 1 < args.length) {
+                        try {
+                            replayMillis = (long) (Double.parseDouble(args[++i]) * TimeUnit.HOURS.toMillis(1));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid replay duration. Following the wall clock.");
+                        }
+                    }
+                    break;
+                case "--speed":
+                    if (i + 1 < args.length) {
+                        try {
+                            replaySpeed = Math.max(0, Double.parseDouble(args[++i]));
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid speed. Replaying as fast as possible.");
+                        }
+                    }
+                    break;
+                case "--seed":
+                    if (i + 1 < args.length) {
+                        try {
+                            seed = Long.parseLong(args[++i]);
+                            seeded = true;
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid seed. Using default value: " + seed);
+                        }
+                    }
+                    break;
+                case "--segment-minutes":
+                case "--segment-mb":
+                    if (i + 1 < args.length) {
+                        String option = args[i];
+                        try {
+                            long limit = Long.parseLong(args[++i]);
+                            if (option.equals("--segment-minutes")) {
+                                segmentMinutes = limit;
+                            } else {
+                                segmentMegabytes = limit;
                             }
-                        } else {
-                            System.err.println("Unknown output type. Using default (console).");
+                        } catch (NumberFormatException e) {
+                            System.err.println("Error: Invalid value for " + option + ". Segments are not limited.");
                         }
                     }
                     break;
@@ -140,6 +243,58 @@ public class HealthDataSimulator {
                     System.exit(1);
             }
         }
+        if (outputArg != null) {
+            createOutputStrategy(outputArg, binary, TimeUnit.MINUTES.toMillis(segmentMinutes), segmentMegabytes << 20,
+                    batchMillis, compress);
+        }
+    }
+
+    /**
+     * Creates the output strategy described by an {@code --output} argument.
+     *
+     * @param outputArg     the output type, e.g. "console" or "tcp:8080"
+     * @param binary        whether network and file outputs send binary frames
+     * @param segmentMillis the record time covered by one file segment, or 0
+     * @param segmentBytes  the maximum size of a file segment, or 0
+     * @param batchMillis   the WebSocket batch window, or 0 to send every sample on its own
+     * @param compress      whether WebSocket output offers per-message compression
+     * @throws IOException if it can't create a folder for file output
+     */
+    private static void createOutputStrategy(String outputArg, boolean binary, long segmentMillis, long segmentBytes,
+                                             long batchMillis, boolean compress) throws IOException {
+        if (outputArg.equals("console")) {
+            outputStrategy = new ConsoleOutputStrategy();
+        } else if (outputArg.startsWith("file:")) {
+            String baseDirectory = outputArg.substring(5);
+            Path outputPath = Paths.get(baseDirectory);
+            if (!Files.exists(outputPath)) {
+                Files.createDirectories(outputPath);
+            }
+            outputStrategy = new FileOutputStrategy(baseDirectory, binary,
+                    FileOutputStrategy.DEFAULT_GROUP_COMMIT_INTERVAL_MS, FileOutputStrategy.DEFAULT_GROUP_COMMIT_SIZE,
+                    segmentMillis, segmentBytes);
+        } else if (outputArg.startsWith("websocket:")) {
+            try {
+                int port = Integer.parseInt(outputArg.substring(10));
+                // Initialize your WebSocket output strategy here
+                outputStrategy = new WebSocketOutputStrategy(port, binary, batchMillis, compress);
+                System.out.println("WebSocket output will be on port: " + port);
+            } catch (NumberFormatException e) {
+                System.err.println(
+                        "Invalid port for WebSocket output. Please specify a valid port number.");
+            }
+        } else if (outputArg.startsWith("tcp:")) {
+            try {
+                int port = Integer.parseInt(outputArg.substring(4));
+                // Initialize your TCP socket output strategy here
+                outputStrategy = new TcpOutputStrategy(port, binary);
+                System.out.println("TCP socket output will be on port: " + port);
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid port for TCP output. Please specify a valid port number.");
+            }
+        } else {
+            System.err.println("Unknown output type. Using default (console).");
+        }
     }
 
     /**
@@ -152,11 +307,21 @@ public class HealthDataSimulator {
         System.out.println("  -h                       Show help and exit.");
         System.out.println(
                 "  --patient-count <count>  Specify the number of patients to simulate data for (default: 50).");
+        System.out.println("  --threads <count>        Number of threads that generate data (default: number of CPUs).");
+        System.out.println("  --ecg-rate <hz>          ECG samples per second and patient, up to 1000 (default: 1).");
         System.out.println("  --output <type>          Define the output method. Options are:");
         System.out.println("                             'console' for console output,");
         System.out.println("                             'file:<directory>' for file output,");
         System.out.println("                             'websocket:<port>' for WebSocket output,");
         System.out.println("                             'tcp:<port>' for TCP socket output.");
+        System.out.println("  --binary                 Send file, WebSocket and TCP output as compact binary frames.");
+        System.out.println("  --batch-ms <n>           Send WebSocket output in batches collected over <n> ms.");
+        System.out.println("  --compress               Offer per-message compression to WebSocket clients.");
+        System.out.println("  --segment-minutes <n>    Start a new indexed file segment every <n> minutes of data.");
+        System.out.println("  --segment-mb <n>         Start a new indexed file segment once a segment reaches <n> MB.");
+        System.out.println("  --replay <hours>         Simulate <hours> of data on a virtual clock, then exit.");
+        System.out.println("  --speed <factor>         Replay <factor> times faster than real time (default: 0, as fast as possible).");
+        System.out.println("  --seed <n>               Seed all random values, so runs produce the same data (default in replay: 42).");
         System.out.println("Example:");
         System.out.println("  java HealthDataSimulator --patient-count 100 --output websocket:8080");
         System.out.println(
@@ -179,33 +344,51 @@ public class HealthDataSimulator {
 
     /**
      * Schedules health data generation tasks for each patient using various generators.
+     * Patients that start at the same time are scheduled as one group, so every
+     * tick generates all patients due at that moment in one pass.
      *
      * @param patientIds List of patient IDs to generate data for.
      */
     private static void scheduleTasksForPatients(List<Integer> patientIds) {
-        ECGDataGenerator ecgDataGenerator = new ECGDataGenerator(patientCount);
-        BloodSaturationDataGenerator bloodSaturationDataGenerator = new BloodSaturationDataGenerator(patientCount);
-        BloodPressureDataGenerator bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount);
-        BloodLevelsDataGenerator bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount);
-        AlertGenerator alertGenerator = new AlertGenerator(patientCount);
+        // Every generator splits its patient streams off one root, derived from the seed
+        SplittableRandom root = replayMillis > 0 || seeded ? new SplittableRandom(seed) : new SplittableRandom();
+        ECGDataGenerator ecgDataGenerator = new ECGDataGenerator(patientCount, root.split(), ecgSampleRate);
+        BloodSaturationDataGenerator bloodSaturationDataGenerator =
+                new BloodSaturationDataGenerator(patientCount, root.split());
+        BloodPressureDataGenerator bloodPressureDataGenerator = new BloodPressureDataGenerator(patientCount, root.split());
+        BloodLevelsDataGenerator bloodLevelsDataGenerator = new BloodLevelsDataGenerator(patientCount, root.split());
+        AlertGenerator alertGenerator = new AlertGenerator(patientCount, root.split());
 
-        for (int patientId : patientIds) {
-            scheduleTask(() -> ecgDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodSaturationDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.SECONDS);
-            scheduleTask(() -> bloodPressureDataGenerator.generate(patientId, outputStrategy), 1, TimeUnit.MINUTES);
-            scheduleTask(() -> bloodLevelsDataGenerator.generate(patientId, outputStrategy), 2, TimeUnit.MINUTES);
-            scheduleTask(() -> alertGenerator.generate(patientId, outputStrategy), 20, TimeUnit.SECONDS);
-        }
+        scheduleTask(ecgDataGenerator, patientIds, 1, TimeUnit.SECONDS);
+        scheduleTask(bloodSaturationDataGenerator, patientIds, 1, TimeUnit.SECONDS);
+        scheduleTask(bloodPressureDataGenerator, patientIds, 1, TimeUnit.MINUTES);
+        scheduleTask(bloodLevelsDataGenerator, patientIds, 2, TimeUnit.MINUTES);
+        scheduleTask(alertGenerator, patientIds, 20, TimeUnit.SECONDS);
     }
 
     /**
-     * Schedules a recurring task at a fixed rate with a randomized initial delay.
+     * Schedules a generator at a fixed rate for all patients. Each patient gets
+     * a randomized initial delay, and the patients with the same delay form one
+     * group.
      *
-     * @param task     The task to run.
-     * @param period   The interval between executions.
-     * @param timeUnit The unit of time for the interval.
+     * @param generator  The generator to run.
+     * @param patientIds The patients to run it for.
+     * @param period     The interval between executions.
+     * @param timeUnit   The unit of time for the interval.
      */
-    private static void scheduleTask(Runnable task, long period, TimeUnit timeUnit) {
-        scheduler.scheduleAtFixedRate(task, random.nextInt(5), period, timeUnit);
+    private static void scheduleTask(PatientDataGenerator generator, List<Integer> patientIds, long period,
+                                     TimeUnit timeUnit) {
+        int delays = 5;
+        int[][] groups = new int[delays][patientIds.size()];
+        int[] sizes = new int[delays];
+        for (int patientId : patientIds) {
+            int delay = random.nextInt(delays);
+            groups[delay][sizes[delay]++] = patientId;
+        }
+        for (int delay = 0; delay < delays; delay++) {
+            if (sizes[delay] > 0) {
+                scheduler.schedule(generator, Arrays.copyOf(groups[delay], sizes[delay]), delay, period, timeUnit);
+            }
+        }
     }
 }
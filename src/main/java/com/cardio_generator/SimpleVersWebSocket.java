@@ -1,10 +1,13 @@
 package com.cardio_generator;
 
+import com.cardio_generator.outputs.BinaryRecordCodec;
 import com.data_management.DataStorage;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -17,14 +20,48 @@ import java.util.Scanner;
  * Example:
  * 12,1744113766180,HeartRate,85.0
  * <p>
+ * A text message may hold a batch of such lines separated by {@code '\n'}.
+ * <p>
+ * Binary messages are decoded as {@link BinaryRecordCodec} frames.
+ * <p>
+ * Lines are parsed with a character scanner into a batch owned by the
+ * connection, and the batch is stored with one bulk insert per message.
+ * Incoming messages are only printed if logging is turned on.
+ * <p>
  * Notes:
  * - Assumes all messages follow the expected CSV format.
  * - Messages with missing or malformed data are safely ignored.
  */
 public class SimpleVersWebSocket extends WebSocketClient {
 
-    // Reference to the shared data storage singleton
-    private final DataStorage storage = DataStorage.getInstance();
+    // Parsed samples are stored once this many are waiting
+    private static final int MAX_BATCH = 4096;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Labels seen so far, shared by all clients so every record of a type uses the same String
+    private static volatile String[] knownLabels = new String[0];
+
+    // The storage samples are written to, by default the shared singleton
+    private final DataStorage storage;
+
+    // Samples waiting to be stored; only touched by the thread that delivers messages
+    private int[] batchIds = new int[64];
+    private long[] batchTimes = new long[64];
+    private String[] batchTypes = new String[64];
+    private double[] batchValues = new double[64];
+    private int batchSize;
+
+    // The position after the last field parsed by the scanner
+    private int cursor;
+    private volatile boolean logging;
 
     /**
      * Constructs a WebSocket client for the given server URI.
@@ -32,7 +69,28 @@ public class SimpleVersWebSocket extends WebSocketClient {
      * @param endpoint the URI of the WebSocket server (e.g. ws://localhost:8887)
      */
     public SimpleVersWebSocket(URI endpoint) {
+        this(endpoint, DataStorage.getInstance());
+    }
+
+    /**
+     * Constructs a WebSocket client that writes into the given storage.
+     *
+     * @param endpoint the URI of the WebSocket server (e.g. ws://localhost:8887)
+     * @param storage  the storage to add received samples to
+     */
+    public SimpleVersWebSocket(URI endpoint, DataStorage storage) {
         super(endpoint);
+        this.storage = storage;
+    }
+
+    /**
+     * Turns printing of every incoming message on or off. It is off by
+     * default, because printing costs far more than parsing.
+     *
+     * @param logging true to print incoming messages
+     */
+    public void setLogging(boolean logging) {
+        this.logging = logging;
     }
 
     /**
@@ -47,51 +105,271 @@ public class SimpleVersWebSocket extends WebSocketClient {
 
     /**
      * Called when a message is received from the WebSocket server.
-     * Delegates parsing and processing to a separate method.
+     * Every line of the message is parsed into the batch, and the batch is
+     * stored once the whole message is parsed.
      *
      * @param msg the received message string
      */
     @Override
     public void onMessage(String msg) {
-        System.out.println(">> Incoming: " + msg);
-        processMessage(msg); // Delegate to parsing method
+        if (logging) {
+            System.out.println(">> Incoming: " + msg);
+        }
+        int start = 0;
+        int length = msg.length();
+        while (start < length) {
+            int end = msg.indexOf('\n', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                processMessage(msg, start, end); // Delegate to parsing method
+            }
+            start = end + 1;
+        }
+        flushBatch();
     }
 
     /**
-     * Parses and processes a message in CSV format.
-     * Expected format: "patientId,timestamp,label,value"
-     * If valid, stores the extracted data in the data storage.
+     * Called when a binary message is received from the WebSocket server.
+     * The message is decoded as one {@link BinaryRecordCodec} frame and all of
+     * its records are stored with a single bulk insert.
      *
-     * @param msg the raw message string
+     * @param bytes the received frame
      */
-    private void processMessage(String msg) {
-        String[] tokens = msg.split(",", 4); // Limit to 4 parts to handle malformed input
+    @Override
+    public void onMessage(ByteBuffer bytes) {
+        try {
+            int count = bytes.getInt(bytes.position());
+            if (count < 0 || (long) count * BinaryRecordCodec.RECORD_BYTES > bytes.remaining()) {
+                System.out.println("!! Invalid binary frame of " + bytes.remaining() + " bytes");
+                return;
+            }
+            BinaryRecordCodec.decode(bytes, this::addToBatch);
+        } catch (Exception ex) {
+            System.err.println("!! Unexpected error while handling binary message:");
+            ex.printStackTrace();
+        }
+        flushBatch();
+    }
 
-        // Check for correct number of fields
-        if (tokens.length != 4) {
-            System.out.println("!! Invalid format: " + msg);
+    /**
+     * Parses one line in CSV format, "patientId,timestamp,label,value", with
+     * optional spaces around the fields and an optional {@code %} after the
+     * value. If valid, the sample is added to the batch.
+     * <p>
+     * The line is scanned in place: no regular expressions and no substrings,
+     * except the first time a label is seen.
+     *
+     * @param msg   the raw message string
+     * @param start the index of the first character of the line
+     * @param end   the index after the last character of the line
+     */
+    private void processMessage(String msg, int start, int end) {
+        // Parse individual fields
+        long id = parseLong(msg, start, end); // patient ID
+        if (cursor < 0 || id > Integer.MAX_VALUE || id < Integer.MIN_VALUE || !expectComma(msg, end)) {
+            System.out.println("!! Invalid format: " + msg.substring(start, end));
+            return;
+        }
+        long time = parseLong(msg, cursor, end); // timestamp
+        if (cursor < 0 || !expectComma(msg, end)) {
+            System.out.println("!! Invalid format: " + msg.substring(start, end));
+            return;
+        }
+        int typeEnd = msg.indexOf(',', cursor);
+        if (typeEnd < 0 || typeEnd > end) {
+            System.out.println("!! Invalid format: " + msg.substring(start, end));
+            return;
+        }
+        String type = label(msg, skipSpaces(msg, cursor, typeEnd), trimEnd(msg, cursor, typeEnd)); // measurement label
+        if (type == null) {
+            System.out.println("!! Invalid format: " + msg.substring(start, end));
+            return;
+        }
+        int valueStart = skipSpaces(msg, typeEnd + 1, end);
+        int valueEnd = trimEnd(msg, valueStart, end);
+        if (valueEnd > valueStart && msg.charAt(valueEnd - 1) == '%') {
+            valueEnd--;
+        }
+        double val = parseDouble(msg, valueStart, valueEnd); // numeric value
+        if (Double.isNaN(val)) {
+            // Handles invalid number formats (e.g. "eighty")
+            System.err.println("!! Number error in: " + msg.substring(start, end));
             return;
         }
+        addToBatch((int) id, time, type, val);
+    }
 
+    private void addToBatch(int patientId, long timestamp, String label, double value) {
+        if (batchSize == batchIds.length) {
+            int capacity = batchSize * 2;
+            batchIds = Arrays.copyOf(batchIds, capacity);
+            batchTimes = Arrays.copyOf(batchTimes, capacity);
+            batchTypes = Arrays.copyOf(batchTypes, capacity);
+            batchValues = Arrays.copyOf(batchValues, capacity);
+        }
+        batchIds[batchSize] = patientId;
+        batchTimes[batchSize] = timestamp;
+        batchTypes[batchSize] = label;
+        batchValues[batchSize] = value;
+        if (++batchSize >= MAX_BATCH) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Stores the waiting samples in the shared DataStorage instance with one
+     * bulk insert.
+     */
+    private void flushBatch() {
+        if (batchSize == 0) {
+            return;
+        }
         try {
-            // Parse individual fields
-            int id = Integer.parseInt(tokens[0].trim()); // patient ID
-            long time = Long.parseLong(tokens[1].trim()); // timestamp
-            String type = tokens[2].trim(); // measurement label (e.g. HeartRate)
-            double val = Double.parseDouble(tokens[3].trim().replace("%", "")); // numeric value
+            storage.addPatientData(batchIds, batchValues, batchTypes, batchTimes, batchSize);
+        } catch (Exception ex) {
+            System.err.println("!! Unexpected error while storing " + batchSize + " samples:");
+            ex.printStackTrace();
+        }
+        batchSize = 0;
+    }
+
+    private static int skipSpaces(String msg, int pos, int end) {
+        while (pos < end && msg.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
 
-            // Store data into the shared DataStorage instance
-            storage.addPatientData(id, val, type, time);
+    private static int trimEnd(String msg, int start, int end) {
+        while (end > start && msg.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end;
+    }
 
-        } catch (NumberFormatException nf) {
-            // Handles invalid number formats (e.g. "NaN" or bad ID/timestamp)
-            System.err.println("!! Number error in: " + msg);
-            nf.printStackTrace();
+    /**
+     * Skips spaces and a comma, leaving the cursor after the comma.
+     */
+    private boolean expectComma(String msg, int end) {
+        int pos = skipSpaces(msg, cursor, end);
+        if (pos < end && msg.charAt(pos) == ',') {
+            cursor = pos + 1;
+            return true;
+        }
+        return false;
+    }
 
-        } catch (Exception ex) {
-            // Catch-all for unexpected issues (e.g. nulls, array index issues)
-            System.err.println("!! Unexpected error while handling message:");
-            ex.printStackTrace();
+    /**
+     * Parses a whole number with optional leading spaces and sign, and leaves
+     * the cursor after its last digit, or at -1 if there is no number.
+     */
+    private long parseLong(String msg, int pos, int end) {
+        pos = skipSpaces(msg, pos, end);
+        boolean negative = pos < end && msg.charAt(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        int digitsStart = pos;
+        long value = 0;
+        while (pos < end) {
+            char c = msg.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (pos - digitsStart >= 18) {
+                cursor = -1; // Would overflow
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        cursor = pos > digitsStart ? pos : -1;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the shared String for a label, looked up without creating a
+     * substring. A label seen for the first time is added to the table.
+     *
+     * @return the label, or {@code null} if it is empty
+     */
+    private static String label(String msg, int start, int end) {
+        int length = end - start;
+        if (length <= 0) {
+            return null;
+        }
+        for (String known : knownLabels) {
+            if (known.length() == length && msg.regionMatches(start, known, 0, length)) {
+                return known;
+            }
+        }
+        synchronized (SimpleVersWebSocket.class) {
+            for (String known : knownLabels) {
+                if (known.length() == length && msg.regionMatches(start, known, 0, length)) {
+                    return known;
+                }
+            }
+            String label = msg.substring(start, end);
+            String[] grown = Arrays.copyOf(knownLabels, knownLabels.length + 1);
+            grown[knownLabels.length] = label;
+            knownLabels = grown;
+            return label;
+        }
+    }
+
+    /**
+     * Parses a decimal number. Plain numbers with at most
+     * {@value #MAX_FAST_DIGITS} significant digits are computed directly;
+     * anything else, e.g. exponents, falls back to {@link Double#parseDouble}.
+     *
+     * @return the value, or {@code NaN} if the text is not a number
+     */
+    private static double parseDouble(String msg, int start, int end) {
+        if (start >= end) {
+            return Double.NaN;
+        }
+        int pos = start;
+        boolean negative = false;
+        char first = msg.charAt(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean fast = pos < end;
+        for (; pos < end; pos++) {
+            char c = msg.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                if (digits > MAX_FAST_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                    fast = false;
+                    break;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                fast = false;
+                break;
+            }
+        }
+        if (fast && (digits > 0 || fractionDigits != 0)) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(msg.substring(start, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
         }
     }
 
@@ -128,6 +406,7 @@ public class SimpleVersWebSocket extends WebSocketClient {
     public static void main(String[] args) throws Exception {
         URI server = new URI("ws://localhost:8887"); // Replace with your WebSocket server URI
         SimpleVersWebSocket client = new SimpleVersWebSocket(server);
+        client.setLogging(true);
 
         client.connectBlocking(); // Wait until connection is established
 
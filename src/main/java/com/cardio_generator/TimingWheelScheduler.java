@@ -0,0 +1,300 @@
+package com.cardio_generator;
+
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the data generators of many patients with a fixed number of threads.
+ * <p>
+ * Instead of one periodic task per patient and generator, patients are
+ * scheduled in groups: a generator, the patients it runs for and a period.
+ * The groups are kept in a hashed timing wheel of {@code wheelSize} slots that
+ * advances one slot per tick. A group due at the current tick is split into
+ * chunks of patients, and the chunks are generated in parallel on the worker
+ * threads in one pass, each with one {@link PatientDataGenerator#generateBatch}
+ * call and the timestamp of the tick. The next tick starts one tick length
+ * after all chunks are done, so a tick that takes too long delays the
+ * following ones instead of piling up work; periods stretch by the time the
+ * ticks take.
+ * <p>
+ * Instead of following the wall clock, the scheduler can also run on a virtual
+ * clock with {@link #runVirtual}, which advances as fast as the generators
+ * allow, or at a multiple of real time.
+ */
+public class TimingWheelScheduler {
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    // The most patients one worker generates in a row before the next chunk is handed out
+    private static final int CHUNK_SIZE = 1024;
+
+    private final OutputStrategy outputStrategy;
+    private final long tickMillis;
+    private final List<List<Group>> wheel;
+    // Groups added since the last tick; only the ticker thread touches the wheel
+    private final Queue<Group> added = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService workers;
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private volatile boolean started;
+    // The timestamp of tick 0 on the virtual clock
+    private long virtualStart;
+
+    /**
+     * Creates a scheduler with the default tick and wheel size.
+     *
+     * @param outputStrategy the output the generators write to
+     * @param workerThreads  the number of threads that run the generators
+     */
+    public TimingWheelScheduler(OutputStrategy outputStrategy, int workerThreads) {
+        this(outputStrategy, workerThreads, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param outputStrategy the output the generators write to
+     * @param workerThreads  the number of threads that run the generators
+     * @param tickMillis     the length of one tick; periods and delays are rounded to whole ticks
+     * @param wheelSize      the number of slots in the wheel
+     */
+    public TimingWheelScheduler(OutputStrategy outputStrategy, int workerThreads, long tickMillis, int wheelSize) {
+        if (workerThreads <= 0 || tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Worker threads, tick and wheel size must be positive");
+        }
+        this.outputStrategy = outputStrategy;
+        this.tickMillis = tickMillis;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        // Not a daemon: the ticker keeps the simulation running until it is shut down
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "simulator-ticker"));
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "simulator-worker-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a generator for a group of patients at a fixed rate.
+     *
+     * @param generator    the generator to run
+     * @param patientIds   the patients to run it for
+     * @param initialDelay the time until the first run
+     * @param period       the time between two runs
+     * @param unit         the unit of the delay and period
+     */
+    public void schedule(PatientDataGenerator generator, int[] patientIds, long initialDelay, long period,
+                         TimeUnit unit) {
+        long periodTicks = Math.max(1, unit.toMillis(period) / tickMillis);
+        long delayTicks = Math.max(1, unit.toMillis(initialDelay) / tickMillis);
+        int[][] chunks = new int[(patientIds.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(patientIds, i * CHUNK_SIZE, Math.min((i + 1) * CHUNK_SIZE, patientIds.length));
+        }
+        added.add(new Group(generator, chunks, periodTicks, delayTicks));
+    }
+
+    /**
+     * Starts ticking.
+     */
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs the scheduled generators on a virtual clock in the calling thread,
+     * instead of starting the ticker. Tick {@code n} gets the timestamp
+     * {@code startTime + n * tickMillis}, and the chunks of a tick are generated
+     * one after the other in the order their groups were scheduled, so the same
+     * generators produce the same output in the same order on every run.
+     *
+     * @param startTime      the timestamp the virtual clock starts at
+     * @param durationMillis the virtual time to simulate
+     * @param speed          how many times faster than real time to run, or 0
+     *                       to run as fast as possible
+     * @return the number of ticks run
+     * @throws IllegalStateException if the scheduler was already started
+     * @throws InterruptedException  if interrupted while waiting for the next tick
+     */
+    public long runVirtual(long startTime, long durationMillis, double speed) throws InterruptedException {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Speed must not be negative");
+        }
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Scheduler already started");
+            }
+            started = true;
+        }
+        virtualStart = startTime;
+        long tickCount = durationMillis / tickMillis;
+        long wallStart = System.nanoTime();
+        for (long i = 1; i <= tickCount; i++) {
+            if (speed > 0) {
+                long due = wallStart + (long) (TimeUnit.MILLISECONDS.toNanos(i * tickMillis) / speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            tick(true);
+        }
+        return tickCount;
+    }
+
+    private void tick() {
+        tick(false);
+    }
+
+    /**
+     * Advances the wheel by one slot and generates the data of every group
+     * due now.
+     *
+     * @param virtual whether to use the virtual clock and generate in the calling thread
+     */
+    private void tick(boolean virtual) {
+        long now = ticks.incrementAndGet();
+        Group group;
+        while ((group = added.poll()) != null) {
+            // The delay counts from the tick before this one
+            group.dueTick = now - 1 + group.delayTicks;
+            slotOf(group.dueTick).add(group);
+        }
+
+        List<Group> slot = slotOf(now);
+        if (slot.isEmpty()) {
+            return;
+        }
+        // One timestamp for all samples of the tick
+        long timestamp = virtual ? virtualStart + now * tickMillis : System.currentTimeMillis();
+        List<Future<?>> running = new ArrayList<>();
+        List<Group> fired = new ArrayList<>();
+        List<Group> later = new ArrayList<>();
+        for (Group due : slot) {
+            if (due.dueTick != now) {
+                // Due in a later round of the wheel
+                later.add(due);
+                continue;
+            }
+            for (int[] chunk : due.chunks) {
+                if (virtual) {
+                    generate(due.generator, chunk, timestamp);
+                } else {
+                    running.add(workers.submit(() -> generate(due.generator, chunk, timestamp)));
+                }
+            }
+            due.dueTick += due.periodTicks;
+            fired.add(due);
+        }
+        slot.clear();
+        slot.addAll(later);
+        for (Group due : fired) {
+            slotOf(due.dueTick).add(due);
+        }
+        awaitAll(running);
+    }
+
+    private List<Group> slotOf(long tick) {
+        return wheel.get((int) (tick % wheel.size()));
+    }
+
+    private void generate(PatientDataGenerator generator, int[] patientIds, long timestamp) {
+        generator.generateBatch(patientIds, timestamp, outputStrategy);
+        generated.addAndGet(patientIds.length);
+    }
+
+    private void awaitAll(List<Future<?>> running) {
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                System.err.println("An error occurred while generating patient data");
+                e.getCause().printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of ticks so far.
+     *
+     * @return the tick count
+     */
+    public long getTickCount() {
+        return ticks.get();
+    }
+
+    /**
+     * Returns how many times a generator ran for a patient.
+     *
+     * @return the number of generator runs
+     */
+    public long getGeneratedCount() {
+        return generated.get();
+    }
+
+    /**
+     * Stops ticking. Generators that are running finish their current chunk.
+     */
+    public void shutdown() {
+        ticker.shutdown();
+        workers.shutdown();
+    }
+
+    /**
+     * Waits until the running generators are done after {@link #shutdown()}.
+     *
+     * @param timeout the longest time to wait
+     * @param unit    the unit of the timeout
+     * @return {@code true} if everything finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return ticker.awaitTermination(timeout, unit)
+                && workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A generator, the patients it runs for and when it runs next.
+     */
+    private static final class Group {
+        private final PatientDataGenerator generator;
+        // The patients, split into the chunks handed to the workers
+        private final int[][] chunks;
+        private final long periodTicks;
+        private final long delayTicks;
+        private long dueTick;
+
+        Group(PatientDataGenerator generator, int[][] chunks, long periodTicks, long delayTicks) {
+            this.generator = generator;
+            this.chunks = chunks;
+            this.periodTicks = periodTicks;
+            this.delayTicks = delayTicks;
+        }
+    }
+}
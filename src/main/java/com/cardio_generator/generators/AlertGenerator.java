@@ -1,6 +1,6 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
 
@@ -12,9 +12,10 @@ import com.cardio_generator.outputs.OutputStrategy;
  */
 public class AlertGenerator implements PatientDataGenerator {
 
-    public static final Random randomGenerator = new Random();
+    // The random stream of a patient is also the lock of the patient's state
+    private final SplittableRandom[] randoms;
     // baseDirectory --> Changed variable name to camelCase (it first was PascalCase)
-    private boolean[] alertStates; // false = resolved, true = pressed
+    private final boolean[] alertStates; // false = resolved, true = pressed
 
     /**
      * Creates a new alert generator for all patients.
@@ -22,6 +23,17 @@ public class AlertGenerator implements PatientDataGenerator {
      * @param patientCount The total number of patients in the simulation.
      */
     public AlertGenerator(int patientCount) {
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates a new alert generator whose alerts are derived from a seed.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     */
+    public AlertGenerator(int patientCount, SplittableRandom seed) {
+        randoms = PatientRandoms.split(seed, patientCount);
         alertStates = new boolean[patientCount + 1];
     }
 
@@ -36,26 +48,50 @@ public class AlertGenerator implements PatientDataGenerator {
      */
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
+        generate(patientId, System.currentTimeMillis(), outputStrategy);
+    }
+
+    /**
+     * Generates alerts for a group of patients with the same timestamp.
+     * Alerts are rare and sent as text, so each one is output on its own.
+     *
+     * @param patientIds      The IDs of the patients.
+     * @param timestamp       The time of the alerts.
+     * @param outputStrategy  The output method used to send the alerts.
+     */
+    @Override
+    public void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        for (int patientId : patientIds) {
+            generate(patientId, timestamp, outputStrategy);
+        }
+    }
 
+    private void generate(int patientId, long timestamp, OutputStrategy outputStrategy) {
         try {
-            if (alertStates[patientId]) {
-                if (randomGenerator.nextDouble() < 0.9) { // 90% chance to resolve
-                    alertStates[patientId] = false;
-                    // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "resolved");
-                }
-            } else {
-                // lambda --> Changed variable name to camelCase (it first was PascalCase)
-                double lambda = 0.1; // Average rate (alerts per period), adjust based on desired frequency
-                double p = -Math.expm1(-lambda); // Probability of at least one alert in the period
-                boolean alertTriggered = randomGenerator.nextDouble() < p;
+            String alert = null;
+            SplittableRandom random = randoms[patientId];
+            synchronized (random) {
+                if (alertStates[patientId]) {
+                    if (random.nextDouble() < 0.9) { // 90% chance to resolve
+                        alertStates[patientId] = false;
+                        alert = "resolved";
+                    }
+                } else {
+                    // lambda --> Changed variable name to camelCase (it first was PascalCase)
+                    double lambda = 0.1; // Average rate (alerts per period), adjust based on desired frequency
+                    double p = -Math.expm1(-lambda); // Probability of at least one alert in the period
+                    boolean alertTriggered = random.nextDouble() < p;
 
-                if (alertTriggered) {
-                    alertStates[patientId] = true;
-                    // Output the alert
-                    outputStrategy.output(patientId, System.currentTimeMillis(), "Alert", "triggered");
+                    if (alertTriggered) {
+                        alertStates[patientId] = true;
+                        alert = "triggered";
+                    }
                 }
             }
+            if (alert != null) {
+                // Output the alert
+                outputStrategy.output(patientId, timestamp, "Alert", alert);
+            }
         } catch (Exception e) {
             System.err.println("An error occurred while generating alert data for patient " + patientId);
             e.printStackTrace();
@@ -1,16 +1,28 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
 
 public class BloodLevelsDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
+    // Locked while drawing, since SplittableRandom is not thread-safe; the baselines never change
+    private final SplittableRandom[] randoms;
     private final double[] baselineCholesterol;
     private final double[] baselineWhiteCells;
     private final double[] baselineRedCells;
 
     public BloodLevelsDataGenerator(int patientCount) {
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates a blood levels generator whose values are derived from a seed.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     */
+    public BloodLevelsDataGenerator(int patientCount, SplittableRandom seed) {
+        randoms = PatientRandoms.split(seed, patientCount);
         // Initialize arrays to store baseline values for each patient
         baselineCholesterol = new double[patientCount + 1];
         baselineWhiteCells = new double[patientCount + 1];
@@ -18,9 +30,9 @@ public class BloodLevelsDataGenerator implements PatientDataGenerator {
 
         // Generate baseline values for each patient
         for (int i = 1; i <= patientCount; i++) {
-            baselineCholesterol[i] = 150 + random.nextDouble() * 50; // Initial random baseline
-            baselineWhiteCells[i] = 4 + random.nextDouble() * 6; // Initial random baseline
-            baselineRedCells[i] = 4.5 + random.nextDouble() * 1.5; // Initial random baseline
+            baselineCholesterol[i] = 150 + randoms[i].nextDouble() * 50; // Initial random baseline
+            baselineWhiteCells[i] = 4 + randoms[i].nextDouble() * 6; // Initial random baseline
+            baselineRedCells[i] = 4.5 + randoms[i].nextDouble() * 1.5; // Initial random baseline
         }
     }
 
@@ -28,18 +40,48 @@ public class BloodLevelsDataGenerator implements PatientDataGenerator {
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
             // Generate values around the baseline for realism
-            double cholesterol = baselineCholesterol[patientId] + (random.nextDouble() - 0.5) * 10; // Small variation
-            double whiteCells = baselineWhiteCells[patientId] + (random.nextDouble() - 0.5) * 1; // Small variation
-            double redCells = baselineRedCells[patientId] + (random.nextDouble() - 0.5) * 0.2; // Small variation
+            SplittableRandom random = randoms[patientId];
+            double cholesterol;
+            double whiteCells;
+            double redCells;
+            synchronized (random) {
+                cholesterol = baselineCholesterol[patientId] + (random.nextDouble() - 0.5) * 10; // Small variation
+                whiteCells = baselineWhiteCells[patientId] + (random.nextDouble() - 0.5) * 1; // Small variation
+                redCells = baselineRedCells[patientId] + (random.nextDouble() - 0.5) * 0.2; // Small variation
+            }
 
             // Output the generated values
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Cholesterol", Double.toString(cholesterol));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "WhiteBloodCells",
-                    Double.toString(whiteCells));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "RedBloodCells", Double.toString(redCells));
+            outputStrategy.output(patientId, System.currentTimeMillis(), "Cholesterol", cholesterol);
+            outputStrategy.output(patientId, System.currentTimeMillis(), "WhiteBloodCells", whiteCells);
+            outputStrategy.output(patientId, System.currentTimeMillis(), "RedBloodCells", redCells);
         } catch (Exception e) {
             System.err.println("An error occurred while generating blood levels data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
+
+    @Override
+    public void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        try {
+            double[] cholesterol = new double[patientIds.length];
+            double[] whiteCells = new double[patientIds.length];
+            double[] redCells = new double[patientIds.length];
+            for (int i = 0; i < patientIds.length; i++) {
+                int patientId = patientIds[i];
+                SplittableRandom random = randoms[patientId];
+                synchronized (random) {
+                    cholesterol[i] = baselineCholesterol[patientId] + (random.nextDouble() - 0.5) * 10;
+                    whiteCells[i] = baselineWhiteCells[patientId] + (random.nextDouble() - 0.5) * 1;
+                    redCells[i] = baselineRedCells[patientId] + (random.nextDouble() - 0.5) * 0.2;
+                }
+            }
+            outputStrategy.outputBatch("Cholesterol", timestamp, patientIds, cholesterol);
+            outputStrategy.outputBatch("WhiteBloodCells", timestamp, patientIds, whiteCells);
+            outputStrategy.outputBatch("RedBloodCells", timestamp, patientIds, redCells);
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating blood levels data for "
+                    + patientIds.length + " patients");
+            e.printStackTrace();
+        }
+    }
 }
@@ -1,29 +1,76 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
 
 public class BloodPressureDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
+    // The random stream of a patient is also the lock of the patient's state
+    private final SplittableRandom[] randoms;
 
-    private int[] lastSystolicValues;
-    private int[] lastDiastolicValues;
+    private final int[] lastSystolicValues;
+    private final int[] lastDiastolicValues;
 
     public BloodPressureDataGenerator(int patientCount) {
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates a blood pressure generator whose values are derived from a seed.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     */
+    public BloodPressureDataGenerator(int patientCount, SplittableRandom seed) {
+        randoms = PatientRandoms.split(seed, patientCount);
         lastSystolicValues = new int[patientCount + 1];
         lastDiastolicValues = new int[patientCount + 1];
 
         // Initialize with baseline values for each patient
         for (int i = 1; i <= patientCount; i++) {
-            lastSystolicValues[i] = 110 + random.nextInt(20); // Random baseline between 110 and 130
-            lastDiastolicValues[i] = 70 + random.nextInt(15); // Random baseline between 70 and 85
+            lastSystolicValues[i] = 110 + randoms[i].nextInt(20); // Random baseline between 110 and 130
+            lastDiastolicValues[i] = 70 + randoms[i].nextInt(15); // Random baseline between 70 and 85
         }
     }
 
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
+            int[] values = nextValues(patientId);
+            outputStrategy.output(patientId, System.currentTimeMillis(), "SystolicPressure", values[0]);
+            outputStrategy.output(patientId, System.currentTimeMillis(), "DiastolicPressure", values[1]);
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating blood pressure data for patient " + patientId);
+            e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
+        }
+    }
+
+    @Override
+    public void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        try {
+            double[] systolicValues = new double[patientIds.length];
+            double[] diastolicValues = new double[patientIds.length];
+            for (int i = 0; i < patientIds.length; i++) {
+                int[] values = nextValues(patientIds[i]);
+                systolicValues[i] = values[0];
+                diastolicValues[i] = values[1];
+            }
+            outputStrategy.outputBatch("SystolicPressure", timestamp, patientIds, systolicValues);
+            outputStrategy.outputBatch("DiastolicPressure", timestamp, patientIds, diastolicValues);
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating blood pressure data for "
+                    + patientIds.length + " patients");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Advances a patient's blood pressure by one step and returns the new
+     * systolic and diastolic values, in that order.
+     */
+    private int[] nextValues(int patientId) {
+        SplittableRandom random = randoms[patientId];
+        synchronized (random) {
             int systolicVariation = random.nextInt(5) - 2; // -2, -1, 0, 1, or 2
             int diastolicVariation = random.nextInt(5) - 2;
             int newSystolicValue = lastSystolicValues[patientId] + systolicVariation;
@@ -33,14 +80,7 @@ public class BloodPressureDataGenerator implements PatientDataGenerator {
             newDiastolicValue = Math.min(Math.max(newDiastolicValue, 60), 120);
             lastSystolicValues[patientId] = newSystolicValue;
             lastDiastolicValues[patientId] = newDiastolicValue;
-
-            outputStrategy.output(patientId, System.currentTimeMillis(), "SystolicPressure",
-                    Double.toString(newSystolicValue));
-            outputStrategy.output(patientId, System.currentTimeMillis(), "DiastolicPressure",
-                    Double.toString(newDiastolicValue));
-        } catch (Exception e) {
-            System.err.println("An error occurred while generating blood pressure data for patient " + patientId);
-            e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
+            return new int[]{newSystolicValue, newDiastolicValue};
         }
     }
 }
@@ -1,6 +1,6 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
 
@@ -11,8 +11,9 @@ import com.cardio_generator.outputs.OutputStrategy;
  * and the values slightly change over time to mimic real readings.
  */
 public class BloodSaturationDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
-    private int[] lastSaturationValues;
+    // The random stream of a patient is also the lock of the patient's state
+    private final SplittableRandom[] randoms;
+    private final int[] lastSaturationValues;
 
     /**
      * Creates a new generator with baseline saturation values for each patient.
@@ -20,11 +21,22 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
      * @param patientCount The total number of patients in the simulation.
      */
     public BloodSaturationDataGenerator(int patientCount) {
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates a new generator whose values are derived from a seed.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     */
+    public BloodSaturationDataGenerator(int patientCount, SplittableRandom seed) {
+        randoms = PatientRandoms.split(seed, patientCount);
         lastSaturationValues = new int[patientCount + 1];
 
         // Initialize with baseline saturation values for each patient
         for (int i = 1; i <= patientCount; i++) {
-            lastSaturationValues[i] = 95 + random.nextInt(6); // Initializes with a value between 95 and 100
+            lastSaturationValues[i] = 95 + randoms[i].nextInt(6); // Initializes with a value between 95 and 100
         }
     }
 
@@ -38,6 +50,40 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
         try {
+            int newSaturationValue = nextValue(patientId);
+            outputStrategy.output(patientId, System.currentTimeMillis(), "Saturation", newSaturationValue);
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating blood saturation data for patient " + patientId);
+            e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
+        }
+    }
+
+    /**
+     * Generates new saturation values for a group of patients and sends them
+     * as one batch.
+     *
+     * @param patientIds      The IDs of the patients.
+     * @param timestamp       The time of the samples.
+     * @param outputStrategy  The output method used to send the data.
+     */
+    @Override
+    public void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        try {
+            double[] saturationValues = new double[patientIds.length];
+            for (int i = 0; i < patientIds.length; i++) {
+                saturationValues[i] = nextValue(patientIds[i]);
+            }
+            outputStrategy.outputBatch("Saturation", timestamp, patientIds, saturationValues);
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating blood saturation data for "
+                    + patientIds.length + " patients");
+            e.printStackTrace();
+        }
+    }
+
+    private int nextValue(int patientId) {
+        SplittableRandom random = randoms[patientId];
+        synchronized (random) {
             // Simulate blood saturation values
             int variation = random.nextInt(3) - 1; // -1, 0, or 1 to simulate small fluctuations
             int newSaturationValue = lastSaturationValues[patientId] + variation;
@@ -45,11 +91,7 @@ public class BloodSaturationDataGenerator implements PatientDataGenerator {
             // Ensure the saturation stays within a realistic and healthy range
             newSaturationValue = Math.min(Math.max(newSaturationValue, 90), 100);
             lastSaturationValues[patientId] = newSaturationValue;
-            outputStrategy.output(patientId, System.currentTimeMillis(), "Saturation",
-                    Double.toString(newSaturationValue) + "%");
-        } catch (Exception e) {
-            System.err.println("An error occurred while generating blood saturation data for patient " + patientId);
-            e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
+            return newSaturationValue;
         }
     }
 }
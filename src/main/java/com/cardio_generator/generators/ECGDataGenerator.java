@@ -1,46 +1,263 @@
 package com.cardio_generator.generators;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import com.cardio_generator.outputs.OutputStrategy;
 
+/**
+ * A data generator that simulates ECG signals for patients.
+ * <p>
+ * Each patient has a heart rate between 60 and 80 bpm and is somewhere in a
+ * heartbeat. Every call emits the samples since the previous call of that
+ * patient, at the sample rate of the generator, by looking up each sample in
+ * the precomputed beat shapes of {@link EcgWaveform}. The length of every beat
+ * varies slightly around the patient's rate, and now and then a premature
+ * ventricular contraction is injected, followed by a compensatory pause.
+ * <p>
+ * Samples lie on a fixed grid: sample {@code n} has the timestamp
+ * {@code n * 1000 / sampleRate}, so patients generated at the same time share
+ * timestamps and are output together.
+ */
 public class ECGDataGenerator implements PatientDataGenerator {
-    private static final Random random = new Random();
-    private double[] lastEcgValues;
-    private static final double PI = Math.PI;
+    public static final int DEFAULT_SAMPLE_RATE = 1;
+    public static final int MAX_SAMPLE_RATE = 1000;
+    /** The chance that a beat is a premature ventricular contraction. */
+    public static final double PVC_PROBABILITY = 0.01;
+
+    // The most samples emitted for a patient in one call; after a longer pause the gap is skipped
+    private static final int MAX_BLOCK_SECONDS = 10;
+    // How much the length of a beat varies around the patient's rate
+    private static final double BEAT_VARIABILITY = 0.05;
+    private static final double NOISE_MV = 0.05;
+
+    private final int sampleRate;
+    private final double sampleSeconds;
+    // The random stream of a patient is also the lock of the patient's state
+    private final SplittableRandom[] randoms;
+    private final double[] baseBeatLengths;
+    private final double[] beatLengths;
+    private final double[] beatSeconds;
+    private final boolean[] pvcBeats;
+    private final boolean[] compensating;
+    // The index of the next sample of each patient, or -1 before the first
+    private final long[] nextSamples;
 
     public ECGDataGenerator(int patientCount) {
-        lastEcgValues = new double[patientCount + 1];
-        // Initialize the last ECG value for each patient
+        this(patientCount, new SplittableRandom());
+    }
+
+    /**
+     * Creates an ECG generator whose values are derived from a seed.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     */
+    public ECGDataGenerator(int patientCount, SplittableRandom seed) {
+        this(patientCount, seed, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Creates an ECG generator that emits samples at a given rate, e.g. 250 or
+     * 500 Hz like a real monitor.
+     *
+     * @param patientCount The total number of patients in the simulation.
+     * @param seed         The random stream each patient's stream is split from.
+     * @param sampleRate   The number of samples per second, up to {@value #MAX_SAMPLE_RATE}.
+     */
+    public ECGDataGenerator(int patientCount, SplittableRandom seed, int sampleRate) {
+        if (sampleRate <= 0 || sampleRate > MAX_SAMPLE_RATE) {
+            throw new IllegalArgumentException("Sample rate must be between 1 and " + MAX_SAMPLE_RATE + " Hz");
+        }
+        this.sampleRate = sampleRate;
+        this.sampleSeconds = 1.0 / sampleRate;
+        randoms = PatientRandoms.split(seed, patientCount);
+        baseBeatLengths = new double[patientCount + 1];
+        beatLengths = new double[patientCount + 1];
+        beatSeconds = new double[patientCount + 1];
+        pvcBeats = new boolean[patientCount + 1];
+        compensating = new boolean[patientCount + 1];
+        nextSamples = new long[patientCount + 1];
         for (int i = 1; i <= patientCount; i++) {
-            lastEcgValues[i] = 0; // Initial ECG value can be set to 0
+            double heartRate = 60.0 + randoms[i].nextDouble() * 20.0; // Between 60 and 80 bpm
+            baseBeatLengths[i] = 60.0 / heartRate;
+            beatLengths[i] = baseBeatLengths[i];
+            // Start somewhere in a beat, so patients are not in step
+            beatSeconds[i] = randoms[i].nextDouble() * beatLengths[i];
+            nextSamples[i] = -1;
         }
     }
 
+    /**
+     * Returns the number of samples the generator emits per second.
+     *
+     * @return the sample rate in Hz
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
     @Override
     public void generate(int patientId, OutputStrategy outputStrategy) {
-        // TODO Check how realistic this data is and make it more realistic if necessary
         try {
-            double ecgValue = simulateEcgWaveform(patientId, lastEcgValues[patientId]);
-            outputStrategy.output(patientId, System.currentTimeMillis(), "ECG", Double.toString(ecgValue));
-            lastEcgValues[patientId] = ecgValue;
+            long last = sampleIndex(System.currentTimeMillis());
+            SplittableRandom random = randoms[patientId];
+            double[] block;
+            long first;
+            synchronized (random) {
+                first = firstSample(patientId, last);
+                block = new double[(int) (last - first + 1)];
+                synthesize(patientId, random, block, 0, 1, block.length);
+            }
+            for (int k = 0; k < block.length; k++) {
+                outputStrategy.output(patientId, sampleTime(first + k), "ECG", block[k]);
+            }
         } catch (Exception e) {
             System.err.println("An error occurred while generating ECG data for patient " + patientId);
             e.printStackTrace(); // This will print the stack trace to help identify where the error occurred.
         }
     }
 
-    private double simulateEcgWaveform(int patientId, double lastEcgValue) {
-        // Simplified ECG waveform generation based on sinusoids
-        double hr = 60.0 + random.nextDouble() * 20.0; // Simulate heart rate variability between 60 and 80 bpm
-        double t = System.currentTimeMillis() / 1000.0; // Use system time to simulate continuous time
-        double ecgFrequency = hr / 60.0; // Convert heart rate to Hz
+    /**
+     * Generates the samples of a group of patients up to a timestamp. The
+     * samples are sent as one batch per sample time, holding every patient
+     * that has a sample at that time.
+     *
+     * @param patientIds      The IDs of the patients.
+     * @param timestamp       The time up to which samples are generated.
+     * @param outputStrategy  The output method used to send the data.
+     */
+    @Override
+    public void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        try {
+            int count = patientIds.length;
+            long last = sampleIndex(timestamp);
+            long[] firsts = new long[count];
+            long first = last;
+            long latestFirst = Long.MIN_VALUE;
+            // Reserve each patient's samples first, so the block size is known
+            for (int i = 0; i < count; i++) {
+                int patientId = patientIds[i];
+                synchronized (randoms[patientId]) {
+                    firsts[i] = firstSample(patientId, last);
+                }
+                first = Math.min(first, firsts[i]);
+                latestFirst = Math.max(latestFirst, firsts[i]);
+            }
+            int length = (int) (last - first + 1);
+            // Sample k of patient i is at block[k * count + i], so each sample time is one row
+            double[] block = new double[length * count];
+            for (int i = 0; i < count; i++) {
+                int patientId = patientIds[i];
+                SplittableRandom random = randoms[patientId];
+                int offset = (int) (firsts[i] - first);
+                synchronized (random) {
+                    synthesize(patientId, random, block, offset * count + i, count, length - offset);
+                }
+            }
+            for (int k = 0; k < length; k++) {
+                long sample = first + k;
+                double[] values = new double[count];
+                System.arraycopy(block, k * count, values, 0, count);
+                if (sample >= latestFirst) {
+                    outputStrategy.outputBatch("ECG", sampleTime(sample), patientIds, values);
+                } else {
+                    outputSome(patientIds, firsts, sample, values, outputStrategy);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("An error occurred while generating ECG data for " + patientIds.length + " patients");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sends one sample time of the patients that have a sample at that time,
+     * for the rare case that some patients of a batch are behind the others.
+     */
+    private void outputSome(int[] patientIds, long[] firsts, long sample, double[] values,
+                            OutputStrategy outputStrategy) {
+        int selected = 0;
+        for (int i = 0; i < patientIds.length; i++) {
+            if (firsts[i] <= sample) {
+                selected++;
+            }
+        }
+        if (selected == 0) {
+            return;
+        }
+        int[] ids = new int[selected];
+        double[] selectedValues = new double[selected];
+        selected = 0;
+        for (int i = 0; i < patientIds.length; i++) {
+            if (firsts[i] <= sample) {
+                ids[selected] = patientIds[i];
+                selectedValues[selected++] = values[i];
+            }
+        }
+        outputStrategy.outputBatch("ECG", sampleTime(sample), ids, selectedValues);
+    }
 
-        // Simulate different components of the ECG signal
-        double pWave = 0.1 * Math.sin(2 * PI * ecgFrequency * t);
-        double qrsComplex = 0.5 * Math.sin(2 * PI * 3 * ecgFrequency * t); // QRS is higher frequency
-        double tWave = 0.2 * Math.sin(2 * PI * 2 * ecgFrequency * t + PI / 4); // T wave is offset
+    private long sampleIndex(long timestamp) {
+        return Math.floorDiv(timestamp * sampleRate, 1000);
+    }
+
+    private long sampleTime(long sample) {
+        return Math.floorDiv(sample * 1000, sampleRate);
+    }
 
-        return pWave + qrsComplex + tWave + random.nextDouble() * 0.05; // Add small noise
+    /**
+     * Returns the first sample a call up to sample {@code last} emits for a
+     * patient and advances the patient past {@code last}. Must hold the
+     * patient's lock.
+     */
+    private long firstSample(int patientId, long last) {
+        long first = nextSamples[patientId];
+        if (first < 0) {
+            // The first call emits only the current sample
+            first = last;
+        }
+        first = Math.max(first, last - (long) MAX_BLOCK_SECONDS * sampleRate + 1);
+        nextSamples[patientId] = Math.max(nextSamples[patientId], last + 1);
+        return Math.min(first, last + 1);
+    }
+
+    /**
+     * Writes the next {@code samples} samples of a patient to
+     * {@code block[offset]}, {@code block[offset + stride]}, and so on. Must
+     * hold the patient's lock.
+     */
+    private void synthesize(int patientId, SplittableRandom random, double[] block, int offset, int stride,
+                            int samples) {
+        double seconds = beatSeconds[patientId];
+        double length = beatLengths[patientId];
+        boolean pvc = pvcBeats[patientId];
+        for (int k = 0; k < samples; k++) {
+            seconds += sampleSeconds;
+            if (seconds >= length) {
+                seconds -= length;
+                pvc = !pvc && random.nextDouble() < PVC_PROBABILITY;
+                length = nextBeatLength(patientId, random, pvc);
+                seconds = Math.min(seconds, length);
+            }
+            block[offset + k * stride] = EcgWaveform.sample(pvc, seconds, length) + random.nextDouble() * NOISE_MV;
+        }
+        beatSeconds[patientId] = seconds;
+        beatLengths[patientId] = length;
+        pvcBeats[patientId] = pvc;
+    }
+
+    private double nextBeatLength(int patientId, SplittableRandom random, boolean pvc) {
+        double base = baseBeatLengths[patientId];
+        if (pvc) {
+            // Premature, followed by a pause that keeps the following beats in rhythm
+            compensating[patientId] = true;
+            return base * 0.6;
+        }
+        if (compensating[patientId]) {
+            compensating[patientId] = false;
+            return base * 1.4;
+        }
+        // Triangular variation of up to BEAT_VARIABILITY around the base length
+        return base * (1 + BEAT_VARIABILITY * (random.nextDouble() - random.nextDouble()));
     }
 }
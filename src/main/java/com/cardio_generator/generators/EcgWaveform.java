@@ -0,0 +1,85 @@
+package com.cardio_generator.generators;
+
+/**
+ * Precomputed shapes of one heartbeat, used by {@link ECGDataGenerator} to
+ * synthesize ECG samples with a table lookup instead of trigonometry.
+ * <p>
+ * A beat is modeled as a sum of Gaussian waves (P, Q, R, S and T) around the
+ * R peak, in millivolts. The complex from the start of the P wave to the end
+ * of the T wave has a fixed length; the rest of a beat is the flat baseline,
+ * so a slower heart rate only lengthens the pause between complexes. Beats
+ * shorter than the complex are compressed as a whole.
+ */
+final class EcgWaveform {
+
+    /** The length of the P-QRS-T complex at normal heart rates, in seconds. */
+    static final double COMPLEX_SECONDS = 0.8;
+
+    // Table entries per second of complex, i.e. a resolution of 0.2 ms
+    private static final int TABLE_RATE = 5000;
+    private static final int TABLE_SIZE = (int) (COMPLEX_SECONDS * TABLE_RATE) + 1;
+    // The time of the R peak after the start of the complex
+    private static final double R_PEAK_SECONDS = 0.25;
+
+    // Center (s from the R peak), width (s) and amplitude (mV) of the P, Q, R, S and T waves
+    private static final double[][] NORMAL_WAVES = {
+            {-0.17, 0.025, 0.15},
+            {-0.03, 0.008, -0.12},
+            {0.0, 0.010, 1.10},
+            {0.03, 0.009, -0.25},
+            {0.27, 0.045, 0.30}
+    };
+    // A premature ventricular contraction: no P wave, a wide and tall QRS and an inverted T wave
+    private static final double[][] PVC_WAVES = {
+            {-0.04, 0.020, -0.20},
+            {0.0, 0.030, 1.60},
+            {0.07, 0.030, -0.60},
+            {0.30, 0.060, -0.40}
+    };
+
+    private static final double[] NORMAL = table(NORMAL_WAVES);
+    private static final double[] PVC = table(PVC_WAVES);
+
+    private EcgWaveform() {
+    }
+
+    private static double[] table(double[][] waves) {
+        double[] table = new double[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            double t = (double) i / TABLE_RATE - R_PEAK_SECONDS;
+            double value = 0;
+            for (double[] wave : waves) {
+                double x = (t - wave[0]) / wave[1];
+                value += wave[2] * Math.exp(-0.5 * x * x);
+            }
+            table[i] = value;
+        }
+        // Start and end exactly on the baseline
+        double start = table[0];
+        double end = table[TABLE_SIZE - 1];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            table[i] -= start + (end - start) * i / (TABLE_SIZE - 1);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the ECG value at a point of a beat.
+     *
+     * @param pvc         whether the beat is a premature ventricular contraction
+     * @param beatSeconds the time since the start of the beat
+     * @param beatLength  the length of the beat in seconds
+     * @return the value in millivolts, without noise
+     */
+    static double sample(boolean pvc, double beatSeconds, double beatLength) {
+        double scale = beatLength < COMPLEX_SECONDS ? COMPLEX_SECONDS / beatLength : 1;
+        double position = beatSeconds * scale * TABLE_RATE;
+        int index = (int) position;
+        if (index >= TABLE_SIZE - 1) {
+            return 0;
+        }
+        double[] table = pvc ? PVC : NORMAL;
+        double fraction = position - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+}
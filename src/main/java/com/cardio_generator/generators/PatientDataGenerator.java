@@ -8,6 +8,11 @@ import com.cardio_generator.outputs.OutputStrategy;
  * Implementing classes should define how specific types of data
  * are generated and output for individual patients using the given output strategy.
  * </p>
+ * <p>
+ * Generators are called from several threads at once. The built-in generators
+ * keep a random stream and state per patient, locked per patient, so threads
+ * working on different patients never wait for each other.
+ * </p>
  */
 public interface PatientDataGenerator {
 
@@ -18,4 +23,21 @@ public interface PatientDataGenerator {
      * @param outputStrategy  The output strategy used to send or store the generated data.
      */
     void generate(int patientId, OutputStrategy outputStrategy);
+
+    /**
+     * Generates and outputs data for a group of patients in one pass, all with
+     * the same timestamp. Implementations should collect the values into
+     * arrays and send them with {@link OutputStrategy#outputBatch}. By default
+     * {@link #generate} is called for each patient, which takes its own
+     * timestamps.
+     *
+     * @param patientIds      The IDs of the patients.
+     * @param timestamp       The time of the samples (in milliseconds).
+     * @param outputStrategy  The output strategy used to send or store the generated data.
+     */
+    default void generateBatch(int[] patientIds, long timestamp, OutputStrategy outputStrategy) {
+        for (int patientId : patientIds) {
+            generate(patientId, outputStrategy);
+        }
+    }
 }
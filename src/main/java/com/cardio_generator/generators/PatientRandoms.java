@@ -0,0 +1,29 @@
+package com.cardio_generator.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates one random stream per patient, so the values of a patient do not
+ * depend on the order in which patients are generated or on which thread.
+ * With the same seed, every run produces the same values.
+ */
+final class PatientRandoms {
+
+    private PatientRandoms() {
+    }
+
+    /**
+     * Splits independent streams for patients 1 to {@code patientCount}.
+     *
+     * @param seed         the stream to split from
+     * @param patientCount the number of patients
+     * @return the streams, indexed by patient ID; index 0 is unused
+     */
+    static SplittableRandom[] split(SplittableRandom seed, int patientCount) {
+        SplittableRandom[] randoms = new SplittableRandom[patientCount + 1];
+        for (int i = 1; i <= patientCount; i++) {
+            randoms[i] = seed.split();
+        }
+        return randoms;
+    }
+}
@@ -0,0 +1,289 @@
+package com.cardio_generator.outputs;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes patient data in a compact fixed-width binary format, as
+ * an alternative to the {@code "patientId,timestamp,label,value"} text lines.
+ * <p>
+ * Records are sent in frames. A frame starts with the number of records as a
+ * 4 byte int, followed by that many records of {@value #RECORD_BYTES} bytes:
+ * <pre>
+ * int    patient ID
+ * long   timestamp in milliseconds
+ * short  metric code (see {@link #metricCode})
+ * double value
+ * </pre>
+ * All numbers are big-endian. The value is always numeric: saturation is sent
+ * without its {@code %} sign and simulator alerts are sent as {@code 1}
+ * (triggered) or {@code 0} (resolved).
+ */
+public final class BinaryRecordCodec {
+    public static final int HEADER_BYTES = 4;
+    public static final int RECORD_BYTES = 4 + 8 + 2 + 8;
+
+    // Index = metric code. Append new labels at the end so existing codes stay stable.
+    private static final String[] LABELS = {
+            "ECG",
+            "Saturation",
+            "SystolicPressure",
+            "DiastolicPressure",
+            "Cholesterol",
+            "WhiteBloodCells",
+            "RedBloodCells",
+            "HeartRate",
+            "Alert"
+    };
+
+    /**
+     * Receives the records of a decoded frame.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * Called once per decoded record.
+         *
+         * @param patientId the ID of the patient
+         * @param timestamp the time of the measurement in milliseconds
+         * @param label     the metric label; always the same String instance for
+         *                  the same metric
+         * @param value     the measured value
+         */
+        void accept(int patientId, long timestamp, String label, double value);
+    }
+
+    private BinaryRecordCodec() {
+    }
+
+    /**
+     * Returns the metric code of a label.
+     *
+     * @param label the metric label, e.g. "ECG"
+     * @return the code, or -1 if the label has no code
+     */
+    public static short metricCode(String label) {
+        for (short code = 0; code < LABELS.length; code++) {
+            if (LABELS[code].equals(label)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the label of a metric code.
+     *
+     * @param code the metric code
+     * @return the label
+     * @throws IllegalArgumentException if the code is unknown
+     */
+    public static String metricLabel(short code) {
+        if (code < 0 || code >= LABELS.length) {
+            throw new IllegalArgumentException("Unknown metric code " + code);
+        }
+        return LABELS[code];
+    }
+
+    /**
+     * Converts the text data of a simulator output to the numeric value that
+     * is encoded, e.g. {@code "97.0%"} to 97 and {@code "triggered"} to 1.
+     *
+     * @param data the text data
+     * @return the value, or {@code NaN} if the data is not numeric
+     */
+    public static double parseValue(String data) {
+        switch (data) {
+            case "triggered":
+                return 1;
+            case "resolved":
+                return 0;
+            default:
+                String number = data.endsWith("%") ? data.substring(0, data.length() - 1) : data;
+                try {
+                    return Double.parseDouble(number);
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+        }
+    }
+
+    /**
+     * Encodes a frame holding a single record.
+     *
+     * @param patientId the ID of the patient
+     * @param timestamp the time of the measurement in milliseconds
+     * @param label     the metric label
+     * @param value     the measured value
+     * @return a buffer positioned at the start of the frame
+     * @throws IllegalArgumentException if the label has no metric code
+     */
+    public static ByteBuffer encode(int patientId, long timestamp, String label, double value) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + RECORD_BYTES);
+        frame.putInt(1);
+        putRecord(frame, patientId, timestamp, label, value);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a frame holding the first {@code count} records of the given
+     * columns.
+     *
+     * @param patientIds the patient IDs
+     * @param timestamps the timestamps
+     * @param labels     the metric labels
+     * @param values     the values
+     * @param count      the number of records to encode
+     * @return a buffer positioned at the start of the frame
+     * @throws IllegalArgumentException if a label has no metric code
+     */
+    public static ByteBuffer encode(int[] patientIds, long[] timestamps, String[] labels, double[] values, int count) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES);
+        frame.putInt(count);
+        for (int i = 0; i < count; i++) {
+            putRecord(frame, patientIds[i], timestamps[i], labels[i], values[i]);
+        }
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a frame holding the selected records of the given columns.
+     *
+     * @param patientIds the patient IDs
+     * @param timestamps the timestamps
+     * @param labels     the metric labels
+     * @param values     the values
+     * @param selected   the indices of the records to encode, in frame order
+     * @param count      the number of indices in {@code selected}
+     * @return a buffer positioned at the start of the frame
+     * @throws IllegalArgumentException if a label has no metric code
+     */
+    public static ByteBuffer encode(int[] patientIds, long[] timestamps, String[] labels, double[] values,
+                                    int[] selected, int count) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES);
+        frame.putInt(count);
+        for (int i = 0; i < count; i++) {
+            int record = selected[i];
+            putRecord(frame, patientIds[record], timestamps[record], labels[record], values[record]);
+        }
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a frame holding one metric of many patients, all taken at the
+     * same time.
+     *
+     * @param label      the metric label
+     * @param timestamp  the time of the measurements in milliseconds
+     * @param patientIds the patient IDs
+     * @param values     the values, {@code values[i]} belonging to {@code patientIds[i]}
+     * @return a buffer positioned at the start of the frame
+     * @throws IllegalArgumentException if the label has no metric code
+     */
+    public static ByteBuffer encode(String label, long timestamp, int[] patientIds, double[] values) {
+        short code = metricCode(label);
+        if (code < 0) {
+            throw new IllegalArgumentException("No metric code for label " + label);
+        }
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + patientIds.length * RECORD_BYTES);
+        frame.putInt(patientIds.length);
+        for (int i = 0; i < patientIds.length; i++) {
+            frame.putInt(patientIds[i]);
+            frame.putLong(timestamp);
+            frame.putShort(code);
+            frame.putDouble(values[i]);
+        }
+        frame.flip();
+        return frame;
+    }
+
+    private static void putRecord(ByteBuffer frame, int patientId, long timestamp, String label, double value) {
+        short code = metricCode(label);
+        if (code < 0) {
+            throw new IllegalArgumentException("No metric code for label " + label);
+        }
+        frame.putInt(patientId);
+        frame.putLong(timestamp);
+        frame.putShort(code);
+        frame.putDouble(value);
+    }
+
+    /**
+     * Writes a frame to a stream.
+     *
+     * @param out   the stream to write to
+     * @param frame the frame, as returned by {@code encode}
+     * @throws IOException if writing fails
+     */
+    public static void write(DataOutputStream out, ByteBuffer frame) throws IOException {
+        out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+    }
+
+    /**
+     * Decodes one frame from a buffer, e.g. a binary WebSocket message.
+     *
+     * @param frame   the buffer, positioned at the start of the frame; it is
+     *                advanced past the frame
+     * @param handler receives each record
+     * @return the number of records decoded
+     * @throws IllegalArgumentException if the frame is truncated or holds an
+     *                                  unknown metric code
+     */
+    public static int decode(ByteBuffer frame, RecordHandler handler) {
+        if (frame.remaining() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Truncated frame header");
+        }
+        int count = frame.getInt();
+        if (count < 0 || (long) count * RECORD_BYTES > frame.remaining()) {
+            throw new IllegalArgumentException("Frame announces " + count + " records but has " + frame.remaining() + " bytes");
+        }
+        for (int i = 0; i < count; i++) {
+            int patientId = frame.getInt();
+            long timestamp = frame.getLong();
+            String label = metricLabel(frame.getShort());
+            double value = frame.getDouble();
+            handler.accept(patientId, timestamp, label, value);
+        }
+        return count;
+    }
+
+    /**
+     * Reads and decodes one frame from a stream, e.g. a TCP connection or a
+     * binary file.
+     *
+     * @param in      the stream to read from
+     * @param handler receives each record
+     * @return the number of records decoded, or -1 if the stream ended before
+     * a new frame started
+     * @throws IOException if reading fails, the stream ends inside a frame or
+     *                     the frame is malformed
+     */
+    public static int read(DataInputStream in, RecordHandler handler) throws IOException {
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+        if (count < 0) {
+            throw new IOException("Negative record count " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            int patientId = in.readInt();
+            long timestamp = in.readLong();
+            short code = in.readShort();
+            double value = in.readDouble();
+            if (code < 0 || code >= LABELS.length) {
+                throw new IOException("Unknown metric code " + code);
+            }
+            handler.accept(patientId, timestamp, LABELS[code], value);
+        }
+        return count;
+    }
+}
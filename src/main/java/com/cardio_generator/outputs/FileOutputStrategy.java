@@ -1,19 +1,42 @@
 package com.cardio_generator.outputs;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An output strategy that writes patient data to text files.
  * <p>
  * Each type of data (like heart rate or alerts) is saved to a separate file
- * inside a given folder.
+ * inside a given folder. In binary mode the files are named {@code <label>.bin}
+ * and hold {@link BinaryRecordCodec} frames instead of text lines.
+ * <p>
+ * Every file is opened once and kept open. Lines are collected in a buffer
+ * and written out together (group commit) when enough lines are waiting, or
+ * by a background flusher after the group-commit interval, whichever comes
+ * first. Call {@link #close()} to write out the rest and close the files.
+ * <p>
+ * Optionally the files are split into segments, named e.g.
+ * {@code ECG-000001.txt}, {@code ECG-000002.txt}. A new segment is started
+ * when the current one covers more than the segment duration of record time or
+ * has grown past the segment size. When a segment is complete, a
+ * {@link SegmentIndex} is written next to it so that
+ * {@link com.data_management.SegmentedFileDataReader} can skip segments
+ * outside the time range or patients it loads.
  */
 public class FileOutputStrategy implements OutputStrategy {
+    public static final long DEFAULT_GROUP_COMMIT_INTERVAL_MS = 100;
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 1024;
 
     // baseDirectory --> Changed variable name to camelCase (it first was PascalCase)
     private String baseDirectory;
@@ -21,9 +44,75 @@ public class FileOutputStrategy implements OutputStrategy {
     // fileMap --> Changed variable name to camelCase (it first was snake_case)
     public final ConcurrentHashMap<String, String> fileMap = new ConcurrentHashMap<>();
 
+    private final ConcurrentHashMap<String, LabelWriter> writers = new ConcurrentHashMap<>();
+    private final boolean binary;
+    private final int groupCommitSize;
+    private final long segmentMillis;
+    private final long segmentBytes;
+    private final ScheduledExecutorService flusher;
+    private volatile boolean closed;
+
     public FileOutputStrategy(String baseDirectory) {
+        this(baseDirectory, false);
+    }
+
+    /**
+     * Creates a file output in the given folder.
+     *
+     * @param baseDirectory The folder to write the files to.
+     * @param binary        {@code true} to write binary frames instead of text lines.
+     */
+    public FileOutputStrategy(String baseDirectory, boolean binary) {
+        this(baseDirectory, binary, DEFAULT_GROUP_COMMIT_INTERVAL_MS, DEFAULT_GROUP_COMMIT_SIZE);
+    }
+
+    /**
+     * Creates a file output in the given folder with custom group-commit
+     * settings.
+     *
+     * @param baseDirectory         The folder to write the files to.
+     * @param binary                {@code true} to write binary frames instead of text lines.
+     * @param groupCommitIntervalMs The longest time a line waits before it is written out.
+     * @param groupCommitSize       The number of waiting lines that makes a file write out
+     *                              immediately.
+     */
+    public FileOutputStrategy(String baseDirectory, boolean binary, long groupCommitIntervalMs, int groupCommitSize) {
+        this(baseDirectory, binary, groupCommitIntervalMs, groupCommitSize, 0, 0);
+    }
 
+    /**
+     * Creates a file output that splits each file into indexed segments.
+     *
+     * @param baseDirectory         The folder to write the files to.
+     * @param binary                {@code true} to write binary frames instead of text lines.
+     * @param groupCommitIntervalMs The longest time a line waits before it is written out.
+     * @param groupCommitSize       The number of waiting lines that makes a file write out
+     *                              immediately.
+     * @param segmentMillis         The record time one segment may cover, or 0 for no limit.
+     * @param segmentBytes          The size after which a new segment is started, or 0 for no
+     *                              limit. If both limits are 0, one file per label is written
+     *                              without segments.
+     */
+    public FileOutputStrategy(String baseDirectory, boolean binary, long groupCommitIntervalMs, int groupCommitSize,
+                              long segmentMillis, long segmentBytes) {
+        if (groupCommitIntervalMs <= 0 || groupCommitSize <= 0) {
+            throw new IllegalArgumentException("Group-commit interval and size must be positive");
+        }
+        if (segmentMillis < 0 || segmentBytes < 0) {
+            throw new IllegalArgumentException("Segment limits must not be negative");
+        }
         this.baseDirectory = baseDirectory;
+        this.binary = binary;
+        this.groupCommitSize = groupCommitSize;
+        this.segmentMillis = segmentMillis;
+        this.segmentBytes = segmentBytes;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-output-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush, groupCommitIntervalMs, groupCommitIntervalMs,
+                TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -38,23 +127,284 @@ public class FileOutputStrategy implements OutputStrategy {
      * @param data       The actual data value to save.
      */
     public void output(int patientId, long timestamp, String label, String data) {
-        try {
-            // Create the directory
-            Files.createDirectories(Paths.get(baseDirectory));
-        } catch (IOException e) {
-            System.err.println("Error creating base directory: " + e.getMessage());
+        if (binary) {
+            double value = BinaryRecordCodec.parseValue(data);
+            if (Double.isNaN(value)) {
+                System.err.println("Cannot write non-numeric data in binary mode: " + label + "=" + data);
+                return;
+            }
+            output(patientId, timestamp, label, value);
+            return;
+        }
+        LabelWriter writer = writerFor(label);
+        if (writer == null) {
+            return;
+        }
+        synchronized (writer) {
+            StringBuilder line = writer.line;
+            line.setLength(0);
+            line.append("Patient ID: ").append(patientId)
+                    .append(", Timestamp: ").append(timestamp)
+                    .append(", Label: ").append(label)
+                    .append(", Data: ").append(data)
+                    .append(System.lineSeparator());
+            writer.write(line.toString().getBytes(StandardCharsets.UTF_8), patientId, timestamp);
+        }
+    }
+
+    /**
+     * Saves one numeric measurement. In binary mode it is appended to
+     * {@code <label>.bin} as a single-record frame.
+     *
+     * @param patientId  The ID of the patient.
+     * @param timestamp  The time when the data was recorded.
+     * @param label      The type of data (e.g. "ECG").
+     * @param value      The measured value.
+     */
+    @Override
+    public void output(int patientId, long timestamp, String label, double value) {
+        if (!binary) {
+            OutputStrategy.super.output(patientId, timestamp, label, value);
+            return;
+        }
+        LabelWriter writer = writerFor(label);
+        if (writer == null) {
+            return;
+        }
+        synchronized (writer) {
+            writer.write(BinaryRecordCodec.encode(patientId, timestamp, label, value).array(), patientId, timestamp);
+        }
+    }
+
+    /**
+     * Saves one metric of many patients. The file is looked up and locked
+     * once for the whole batch.
+     *
+     * @param label      The type of data (e.g. "ECG").
+     * @param timestamp  The time when the data was recorded.
+     * @param patientIds The IDs of the patients.
+     * @param values     The measured values.
+     */
+    @Override
+    public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        LabelWriter writer = writerFor(label);
+        if (writer == null) {
             return;
         }
-        // Set the FilePath variable
-        // filePath --> Changed variable name to camelCase (it first was PascalCase)
-        String filePath = fileMap.computeIfAbsent(label, k -> Paths.get(baseDirectory, label + ".txt").toString());
+        boolean saturation = "Saturation".equals(label);
+        synchronized (writer) {
+            StringBuilder line = writer.line;
+            for (int i = 0; i < patientIds.length; i++) {
+                if (binary) {
+                    writer.write(BinaryRecordCodec.encode(patientIds[i], timestamp, label, values[i]).array(),
+                            patientIds[i], timestamp);
+                    continue;
+                }
+                line.setLength(0);
+                line.append("Patient ID: ").append(patientIds[i])
+                        .append(", Timestamp: ").append(timestamp)
+                        .append(", Label: ").append(label)
+                        .append(", Data: ").append(values[i]);
+                if (saturation) {
+                    line.append('%');
+                }
+                line.append(System.lineSeparator());
+                writer.write(line.toString().getBytes(StandardCharsets.UTF_8), patientIds[i], timestamp);
+            }
+        }
+    }
+
+    /**
+     * Returns the open writer for a label, opening the file on first use.
+     *
+     * @return the writer, or {@code null} if the output is closed or the file
+     * cannot be opened
+     */
+    private LabelWriter writerFor(String label) {
+        LabelWriter writer = writers.get(label);
+        if (writer != null) {
+            return writer;
+        }
+        if (closed) {
+            return null;
+        }
+        return writers.computeIfAbsent(label, k -> {
+            if (closed) {
+                return null;
+            }
+            try {
+                // Create the directory
+                Files.createDirectories(Paths.get(baseDirectory));
+                return new LabelWriter(label);
+            } catch (IOException e) {
+                System.err.println("Error opening file for " + label + ": " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    private boolean isSegmented() {
+        return segmentMillis > 0 || segmentBytes > 0;
+    }
+
+    private String extension() {
+        return binary ? ".bin" : ".txt";
+    }
+
+    /**
+     * Returns the number of the last segment of a label already in the
+     * folder, so a restarted output continues after it instead of appending to
+     * a segment that was already indexed.
+     */
+    private int lastSegmentNumber(String label) throws IOException {
+        String prefix = label + "-";
+        int last = 0;
+        try (Stream<Path> files = Files.list(Paths.get(baseDirectory))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(extension())) {
+                    String number = name.substring(prefix.length(), name.length() - extension().length());
+                    try {
+                        last = Math.max(last, Integer.parseInt(number));
+                    } catch (NumberFormatException e) {
+                        // Not a segment of this label, e.g. "ECG-raw.txt"
+                    }
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Writes out all waiting lines.
+     */
+    public void flush() {
+        for (LabelWriter writer : writers.values()) {
+            synchronized (writer) {
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes out all waiting lines, closes the files and stops the background
+     * flusher. Later output is ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flusher.shutdown();
+        for (LabelWriter writer : writers.values()) {
+            synchronized (writer) {
+                writer.close();
+            }
+        }
+        writers.clear();
+    }
+
+    /**
+     * The open file of one label and the lines waiting to be written to it.
+     * All methods must be called while holding the writer's monitor.
+     */
+    private final class LabelWriter {
+        private final String label;
+        private final StringBuilder line = new StringBuilder(96);
+        private String filePath;
+        private OutputStream out;
+        private int segmentNumber;
+        private SegmentIndex index;
+        private long segmentStart;
+        private long bytesWritten;
+        private int pending;
+        private boolean open = true;
+
+        LabelWriter(String label) throws IOException {
+            this.label = label;
+            if (isSegmented()) {
+                segmentNumber = lastSegmentNumber(label);
+                openSegment();
+            } else {
+                openFile(Paths.get(baseDirectory, label + extension()).toString());
+            }
+        }
+
+        private void openSegment() throws IOException {
+            segmentNumber++;
+            openFile(Paths.get(baseDirectory, String.format("%s-%06d%s", label, segmentNumber, extension())).toString());
+            index = new SegmentIndex();
+            bytesWritten = 0;
+        }
+
+        private void openFile(String path) throws IOException {
+            // Set the FilePath variable
+            // filePath --> Changed variable name to camelCase (it first was PascalCase)
+            filePath = path;
+            fileMap.put(label, filePath);
+            out = new BufferedOutputStream(Files.newOutputStream(Paths.get(filePath),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16);
+        }
+
+        void write(byte[] bytes, int patientId, long timestamp) {
+            if (!open) {
+                return;
+            }
+            try {
+                if (index != null && index.getRecordCount() > 0
+                        && ((segmentMillis > 0 && timestamp - segmentStart >= segmentMillis)
+                        || (segmentBytes > 0 && bytesWritten + bytes.length > segmentBytes))) {
+                    closeSegment();
+                    openSegment();
+                }
+                if (index != null) {
+                    if (index.getRecordCount() == 0) {
+                        segmentStart = timestamp;
+                    }
+                    index.add(patientId, timestamp);
+                }
+                out.write(bytes);
+                bytesWritten += bytes.length;
+                if (++pending >= groupCommitSize) {
+                    out.flush();
+                    pending = 0;
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Closes the current segment and writes its index.
+         */
+        private void closeSegment() throws IOException {
+            out.close();
+            pending = 0;
+            if (index != null && index.getRecordCount() > 0) {
+                index.write(SegmentIndex.indexPathFor(Paths.get(filePath)));
+            }
+        }
+
+        void flush() {
+            if (!open || pending == 0) {
+                return;
+            }
+            try {
+                out.flush();
+                pending = 0;
+            } catch (IOException e) {
+                System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+            }
+        }
 
-        // Write the data to the file
-        try (PrintWriter out = new PrintWriter(
-                Files.newBufferedWriter(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
-            out.printf("Patient ID: %d, Timestamp: %d, Label: %s, Data: %s%n", patientId, timestamp, label, data);
-        } catch (Exception e) {
-            System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+        void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            try {
+                closeSegment();
+            } catch (IOException e) {
+                System.err.println("Error closing file " + filePath + ": " + e.getMessage());
+            }
         }
     }
-}
\ No newline at end of file
+}
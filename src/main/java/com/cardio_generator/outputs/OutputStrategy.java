@@ -19,4 +19,44 @@ public interface OutputStrategy {
      * @param data       The actual value or message.
      */
     void output(int patientId, long timestamp, String label, String data);
+
+    /**
+     * Sends out one numeric measurement. By default the value is formatted as
+     * text, with a {@code %} sign for saturation, and passed to
+     * {@link #output(int, long, String, String)}. Binary outputs override this
+     * to skip the formatting.
+     *
+     * @param patientId  The ID of the patient.
+     * @param timestamp  When the data was created (in milliseconds).
+     * @param label      The type of data (like "ECG").
+     * @param value      The measured value.
+     */
+    default void output(int patientId, long timestamp, String label, double value) {
+        String data = Double.toString(value);
+        output(patientId, timestamp, label, "Saturation".equals(label) ? data + "%" : data);
+    }
+
+    /**
+     * Sends out the same kind of measurement for many patients, all taken at
+     * the same time. By default every value is passed to
+     * {@link #output(int, long, String, double)}; outputs override this to
+     * write the whole batch with less work per sample.
+     *
+     * @param label      The type of data (like "ECG").
+     * @param timestamp  When the data was created (in milliseconds).
+     * @param patientIds The IDs of the patients.
+     * @param values     The measured values, {@code values[i]} belonging to {@code patientIds[i]}.
+     */
+    default void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        for (int i = 0; i < patientIds.length; i++) {
+            output(patientIds[i], timestamp, label, values[i]);
+        }
+    }
+
+    /**
+     * Releases the resources of this output, e.g. writes out buffered data and
+     * closes files or connections. Does nothing by default.
+     */
+    default void close() {
+    }
 }
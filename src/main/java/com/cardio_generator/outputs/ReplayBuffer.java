@@ -0,0 +1,81 @@
+package com.cardio_generator.outputs;
+
+/**
+ * A ring buffer of the last samples sent by {@link WebSocketOutputStrategy},
+ * so a client that lost its connection can ask for what it missed instead of
+ * reloading everything. Every sample gets a sequence number; the oldest
+ * samples are overwritten once the buffer is full.
+ */
+final class ReplayBuffer {
+
+    /**
+     * Receives the samples of a replay.
+     */
+    @FunctionalInterface
+    interface SampleConsumer {
+        void accept(int patientId, long timestamp, String label, double value, String data);
+    }
+
+    private final int capacity;
+    private final int[] patientIds;
+    private final long[] timestamps;
+    private final String[] labels;
+    private final double[] values;
+    private final String[] data;
+    // The sequence number of the next sample
+    private long next;
+
+    ReplayBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Replay capacity must be positive");
+        }
+        this.capacity = capacity;
+        patientIds = new int[capacity];
+        timestamps = new long[capacity];
+        labels = new String[capacity];
+        values = new double[capacity];
+        data = new String[capacity];
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest one if the buffer is full.
+     *
+     * @param data the sample as text, or {@code null} in binary mode
+     * @return the sequence number of the sample
+     */
+    synchronized long add(int patientId, long timestamp, String label, double value, String data) {
+        int slot = (int) (next % capacity);
+        patientIds[slot] = patientId;
+        timestamps[slot] = timestamp;
+        labels[slot] = label;
+        values[slot] = value;
+        this.data[slot] = data;
+        return next++;
+    }
+
+    /**
+     * Returns the sequence number the next sample will get.
+     */
+    synchronized long sequence() {
+        return next;
+    }
+
+    /**
+     * Passes the buffered samples from a sequence number on to a consumer, in
+     * the order they were added. Samples that were already overwritten are
+     * skipped.
+     *
+     * @param fromSequence the sequence number of the first sample to replay
+     * @param consumer     receives the samples
+     * @return the number of requested samples that were no longer buffered
+     */
+    synchronized long replay(long fromSequence, SampleConsumer consumer) {
+        long oldest = Math.max(0, next - capacity);
+        long start = Math.max(fromSequence, oldest);
+        for (long sequence = start; sequence < next; sequence++) {
+            int slot = (int) (sequence % capacity);
+            consumer.accept(patientIds[slot], timestamps[slot], labels[slot], values[slot], data[slot]);
+        }
+        return Math.max(0, oldest - Math.max(0, fromSequence));
+    }
+}
@@ -0,0 +1,158 @@
+package com.cardio_generator.outputs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * A small summary of one segment file written by {@link FileOutputStrategy}:
+ * the smallest and largest timestamp in it, the number of records and a
+ * bitmap of the patient IDs that occur in it. Readers use it to skip segments
+ * that cannot hold any record of the time range or patients they need.
+ * <p>
+ * The index of {@code ECG-000003.txt} is stored next to it as
+ * {@code ECG-000003.idx} once the segment is complete.
+ */
+public final class SegmentIndex {
+    public static final String EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long recordCount;
+    private final BitSet patientIds;
+
+    public SegmentIndex() {
+        this.patientIds = new BitSet();
+    }
+
+    private SegmentIndex(long minTimestamp, long maxTimestamp, long recordCount, BitSet patientIds) {
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.recordCount = recordCount;
+        this.patientIds = patientIds;
+    }
+
+    /**
+     * Records that the segment holds a record.
+     *
+     * @param patientId the ID of the patient; negative IDs are not kept in the
+     *                  patient bitmap
+     * @param timestamp the time of the record
+     */
+    public void add(int patientId, long timestamp) {
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        if (patientId >= 0) {
+            patientIds.set(patientId);
+        }
+        recordCount++;
+    }
+
+    /**
+     * Returns whether the segment may hold records between the given times,
+     * both inclusive.
+     *
+     * @param startTime the start of the time range
+     * @param endTime   the end of the time range
+     * @return {@code false} if no record of the segment is in the range
+     */
+    public boolean overlaps(long startTime, long endTime) {
+        return recordCount > 0 && minTimestamp <= endTime && maxTimestamp >= startTime;
+    }
+
+    /**
+     * Returns whether the segment holds a record of any of the given patients.
+     *
+     * @param wanted the patient IDs to look for
+     * @return {@code true} if at least one of them occurs in the segment
+     */
+    public boolean containsAny(BitSet wanted) {
+        return patientIds.intersects(wanted);
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns whether the segment holds a record of the given patient.
+     *
+     * @param patientId the patient ID
+     * @return {@code true} if the patient occurs in the segment
+     */
+    public boolean containsPatient(int patientId) {
+        return patientId >= 0 && patientIds.get(patientId);
+    }
+
+    /**
+     * Returns the path of the index that belongs to a segment file.
+     *
+     * @param segment the segment file, e.g. {@code ECG-000003.txt}
+     * @return the index file, e.g. {@code ECG-000003.idx}
+     */
+    public static Path indexPathFor(Path segment) {
+        String name = segment.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return segment.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + EXTENSION);
+    }
+
+    /**
+     * Writes the index to a file. The file is written under a temporary name
+     * and then renamed, so readers never see a partial index.
+     *
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        byte[] bitmap = patientIds.toByteArray();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            out.writeLong(recordCount);
+            out.writeInt(bitmap.length);
+            out.write(bitmap);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads an index file.
+     *
+     * @param file the file to read
+     * @return the index
+     * @throws IOException if reading fails or the file is not a segment index
+     */
+    public static SegmentIndex read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a segment index: " + file);
+            }
+            long min = in.readLong();
+            long max = in.readLong();
+            long count = in.readLong();
+            byte[] bitmap = new byte[in.readInt()];
+            in.readFully(bitmap);
+            return new SegmentIndex(min, max, count, BitSet.valueOf(bitmap));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.cardio_generator.outputs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a WebSocket client wants to receive from {@link WebSocketOutputStrategy}:
+ * a set of patient IDs, a set of metric labels and a minimum interval between
+ * two samples of the same patient and metric. Clients send it as a text
+ * message:
+ * <pre>
+ * subscribe patients=1,2,3 labels=ECG,Saturation interval=1000
+ * </pre>
+ * Every option is optional; a missing option means "all", and {@code subscribe}
+ * on its own resets the connection to receive everything, which is also what a
+ * new connection receives.
+ * <p>
+ * A subscription also remembers when it last let a sample through for each
+ * patient and metric, so every connection needs its own instance.
+ * <p>
+ * Patient IDs are kept as a sorted array, so a subscription takes memory in
+ * proportion to the number of IDs the client listed, whatever their values. A
+ * downsampled subscription to all patients keeps the times in a map instead,
+ * taking memory in proportion to the number of patients it has seen.
+ */
+public final class Subscription {
+    public static final String COMMAND = "subscribe";
+
+    // null means all patients / all labels; patient IDs are sorted and distinct
+    private final int[] patientIds;
+    private final Set<String> labels;
+    private final long minIntervalMs;
+
+    // label --> time of the last sample let through, indexed by the position of the patient ID in
+    // patientIds
+    private final Map<String, long[]> lastSent = new HashMap<>();
+    // label --> patient ID --> time of the last sample let through, when all patients are subscribed
+    private final Map<String, Map<Integer, Long>> lastSentByPatient = new HashMap<>();
+
+    /**
+     * Creates a subscription.
+     *
+     * @param patientIds    the patient IDs to receive, or {@code null} for all patients
+     * @param labels        the metric labels to receive, or {@code null} for all metrics
+     * @param minIntervalMs the least time between two samples of the same patient and
+     *                      metric, or 0 to receive every sample
+     */
+    public Subscription(int[] patientIds, String[] labels, long minIntervalMs) {
+        if (minIntervalMs < 0) {
+            throw new IllegalArgumentException("Interval must not be negative");
+        }
+        if (patientIds != null) {
+            for (int patientId : patientIds) {
+                if (patientId < 0) {
+                    throw new IllegalArgumentException("Invalid patient ID " + patientId);
+                }
+            }
+            this.patientIds = Arrays.stream(patientIds).sorted().distinct().toArray();
+        } else {
+            this.patientIds = null;
+        }
+        this.labels = labels == null ? null : new HashSet<>(Arrays.asList(labels));
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    /**
+     * Returns whether a message is a subscribe message.
+     *
+     * @param message the text message received from a client
+     * @return {@code true} if it starts with {@value #COMMAND}
+     */
+    public static boolean isSubscribeMessage(String message) {
+        String trimmed = message.trim();
+        return trimmed.equals(COMMAND) || trimmed.startsWith(COMMAND + " ");
+    }
+
+    /**
+     * Parses a subscribe message.
+     *
+     * @param message the message, e.g. {@code "subscribe patients=1,2 interval=500"}
+     * @return the subscription
+     * @throws IllegalArgumentException if the message is malformed or holds a
+     *                                  patient ID outside the {@code int} range
+     *                                  or below 0
+     */
+    public static Subscription parse(String message) {
+        if (!isSubscribeMessage(message)) {
+            throw new IllegalArgumentException("Not a subscribe message: " + message);
+        }
+        int[] patientIds = null;
+        String[] labels = null;
+        long interval = 0;
+        String[] tokens = message.trim().split("\\s+");
+        for (int i = 1; i < tokens.length; i++) {
+            int equals = tokens[i].indexOf('=');
+            if (equals <= 0 || equals == tokens[i].length() - 1) {
+                throw new IllegalArgumentException("Expected option=value but got " + tokens[i]);
+            }
+            String option = tokens[i].substring(0, equals);
+            String value = tokens[i].substring(equals + 1);
+            try {
+                switch (option) {
+                    case "patients":
+                        patientIds = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                        break;
+                    case "labels":
+                        labels = value.split(",");
+                        break;
+                    case "interval":
+                        interval = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number in " + tokens[i]);
+            }
+        }
+        return new Subscription(patientIds, labels, interval);
+    }
+
+    /**
+     * Returns the subscribe message that creates this subscription.
+     *
+     * @return the message to send to the server
+     */
+    public String toMessage() {
+        StringBuilder message = new StringBuilder(COMMAND);
+        if (patientIds != null) {
+            message.append(" patients=");
+            for (int id : patientIds) {
+                message.append(id).append(',');
+            }
+            message.setLength(message.length() - 1);
+        }
+        if (labels != null) {
+            message.append(" labels=").append(String.join(",", labels));
+        }
+        if (minIntervalMs > 0) {
+            message.append(" interval=").append(minIntervalMs);
+        }
+        return message.toString();
+    }
+
+    /**
+     * Returns whether the subscription lets every sample through, so the
+     * connection can share the message sent to all clients.
+     *
+     * @return {@code true} if nothing is filtered or downsampled
+     */
+    public boolean isAll() {
+        return patientIds == null && labels == null && minIntervalMs == 0;
+    }
+
+    /**
+     * Decides whether a sample is sent to the connection. Samples must be
+     * offered in the order they are sent; a sample that is let through counts
+     * as sent for the downsampling interval.
+     *
+     * @param patientId the ID of the patient
+     * @param timestamp the time of the sample
+     * @param label     the metric label
+     * @return {@code true} if the sample is sent
+     */
+    public synchronized boolean accept(int patientId, long timestamp, String label) {
+        int slot = -1;
+        if (patientIds != null) {
+            slot = Arrays.binarySearch(patientIds, patientId);
+            if (slot < 0) {
+                return false;
+            }
+        }
+        if (labels != null && !labels.contains(label)) {
+            return false;
+        }
+        if (minIntervalMs == 0) {
+            return true;
+        }
+        if (patientIds == null) {
+            Map<Integer, Long> times = lastSentByPatient.computeIfAbsent(label, key -> new HashMap<>());
+            Long last = times.get(patientId);
+            if (last != null && timestamp - last < minIntervalMs) {
+                return false;
+            }
+            times.put(patientId, timestamp);
+            return true;
+        }
+        long[] times = lastSent.get(label);
+        if (times == null) {
+            times = new long[patientIds.length];
+            Arrays.fill(times, Long.MIN_VALUE);
+            lastSent.put(label, times);
+        }
+        long last = times[slot];
+        if (last != Long.MIN_VALUE && timestamp - last < minIntervalMs) {
+            return false;
+        }
+        times[slot] = timestamp;
+        return true;
+    }
+}
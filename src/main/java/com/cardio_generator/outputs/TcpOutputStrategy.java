@@ -1,52 +1,117 @@
 package com.cardio_generator.outputs;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.concurrent.Executors;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
- * An output strategy that sends patient data to a TCP client.
+ * An output strategy that sends patient data to TCP clients.
  * <p>
- * The server listens on a specific port and sends each message
- * to the first client that connects.
+ * The server listens on a specific port and sends each message to every
+ * connected client. Messages are sent as text lines, or as
+ * {@link BinaryRecordCodec} frames in binary mode.
+ * <p>
+ * All network I/O runs on one selector thread. {@link #output} only encodes the
+ * message once and appends it to each client's bounded queue, so it never
+ * waits for the network. The selector thread sends the queued messages with
+ * gathering writes. When a client reads slower than data is produced and its
+ * queue is full, the {@link SlowConsumerPolicy} decides whether new messages
+ * for that client are dropped or the client is disconnected.
  */
 public class TcpOutputStrategy implements OutputStrategy {
+    public static final int DEFAULT_MAX_QUEUED_BYTES = 1 << 20;
+
+    // The most messages handed to a single gathering write
+    private static final int MAX_WRITE_BATCH = 64;
+
+    /**
+     * What happens to a client whose queue is full.
+     */
+    public enum SlowConsumerPolicy {
+        /** Drop new messages for the client until it catches up. */
+        DROP,
+        /** Close the connection to the client. */
+        DISCONNECT
+    }
 
-    private ServerSocket serverSocket;
-    private Socket clientSocket;
-    private PrintWriter out;
+    private final boolean binary;
+    private final int maxQueuedBytes;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    // Clients that got new messages while they had nothing to send
+    private final Queue<Client> writeRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicLong droppedMessages = new AtomicLong();
+    private final AtomicLong disconnectedClients = new AtomicLong();
+    private volatile boolean running;
 
     /**
-     * Starts a TCP server that listens for one client on the given port.
-     * When a client connects, it will receive all patient data messages.
+     * Starts a TCP server on the given port. Every client that connects will
+     * receive all patient data messages.
      *
      * @param port The port number to listen on (e.g. 8080).
      */
     public TcpOutputStrategy(int port) {
+        this(port, false);
+    }
+
+    /**
+     * Starts a TCP server on the given port.
+     *
+     * @param port   The port number to listen on (e.g. 8080).
+     * @param binary {@code true} to send binary frames instead of text lines.
+     */
+    public TcpOutputStrategy(int port, boolean binary) {
+        this(port, binary, DEFAULT_MAX_QUEUED_BYTES, SlowConsumerPolicy.DROP);
+    }
+
+    /**
+     * Starts a TCP server on the given port with custom backpressure settings.
+     *
+     * @param port               The port number to listen on (e.g. 8080), or 0 for any free port.
+     * @param binary             {@code true} to send binary frames instead of text lines.
+     * @param maxQueuedBytes     The most bytes queued for one client. A larger message is
+     *                           still sent to a client with an empty queue.
+     * @param slowConsumerPolicy What to do with a client whose queue is full.
+     */
+    public TcpOutputStrategy(int port, boolean binary, int maxQueuedBytes, SlowConsumerPolicy slowConsumerPolicy) {
+        this.binary = binary;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.slowConsumerPolicy = slowConsumerPolicy;
         try {
-            serverSocket = new ServerSocket(port);
-            System.out.println("TCP Server started on port " + port);
-
-            // Accept clients in a new thread to not block the main thread
-            Executors.newSingleThreadExecutor().submit(() -> {
-                try {
-                    clientSocket = serverSocket.accept();
-                    out = new PrintWriter(clientSocket.getOutputStream(), true);
-                    System.out.println("Client connected: " + clientSocket.getInetAddress());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("TCP Server started on port " + getPort());
+
+            // Run the network I/O in its own thread to not block the main thread
+            running = true;
+            Thread thread = new Thread(this::run, "tcp-output-selector");
+            thread.setDaemon(true);
+            thread.start();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Sends patient data to the connected TCP client.
+     * Sends patient data to all connected TCP clients.
      *
      * @param patientId  The ID of the patient.
      * @param timestamp  The time when the data was generated (in ms).
@@ -55,9 +120,335 @@ public class TcpOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
-        if (out != null) {
-            String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
-            out.println(message);
+        if (binary) {
+            double value = BinaryRecordCodec.parseValue(data);
+            if (Double.isNaN(value)) {
+                System.err.println("Cannot send non-numeric data in binary mode: " + label + "=" + data);
+                return;
+            }
+            output(patientId, timestamp, label, value);
+            return;
+        }
+        if (clients.isEmpty()) {
+            return;
+        }
+        String message = patientId + "," + timestamp + "," + label + "," + data + System.lineSeparator();
+        broadcast(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sends a numeric measurement to all connected TCP clients. In binary mode
+     * the value is encoded as a single-record frame without text formatting.
+     *
+     * @param patientId  The ID of the patient.
+     * @param timestamp  The time when the data was generated (in ms).
+     * @param label      The type of data (e.g. "ECG").
+     * @param value      The measured value.
+     */
+    @Override
+    public void output(int patientId, long timestamp, String label, double value) {
+        if (!binary) {
+            OutputStrategy.super.output(patientId, timestamp, label, value);
+            return;
+        }
+        if (!clients.isEmpty()) {
+            broadcast(BinaryRecordCodec.encode(patientId, timestamp, label, value));
+        }
+    }
+
+    /**
+     * Sends one metric of many patients as a single message: one binary
+     * frame, or the text lines joined together.
+     *
+     * @param label      The type of data (e.g. "ECG").
+     * @param timestamp  The time when the data was generated (in ms).
+     * @param patientIds The IDs of the patients.
+     * @param values     The measured values.
+     */
+    @Override
+    public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        if (clients.isEmpty() || patientIds.length == 0) {
+            return;
+        }
+        if (binary) {
+            broadcast(BinaryRecordCodec.encode(label, timestamp, patientIds, values));
+            return;
+        }
+        String separator = System.lineSeparator();
+        boolean saturation = "Saturation".equals(label);
+        StringBuilder message = new StringBuilder(patientIds.length * 48);
+        for (int i = 0; i < patientIds.length; i++) {
+            message.append(patientIds[i]).append(',').append(timestamp).append(',').append(label).append(',')
+                    .append(values[i]);
+            if (saturation) {
+                message.append('%');
+            }
+            message.append(separator);
+        }
+        broadcast(ByteBuffer.wrap(message.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Queues one encoded message for every client. The clients share the
+     * message bytes.
+     */
+    private void broadcast(ByteBuffer message) {
+        boolean wakeup = false;
+        for (Client client : clients) {
+            switch (client.enqueue(message.duplicate())) {
+                case QUEUED_FIRST:
+                    writeRequests.add(client);
+                    wakeup = true;
+                    break;
+                case FULL:
+                    if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+                        client.disconnectRequested = true;
+                        writeRequests.add(client);
+                        wakeup = true;
+                    } else {
+                        droppedMessages.incrementAndGet();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (wakeup) {
+            selector.wakeup();
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Client requested;
+                while ((requested = writeRequests.poll()) != null) {
+                    if (requested.disconnectRequested) {
+                        System.err.println("Disconnecting slow TCP client " + requested.address);
+                        disconnect(requested);
+                    } else if (requested.key.isValid()) {
+                        requested.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) {
+                            read(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(client);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        System.out.println("Client connected: " + client.address);
+    }
+
+    /**
+     * Reads and discards whatever the client sends, to notice when it closes
+     * the connection.
+     */
+    private void read(Client client) {
+        try {
+            client.readBuffer.clear();
+            if (client.channel.read(client.readBuffer) < 0) {
+                disconnect(client);
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void write(Client client) {
+        try {
+            ByteBuffer[] batch = client.peekBatch();
+            if (batch.length > 0) {
+                long written = client.channel.write(batch);
+                client.removeWritten(batch, written);
+            }
+            if (client.finishWriteIfEmpty()) {
+                client.key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void disconnect(Client client) {
+        if (clients.remove(client)) {
+            disconnectedClients.incrementAndGet();
+            System.out.println("Client disconnected: " + client.address);
+        }
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port, or -1 if the server could not be started
+     */
+    public int getPort() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Returns the number of connected clients.
+     *
+     * @return the client count
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * Returns the number of messages not sent to a client because its queue
+     * was full.
+     *
+     * @return the dropped message count
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * Returns the number of clients that disconnected or were disconnected.
+     *
+     * @return the disconnected client count
+     */
+    public long getDisconnectedClients() {
+        return disconnectedClients.get();
+    }
+
+    /**
+     * Stops the server and closes all client connections. Messages still
+     * queued are discarded.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Client client : clients) {
+            try {
+                client.channel.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        clients.clear();
+    }
+
+    private enum EnqueueResult { QUEUED, QUEUED_FIRST, FULL }
+
+    /**
+     * One connected client and the messages waiting to be sent to it.
+     */
+    private final class Client {
+        private final SocketChannel channel;
+        private final String address;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+        private final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        private SelectionKey key;
+        private int queuedBytes;
+        // True while the selector thread has been asked to send this client's queue
+        private boolean writing;
+        private volatile boolean disconnectRequested;
+
+        Client(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.address = String.valueOf(channel.getRemoteAddress());
+        }
+
+        synchronized EnqueueResult enqueue(ByteBuffer message) {
+            if (disconnectRequested) {
+                return EnqueueResult.QUEUED;
+            }
+            // A message larger than the limit is admitted into an empty queue, so it is not lost
+            if (!queue.isEmpty() && queuedBytes + message.remaining() > maxQueuedBytes) {
+                return EnqueueResult.FULL;
+            }
+            queue.add(message);
+            queuedBytes += message.remaining();
+            if (!writing) {
+                writing = true;
+                return EnqueueResult.QUEUED_FIRST;
+            }
+            return EnqueueResult.QUEUED;
+        }
+
+        synchronized ByteBuffer[] peekBatch() {
+            int count = Math.min(queue.size(), MAX_WRITE_BATCH);
+            ByteBuffer[] batch = new ByteBuffer[count];
+            int i = 0;
+            for (ByteBuffer message : queue) {
+                if (i == count) {
+                    break;
+                }
+                batch[i++] = message;
+            }
+            return batch;
+        }
+
+        /**
+         * Removes the messages of a batch that were sent completely.
+         */
+        synchronized void removeWritten(ByteBuffer[] batch, long written) {
+            queuedBytes -= (int) written;
+            for (ByteBuffer message : batch) {
+                if (message.hasRemaining()) {
+                    break;
+                }
+                queue.poll();
+            }
+        }
+
+        /**
+         * Returns {@code true} and stops asking for writes if the queue is
+         * empty.
+         */
+        synchronized boolean finishWriteIfEmpty() {
+            if (queue.isEmpty()) {
+                writing = false;
+                return true;
+            }
+            return false;
         }
     }
 }
@@ -1,17 +1,74 @@
 package com.cardio_generator.outputs;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class implements the OutputStrategy interface and provides a WebSocket-based output mechanism.
  * It starts a WebSocket server and broadcasts patient data messages to all connected WebSocket clients.
+ * Messages are sent as text, or as binary {@link BinaryRecordCodec} frames in binary mode.
+ * <p>
+ * With a batch window, samples are collected for that many milliseconds and then sent as one
+ * message: text lines separated by {@code '\n'}, or one multi-record binary frame. Each batch is
+ * encoded once and the same message is broadcast to every connection. Per-message compression
+ * can be enabled for clients that support it; other clients still connect without it.
+ * <p>
+ * A client can send a {@link Subscription} message to receive only some patients and metrics,
+ * at most one sample per interval. The server keeps the subscription of each connection and
+ * only sends it the samples it accepts; clients without a subscription receive everything.
+ * <p>
+ * The last samples are kept in a replay buffer, also while no client is connected, and every sample
+ * gets a sequence number, starting at 0 when the server starts. A client that sends the
+ * {@value #REPLAY_HEADER} header when it connects first gets the buffered samples from that sequence
+ * number on, and is then sent a {@code sequence <n>} text message before every message, where
+ * {@code n} is the sequence number after the samples of that message. After storing the message the
+ * client has everything before {@code n}, so it reconnects with that number and misses nothing.
  */
 public class WebSocketOutputStrategy implements OutputStrategy {
+    // A batch is sent early once it holds this many samples
+    public static final int MAX_BATCH_RECORDS = 4096;
+    public static final int DEFAULT_REPLAY_CAPACITY = 10_000;
+    // Sent by a client when it connects: the sequence number to resume from, or REPLAY_LIVE
+    public static final String REPLAY_HEADER = "X-Replay-From";
+    // The replay header of a client that has nothing yet and only wants sequence markers
+    public static final String REPLAY_LIVE = "live";
+    // Sent to replaying clients before each message, followed by the sequence number after it
+    public static final String SEQUENCE_MARKER = "sequence";
 
     private WebSocketServer server;
+    private final boolean binary;
+    private final long batchWindowMs;
+    private final ScheduledExecutorService batcher;
+
+    // Subscriptions of the clients that sent one; other clients receive everything
+    private final Map<WebSocket, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    // The connections samples are sent to, mapped to whether they get sequence markers
+    private final Map<WebSocket, Boolean> connections = new ConcurrentHashMap<>();
+    private final ReplayBuffer replayBuffer;
+    // Held while samples are numbered and sent, and while a connection is registered, so every
+    // connection gets each sample exactly once and in sequence order
+    private final Object sendLock = new Object();
+
+    // The batch being collected, guarded by "this"
+    private Batch batch = new Batch(64);
 
     /**
      * Constructs the WebSocketOutputStrategy and starts a WebSocket server on the given port.
@@ -19,9 +76,73 @@ public class WebSocketOutputStrategy implements OutputStrategy {
      * @param port the port number to run the WebSocket server on
      */
     public WebSocketOutputStrategy(int port) {
-        server = new SimpleWebSocketServer(new InetSocketAddress(port));
+        this(port, false);
+    }
+
+    /**
+     * Constructs the WebSocketOutputStrategy and starts a WebSocket server on the given port.
+     *
+     * @param port   the port number to run the WebSocket server on
+     * @param binary true to send binary frames instead of text messages
+     */
+    public WebSocketOutputStrategy(int port, boolean binary) {
+        this(port, binary, 0, false);
+    }
+
+    /**
+     * Constructs the WebSocketOutputStrategy and starts a WebSocket server on the given port.
+     *
+     * @param port          the port number to run the WebSocket server on, or 0 for any free port
+     * @param binary        true to send binary frames instead of text messages
+     * @param batchWindowMs how long samples are collected before they are sent together, or 0 to
+     *                      send every sample immediately
+     * @param compression   true to offer per-message deflate compression to clients
+     */
+    public WebSocketOutputStrategy(int port, boolean binary, long batchWindowMs, boolean compression) {
+        this(port, binary, batchWindowMs, compression, DEFAULT_REPLAY_CAPACITY);
+    }
+
+    /**
+     * Constructs the WebSocketOutputStrategy and starts a WebSocket server on the given port.
+     *
+     * @param port           the port number to run the WebSocket server on, or 0 for any free port
+     * @param binary         true to send binary frames instead of text messages
+     * @param batchWindowMs  how long samples are collected before they are sent together, or 0 to
+     *                       send every sample immediately
+     * @param compression    true to offer per-message deflate compression to clients
+     * @param replayCapacity how many of the last samples are kept for clients that reconnect, or 0
+     *                       to keep none
+     */
+    public WebSocketOutputStrategy(int port, boolean binary, long batchWindowMs, boolean compression,
+                                   int replayCapacity) {
+        if (batchWindowMs < 0) {
+            throw new IllegalArgumentException("Batch window must not be negative");
+        }
+        if (replayCapacity < 0) {
+            throw new IllegalArgumentException("Replay capacity must not be negative");
+        }
+        this.binary = binary;
+        this.batchWindowMs = batchWindowMs;
+        this.replayBuffer = replayCapacity > 0 ? new ReplayBuffer(replayCapacity) : null;
+        List<Draft> drafts = compression
+                ? Collections.singletonList(new Draft_6455(new PerMessageDeflateExtension()))
+                : Collections.singletonList(new Draft_6455());
+        SimpleWebSocketServer simpleServer = new SimpleWebSocketServer(new InetSocketAddress(port), drafts);
+        server = simpleServer;
         System.out.println("WebSocket server created on port: " + port + ", listening for connections...");
         server.start();
+        simpleServer.awaitStart();
+
+        if (batchWindowMs > 0) {
+            batcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "websocket-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            batcher.scheduleAtFixedRate(this::flush, batchWindowMs, batchWindowMs, TimeUnit.MILLISECONDS);
+        } else {
+            batcher = null;
+        }
     }
 
     /**
@@ -34,26 +155,433 @@ public class WebSocketOutputStrategy implements OutputStrategy {
      */
     @Override
     public void output(int patientId, long timestamp, String label, String data) {
-        String message = String.format("%d,%d,%s,%s", patientId, timestamp, label, data);
-        // Broadcast the message to all connected clients
-        for (WebSocket conn : server.getConnections()) {
-            conn.send(message);
+        if (binary) {
+            double value = BinaryRecordCodec.parseValue(data);
+            if (Double.isNaN(value)) {
+                System.err.println("Cannot send non-numeric data in binary mode: " + label + "=" + data);
+                return;
+            }
+            output(patientId, timestamp, label, value);
+            return;
+        }
+        if (batchWindowMs == 0) {
+            sendNow(patientId, timestamp, label, 0, data);
+            return;
+        }
+        if (replayBuffer != null || !connections.isEmpty()) {
+            add(patientId, timestamp, label, 0, data);
+        }
+    }
+
+    /**
+     * Sends a numeric measurement to all connected WebSocket clients. In binary
+     * mode the value is added to the current batch, or encoded as a
+     * single-record frame without batching, and the same bytes are sent to
+     * every client.
+     *
+     * @param patientId the ID of the patient
+     * @param timestamp the time the data was recorded
+     * @param label     the type of data (e.g., ECG)
+     * @param value     the measured value
+     */
+    @Override
+    public void output(int patientId, long timestamp, String label, double value) {
+        if (!binary) {
+            OutputStrategy.super.output(patientId, timestamp, label, value);
+            return;
+        }
+        if (batchWindowMs == 0) {
+            sendNow(patientId, timestamp, label, value, null);
+            return;
+        }
+        if (replayBuffer != null || !connections.isEmpty()) {
+            add(patientId, timestamp, label, value, null);
+        }
+    }
+
+    /**
+     * Sends one metric of many patients. With a batch window the samples are
+     * added to the current batch in one step; otherwise each is sent on its
+     * own, like {@link #output(int, long, String, double)}.
+     *
+     * @param label      the type of data (e.g., ECG)
+     * @param timestamp  the time the data was recorded
+     * @param patientIds the IDs of the patients
+     * @param values     the measured values
+     */
+    @Override
+    public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        if (batchWindowMs == 0) {
+            OutputStrategy.super.outputBatch(label, timestamp, patientIds, values);
+            return;
+        }
+        if (replayBuffer == null && connections.isEmpty()) {
+            return;
+        }
+        boolean saturation = "Saturation".equals(label);
+        boolean full;
+        synchronized (this) {
+            for (int i = 0; i < patientIds.length; i++) {
+                String data = null;
+                if (!binary) {
+                    data = Double.toString(values[i]);
+                    if (saturation) {
+                        data += "%";
+                    }
+                }
+                batch.add(patientIds[i], timestamp, label, values[i], data);
+            }
+            full = batch.size >= MAX_BATCH_RECORDS;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Numbers a sample and sends it on its own to every connection that wants it.
+     *
+     * @param data the sample as text, or {@code null} in binary mode
+     */
+    private void sendNow(int patientId, long timestamp, String label, double value, String data) {
+        synchronized (sendLock) {
+            long end = replayBuffer == null ? -1 : replayBuffer.add(patientId, timestamp, label, value, data) + 1;
+            if (connections.isEmpty()) {
+                return;
+            }
+            Collection<WebSocket> targets = targets(patientId, timestamp, label);
+            if (targets.isEmpty()) {
+                return;
+            }
+            mark(targets, end);
+            if (binary) {
+                server.broadcast(BinaryRecordCodec.encode(patientId, timestamp, label, value), targets);
+            } else {
+                // Send the message to all clients that want it
+                server.broadcast(patientId + "," + timestamp + "," + label + "," + data, targets);
+            }
+        }
+    }
+
+    /**
+     * Sends the connections that get sequence markers the sequence number
+     * after the message that is sent to them next. Must hold the send lock.
+     *
+     * @param targets the connections the next message goes to
+     * @param end     the sequence number after the samples of the message, or
+     *                -1 without a replay buffer
+     */
+    private void mark(Collection<WebSocket> targets, long end) {
+        if (end < 0) {
+            return;
+        }
+        List<WebSocket> marked = null;
+        for (WebSocket conn : targets) {
+            if (Boolean.TRUE.equals(connections.get(conn))) {
+                if (marked == null) {
+                    marked = new ArrayList<>();
+                }
+                marked.add(conn);
+            }
+        }
+        if (marked != null) {
+            server.broadcast(SEQUENCE_MARKER + " " + end, marked);
+        }
+    }
+
+    /**
+     * Returns the connections whose subscription accepts a sample.
+     */
+    private Collection<WebSocket> targets(int patientId, long timestamp, String label) {
+        if (subscriptions.isEmpty()) {
+            return connections.keySet();
+        }
+        List<WebSocket> targets = new ArrayList<>(connections.size());
+        for (WebSocket conn : connections.keySet()) {
+            Subscription subscription = subscriptions.get(conn);
+            if (subscription == null || subscription.accept(patientId, timestamp, label)) {
+                targets.add(conn);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Adds a sample to the current batch and sends the batch early if it is
+     * full.
+     */
+    private void add(int patientId, long timestamp, String label, double value, String data) {
+        boolean full;
+        synchronized (this) {
+            full = batch.add(patientId, timestamp, label, value, data) >= MAX_BATCH_RECORDS;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the samples collected so far. Clients without a subscription share
+     * one message holding the whole batch; every subscribed client gets a
+     * message with only the samples it accepts.
+     */
+    public void flush() {
+        Batch sending;
+        synchronized (this) {
+            if (batch.size == 0) {
+                return;
+            }
+            sending = batch;
+            batch = new Batch(sending.size);
+        }
+        synchronized (sendLock) {
+            send(sending);
+        }
+    }
+
+    /**
+     * Numbers the samples of a batch and sends them. Must hold the send lock.
+     */
+    private void send(Batch sending) {
+        long end = -1;
+        if (replayBuffer != null) {
+            // Numbered when the batch is sent, so clients that open later get it by replay only
+            for (int i = 0; i < sending.size; i++) {
+                replayBuffer.add(sending.patientIds[i], sending.timestamps[i], sending.labels[i],
+                        sending.values[i], sending.data[i]);
+            }
+            end = replayBuffer.sequence();
+        }
+        try {
+            List<WebSocket> everything = new ArrayList<>();
+            int[] selected = null;
+            for (WebSocket conn : connections.keySet()) {
+                Subscription subscription = subscriptions.get(conn);
+                if (subscription == null) {
+                    everything.add(conn);
+                    continue;
+                }
+                if (selected == null) {
+                    selected = new int[sending.size];
+                }
+                int count = 0;
+                for (int i = 0; i < sending.size; i++) {
+                    if (subscription.accept(sending.patientIds[i], sending.timestamps[i], sending.labels[i])) {
+                        selected[count++] = i;
+                    }
+                }
+                if (count > 0 && conn.isOpen()) {
+                    mark(Collections.singletonList(conn), end);
+                    send(conn, sending, selected, count);
+                }
+            }
+            if (!everything.isEmpty()) {
+                mark(everything, end);
+                if (binary) {
+                    server.broadcast(BinaryRecordCodec.encode(sending.patientIds, sending.timestamps,
+                            sending.labels, sending.values, sending.size), everything);
+                } else {
+                    server.broadcast(sending.text(null, sending.size), everything);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error broadcasting WebSocket batch: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Registers a new connection, so it is sent samples from now on. A client
+     * with a {@value #REPLAY_HEADER} header is first sent the buffered samples
+     * from the sequence number it asked for. Both happen under the send lock,
+     * so every sample is either replayed or sent live, never both.
+     *
+     * @param conn       the client
+     * @param replayFrom the value of the replay header, or {@code null} if it has none
+     */
+    private void register(WebSocket conn, String replayFrom) {
+        synchronized (sendLock) {
+            if (replayFrom == null || replayBuffer == null) {
+                if (replayFrom != null) {
+                    System.err.println("Replay requested by " + conn.getRemoteSocketAddress() + " but replay is disabled");
+                }
+                connections.put(conn, false);
+                return;
+            }
+            if (REPLAY_LIVE.equals(replayFrom)) {
+                // Tells the client where it starts, so it can resume even before its first message
+                conn.send(SEQUENCE_MARKER + " " + replayBuffer.sequence());
+            } else {
+                try {
+                    replay(conn, Long.parseLong(replayFrom));
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid replay request from " + conn.getRemoteSocketAddress() + ": " + replayFrom);
+                }
+            }
+            connections.put(conn, true);
+        }
+    }
+
+    /**
+     * Sends a client the buffered samples from a sequence number on, in
+     * messages of at most {@value #MAX_BATCH_RECORDS} samples, each after its
+     * sequence marker. Must hold the send lock.
+     *
+     * @param conn         the client
+     * @param fromSequence the sequence number of the first sample the client misses
+     */
+    private void replay(WebSocket conn, long fromSequence) {
+        Batch replayed = new Batch(64);
+        long missed = replayBuffer.replay(fromSequence, replayed::add);
+        // The replayed samples are the last ones, as nothing is numbered while the lock is held
+        long first = replayBuffer.sequence() - replayed.size;
+        int[] selected = new int[Math.min(replayed.size, MAX_BATCH_RECORDS)];
+        for (int from = 0; from < replayed.size; from += selected.length) {
+            int count = Math.min(selected.length, replayed.size - from);
+            for (int i = 0; i < count; i++) {
+                selected[i] = from + i;
+            }
+            conn.send(SEQUENCE_MARKER + " " + (first + from + count));
+            send(conn, replayed, selected, count);
+        }
+        if (missed > 0) {
+            System.err.println(missed + " samples requested by " + conn.getRemoteSocketAddress()
+                    + " are no longer buffered");
+        }
+        System.out.println("Replayed " + replayed.size + " samples to " + conn.getRemoteSocketAddress());
+    }
+
+    private void send(WebSocket conn, Batch sending, int[] selected, int count) {
+        if (binary) {
+            conn.send(BinaryRecordCodec.encode(sending.patientIds, sending.timestamps, sending.labels,
+                    sending.values, selected, count));
+        } else {
+            conn.send(sending.text(selected, count));
+        }
+    }
+
+    /**
+     * Returns the number of clients that are sent samples. A client counts
+     * once the server has registered it, which may be shortly after the
+     * client sees its connection open.
+     *
+     * @return the connection count
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getPort();
+    }
+
+    /**
+     * Sends the remaining samples and stops the server.
+     */
+    @Override
+    public void close() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+        flush();
+        try {
+            server.stop(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The columns of the samples collected for one batch. In text mode the
+     * data is kept as sent; in binary mode the values.
+     */
+    private static final class Batch {
+        private int[] patientIds;
+        private long[] timestamps;
+        private String[] labels;
+        private double[] values;
+        private String[] data;
+        private int size;
+
+        Batch(int capacity) {
+            patientIds = new int[capacity];
+            timestamps = new long[capacity];
+            labels = new String[capacity];
+            values = new double[capacity];
+            data = new String[capacity];
+        }
+
+        /**
+         * Adds a sample and returns the new size.
+         */
+        int add(int patientId, long timestamp, String label, double value, String text) {
+            if (size == patientIds.length) {
+                int capacity = size * 2;
+                patientIds = Arrays.copyOf(patientIds, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                values = Arrays.copyOf(values, capacity);
+                data = Arrays.copyOf(data, capacity);
+            }
+            patientIds[size] = patientId;
+            timestamps[size] = timestamp;
+            labels[size] = label;
+            values[size] = value;
+            data[size] = text;
+            return ++size;
+        }
+
+        /**
+         * Formats samples as text lines separated by {@code '\n'}.
+         *
+         * @param selected the indices of the samples, or {@code null} for the first {@code count}
+         * @param count    the number of samples
+         */
+        String text(int[] selected, int count) {
+            StringBuilder message = new StringBuilder(count * 40);
+            for (int i = 0; i < count; i++) {
+                int sample = selected == null ? i : selected[i];
+                if (i > 0) {
+                    message.append('\n');
+                }
+                message.append(patientIds[sample]).append(',').append(timestamps[sample]).append(',')
+                        .append(labels[sample]).append(',').append(data[sample]);
+            }
+            return message.toString();
         }
     }
 
     /**
      * Inner class that extends WebSocketServer to handle client events.
      */
-    private static class SimpleWebSocketServer extends WebSocketServer {
+    private class SimpleWebSocketServer extends WebSocketServer {
+
 
+        private final CountDownLatch started = new CountDownLatch(1);
 
         /**
          * Constructs the WebSocket server on the given address.
          *
          * @param address the address and port to bind the server to
+         * @param drafts  the protocol drafts, with their extensions, the server accepts
+         */
+        public SimpleWebSocketServer(InetSocketAddress address, List<Draft> drafts) {
+            super(address, drafts);
+        }
+
+        /**
+         * Waits until the server listens, or for at most five seconds.
          */
-        public SimpleWebSocketServer(InetSocketAddress address) {
-            super(address);
+        void awaitStart() {
+            try {
+                started.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
 
         /**
@@ -64,6 +592,10 @@ public class WebSocketOutputStrategy implements OutputStrategy {
          */
         @Override
         public void onOpen(WebSocket conn, org.java_websocket.handshake.ClientHandshake handshake) {
+            String replayFrom = handshake.hasFieldValue(REPLAY_HEADER)
+                    ? handshake.getFieldValue(REPLAY_HEADER).trim()
+                    : null;
+            register(conn, replayFrom);
             System.out.println("New connection: " + conn.getRemoteSocketAddress());
         }
 
@@ -77,19 +609,34 @@ public class WebSocketOutputStrategy implements OutputStrategy {
          */
         @Override
         public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            connections.remove(conn);
+            subscriptions.remove(conn);
             System.out.println("Closed connection: " + conn.getRemoteSocketAddress());
         }
 
         /**
-         * Called when a message is received from a client.
-         * (Not used in this implementation since server only sends messages.)
+         * Called when a message is received from a client. A {@link Subscription}
+         * message replaces what the client receives; other messages are ignored.
          *
          * @param conn    the connection that sent the message
          * @param message the message received
          */
         @Override
         public void onMessage(WebSocket conn, String message) {
-            // Not used in this context
+            if (!Subscription.isSubscribeMessage(message)) {
+                return;
+            }
+            try {
+                Subscription subscription = Subscription.parse(message);
+                if (subscription.isAll()) {
+                    subscriptions.remove(conn);
+                } else {
+                    subscriptions.put(conn, subscription);
+                }
+                System.out.println("Subscription of " + conn.getRemoteSocketAddress() + ": " + subscription.toMessage());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid subscription from " + conn.getRemoteSocketAddress() + ": " + e.getMessage());
+            }
         }
 
         /**
@@ -101,6 +648,10 @@ public class WebSocketOutputStrategy implements OutputStrategy {
         @Override
         public void onError(WebSocket conn, Exception ex) {
             ex.printStackTrace();
+            if (conn == null) {
+                // The server itself failed, e.g. the port is in use; stop waiting for it
+                started.countDown();
+            }
         }
 
         /**
@@ -109,6 +660,7 @@ public class WebSocketOutputStrategy implements OutputStrategy {
         @Override
         public void onStart() {
             System.out.println("Server started successfully");
+            started.countDown();
         }
     }
 }
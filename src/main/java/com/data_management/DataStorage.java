@@ -1,20 +1,28 @@
 package com.data_management;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.alerts.AlertEvaluationScheduler;
 import com.alerts.AlertGenerator;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.ConsoleAlertSink;
 
 /**
  * Manages storage and retrieval of patient data within a healthcare monitoring
  * system.
  * This class serves as a repository for all patient records, organized by
  * patient IDs.
+ * <p>
+ * The storage can be shared by several ingestion threads (e.g. multiple
+ * WebSocket clients or data readers) and alert-evaluation threads. Patients
+ * are indexed in a concurrent map, and each patient's series accepts appends
+ * without blocking readers.
  */
 public class DataStorage {
-    private static DataStorage instance;
+    private static volatile DataStorage instance;
 
     private Map<Integer, Patient> patientMap; // Stores patient objects indexed by their unique patient ID.
 
@@ -24,14 +32,21 @@ public class DataStorage {
      * structure.
      */
     public DataStorage() {
-        this.patientMap = new HashMap<>();
+        this.patientMap = new ConcurrentHashMap<>();
     }
 
     public static DataStorage getInstance() {
-        if (instance == null) {
-            instance = new DataStorage();
+        DataStorage current = instance;
+        if (current == null) {
+            synchronized (DataStorage.class) {
+                current = instance;
+                if (current == null) {
+                    current = new DataStorage();
+                    instance = current;
+                }
+            }
         }
-        return instance;
+        return current;
     }
 
     public static synchronized void setInstance(DataStorage testInstance) {
@@ -54,12 +69,54 @@ public class DataStorage {
     public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
         Patient patient = patientMap.get(patientId);
         if (patient == null) {
-            patient = new Patient(patientId);
-            patientMap.put(patientId, patient);
+            patient = patientMap.computeIfAbsent(patientId, Patient::new);
         }
         patient.addRecord(measurementValue, recordType, timestamp);
     }
 
+    /**
+     * Adds a batch of measurements in one call. The arrays are read in
+     * parallel: row {@code i} is made of {@code patientIds[i]},
+     * {@code measurementValues[i]}, {@code recordTypes[i]} and
+     * {@code timestamps[i]}.
+     *
+     * @param patientIds        the patient ID of each row
+     * @param measurementValues the measured value of each row
+     * @param recordTypes       the record type of each row
+     * @param timestamps        the timestamp of each row, in milliseconds since
+     *                          the Unix epoch
+     */
+    public void addPatientData(int[] patientIds, double[] measurementValues, String[] recordTypes, long[] timestamps) {
+        addPatientData(patientIds, measurementValues, recordTypes, timestamps, patientIds.length);
+    }
+
+    /**
+     * Adds the first {@code count} rows of a batch of measurements, so callers
+     * can reuse partially filled buffers. Consecutive rows for the same patient
+     * reuse the previous lookup.
+     *
+     * @param patientIds        the patient ID of each row
+     * @param measurementValues the measured value of each row
+     * @param recordTypes       the record type of each row
+     * @param timestamps        the timestamp of each row, in milliseconds since
+     *                          the Unix epoch
+     * @param count             the number of rows to add, starting at index 0
+     */
+    public void addPatientData(int[] patientIds, double[] measurementValues, String[] recordTypes, long[] timestamps,
+                               int count) {
+        Patient patient = null;
+        for (int i = 0; i < count; i++) {
+            int patientId = patientIds[i];
+            if (patient == null || patient.getPatientId() != patientId) {
+                patient = patientMap.get(patientId);
+                if (patient == null) {
+                    patient = patientMap.computeIfAbsent(patientId, Patient::new);
+                }
+            }
+            patient.addRecord(measurementValues[i], recordTypes[i], timestamps[i]);
+        }
+    }
+
     /**
      * Retrieves a list of PatientRecord objects for a specific patient, filtered by
      * a time range.
@@ -81,6 +138,31 @@ public class DataStorage {
         return new ArrayList<>(); // return an empty list if no patient is found
     }
 
+    /**
+     * Retrieves min/max/average aggregates of one record type of a patient,
+     * e.g. for a trend chart. The coarsest rollup tier (1 second, 1 minute or
+     * 1 hour) whose buckets are no longer than {@code resolution} is used, so
+     * a 24 hour range at a resolution of one minute returns about 1,440
+     * buckets.
+     *
+     * @param patientId  the unique identifier of the patient
+     * @param recordType the type of record, e.g. "Saturation"
+     * @param startTime  the exclusive start of the time range, in milliseconds
+     *                   since the Unix epoch
+     * @param endTime    the exclusive end of the time range, in milliseconds
+     *                   since the Unix epoch
+     * @param resolution the longest bucket the caller can use, in milliseconds
+     * @return a time-ordered view of the buckets; empty if the patient is unknown
+     */
+    public RollupSeries.View getRollup(int patientId, String recordType, long startTime, long endTime,
+                                       long resolution) {
+        Patient patient = getPatient(patientId);
+        if (patient != null) {
+            return patient.getRollup(recordType, startTime, endTime, resolution);
+        }
+        return RollupSeries.emptyView(resolution);
+    }
+
     /**
      * Retrieves a collection of all patients stored in the data storage.
      *
@@ -123,12 +205,15 @@ public class DataStorage {
                     ", Timestamp: " + record.getTimestamp());
         }
 
-        // Initialize the AlertGenerator with the storage
+        // Initialize the AlertGenerator with the storage; alerts are printed on a separate thread
+        AlertDispatcher dispatcher = new AlertDispatcher(new ConsoleAlertSink());
         AlertGenerator alertGenerator = new AlertGenerator(storage);
+        alertGenerator.setDispatcher(dispatcher);
 
-        // Evaluate all patients' data to check for conditions that may trigger alerts
-        for (Patient patient : storage.getAllPatients()) {
-            alertGenerator.evaluateData(patient);
-        }
+        // Evaluate all patients' data in parallel to check for conditions that may trigger alerts
+        AlertEvaluationScheduler scheduler = new AlertEvaluationScheduler(storage, alertGenerator);
+        scheduler.runCycle();
+        scheduler.shutdown();
+        dispatcher.close();
     }
 }
@@ -1,11 +1,24 @@
 package com.data_management;
 
+import com.cardio_generator.outputs.BinaryRecordCodec;
+
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 
+/**
+ * Reads patient data written by the simulator's file output. Files ending in
+ * {@code .bin} are read as {@link BinaryRecordCodec} frames, all other files as
+ * text lines.
+ */
 public class FileDataReader implements DataReader {
 
+    // Number of parsed rows handed to the storage per bulk insert
+    private static final int BATCH_SIZE = 4096;
+
     private final String path;
 
     public FileDataReader(String path) {
@@ -14,23 +27,70 @@ public class FileDataReader implements DataReader {
 
     @Override
     public void readData(DataStorage dataStorage) throws IOException {
-        FileReader fileReader = new FileReader(path);
-        BufferedReader reader = new BufferedReader(fileReader);
-
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String[] parts = line.split(",");
-            int patientId = Integer.parseInt(parts[0].split(": ")[1]);
-            long patientTimestamp = Long.parseLong(parts[1].split(": ")[1]);
-            String patientLabel = parts[2].split(": ")[1];
-            double patientData;
-            if (patientLabel.equals("Saturation")) {
-                String s = parts[3].split(": ")[1];
-                patientData = Double.parseDouble(s.substring(0, s.length() - 1));
-            } else {
-                patientData = Double.parseDouble(parts[3].split(": ")[1]);
+        if (path.endsWith(".bin")) {
+            readBinary(dataStorage);
+            return;
+        }
+        int[] patientIds = new int[BATCH_SIZE];
+        long[] timestamps = new long[BATCH_SIZE];
+        String[] labels = new String[BATCH_SIZE];
+        double[] values = new double[BATCH_SIZE];
+        int count = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                int patientId = Integer.parseInt(parts[0].split(": ")[1]);
+                long patientTimestamp = Long.parseLong(parts[1].split(": ")[1]);
+                String patientLabel = parts[2].split(": ")[1];
+                double patientData;
+                if (patientLabel.equals("Saturation")) {
+                    String s = parts[3].split(": ")[1];
+                    patientData = Double.parseDouble(s.substring(0, s.length() - 1));
+                } else {
+                    patientData = Double.parseDouble(parts[3].split(": ")[1]);
+                }
+
+                patientIds[count] = patientId;
+                timestamps[count] = patientTimestamp;
+                labels[count] = patientLabel;
+                values[count] = patientData;
+                if (++count == BATCH_SIZE) {
+                    dataStorage.addPatientData(patientIds, values, labels, timestamps, count);
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            dataStorage.addPatientData(patientIds, values, labels, timestamps, count);
+        }
+    }
+
+    private void readBinary(DataStorage dataStorage) throws IOException {
+        int[] patientIds = new int[BATCH_SIZE];
+        long[] timestamps = new long[BATCH_SIZE];
+        String[] labels = new String[BATCH_SIZE];
+        double[] values = new double[BATCH_SIZE];
+        int[] count = new int[1];
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            while (BinaryRecordCodec.read(in, (patientId, timestamp, label, value) -> {
+                int i = count[0];
+                patientIds[i] = patientId;
+                timestamps[i] = timestamp;
+                labels[i] = label;
+                values[i] = value;
+                if (++count[0] == BATCH_SIZE) {
+                    dataStorage.addPatientData(patientIds, values, labels, timestamps, BATCH_SIZE);
+                    count[0] = 0;
+                }
+            }) >= 0) {
+                // Frames are handed to the storage in batches by the handler
             }
-            dataStorage.addPatientData(patientId, patientData, patientLabel, patientTimestamp);
+        }
+        if (count[0] > 0) {
+            dataStorage.addPatientData(patientIds, values, labels, timestamps, count[0]);
         }
     }
 }
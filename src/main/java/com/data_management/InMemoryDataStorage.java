@@ -1,49 +1,89 @@
 package com.data_management;
 
-import com.data_management.DataStorage;
-import com.data_management.Patient;
-
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * A single-threaded {@link DataStorage} that indexes patients in a primitive
+ * int-keyed hash map, so looking up a patient costs the same no matter how
+ * many patients are stored.
+ * <p>
+ * This class is not thread-safe; use {@link DataStorage} when several threads
+ * ingest data at once.
+ */
 public class InMemoryDataStorage extends DataStorage {
+    private final IntPatientMap patientIndex = new IntPatientMap();
     private final List<Patient> patients = new ArrayList<>();
 
     @Override
     public void addPatientData(int patientId, double measurementValue, String recordType, long timestamp) {
-        Patient patient = getPatient(patientId);
-        if (patient == null) {
-            patient = new Patient(patientId);
-            patients.add(patient);
-        }
-        patient.addRecord(measurementValue, recordType, timestamp);
+        getOrCreatePatient(patientId).addRecord(measurementValue, recordType, timestamp);
     }
 
+    /**
+     * Adds a batch of measurements in one call. Consecutive rows for the same
+     * patient reuse the previous lookup.
+     *
+     * @param patientIds        the patient ID of each row
+     * @param measurementValues the measured value of each row
+     * @param recordTypes       the record type of each row
+     * @param timestamps        the timestamp of each row, in milliseconds since
+     *                          the Unix epoch
+     * @param count             the number of rows to add, starting at index 0
+     */
     @Override
-    public Patient getPatient(int id) {
-        for (Patient patient : patients) {
-            if (patient.getPatientId() == id) {
-                return patient;
+    public void addPatientData(int[] patientIds, double[] measurementValues, String[] recordTypes, long[] timestamps,
+                               int count) {
+        Patient patient = null;
+        for (int i = 0; i < count; i++) {
+            int patientId = patientIds[i];
+            if (patient == null || patient.getPatientId() != patientId) {
+                patient = getOrCreatePatient(patientId);
             }
+            patient.addRecord(measurementValues[i], recordTypes[i], timestamps[i]);
         }
-        return null;
+    }
+
+    @Override
+    public List<PatientRecord> getRecords(int patientId, long startTime, long endTime) {
+        Patient patient = patientIndex.get(patientId);
+        if (patient != null) {
+            return patient.getRecords(startTime, endTime);
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Patient getPatient(int id) {
+        return patientIndex.get(id);
     }
 
     @Override
     public List<Patient> getAllPatients() {
-        return patients;
+        return Collections.unmodifiableList(patients);
+    }
+
+    @Override
+    public void clear() {
+        patientIndex.clear();
+        patients.clear();
     }
 
     public void addPatient(Patient patient) {
-        if (getPatient(patient.getPatientId()) == null) {
+        if (patientIndex.get(patient.getPatientId()) == null) {
+            patientIndex.put(patient.getPatientId(), patient);
             patients.add(patient);
         }
     }
-}
-
 
-//public class InMemoryDataStorage extends DataStorage {
-//    public InMemoryDataStorage() {
-//        super();
-//    }
-//}
\ No newline at end of file
+    private Patient getOrCreatePatient(int patientId) {
+        Patient patient = patientIndex.get(patientId);
+        if (patient == null) {
+            patient = new Patient(patientId);
+            patientIndex.put(patientId, patient);
+            patients.add(patient);
+        }
+        return patient;
+    }
+}
@@ -0,0 +1,99 @@
+package com.data_management;
+
+/**
+ * A small open-addressing hash map from primitive {@code int} patient IDs to
+ * {@link Patient} objects.
+ * <p>
+ * Keys are stored in an {@code int[]} and probed linearly, so a lookup never
+ * boxes the ID or allocates. This class is not thread-safe.
+ */
+class IntPatientMap {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] keys;
+    private Patient[] values;
+    private int size;
+    private int mask;
+
+    IntPatientMap() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Patient[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * Returns the patient stored for the given ID.
+     *
+     * @param patientId the unique identifier of the patient
+     * @return the patient, or {@code null} if there is none
+     */
+    Patient get(int patientId) {
+        int index = indexFor(patientId);
+        Patient value;
+        while ((value = values[index]) != null) {
+            if (keys[index] == patientId) {
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Stores a patient under its ID, replacing any previous entry.
+     *
+     * @param patientId the unique identifier of the patient
+     * @param patient   the patient to store, must not be {@code null}
+     */
+    void put(int patientId, Patient patient) {
+        int index = indexFor(patientId);
+        while (values[index] != null) {
+            if (keys[index] == patientId) {
+                values[index] = patient;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = patientId;
+        values[index] = patient;
+        // Keep the load factor at or below one half
+        if (++size * 2 > values.length) {
+            resize();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Patient[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+        size = 0;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Patient[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Patient[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexFor(oldKeys[i]);
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private int indexFor(int key) {
+        // Fibonacci hashing spreads sequential IDs across the table
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,478 @@
+package com.data_management;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A high-throughput reader for the text files written by
+ * {@link com.cardio_generator.outputs.FileOutputStrategy}, meant for replaying
+ * large archives.
+ * <p>
+ * Each file is memory-mapped and split into chunks that end on a line break.
+ * The chunks are parsed in parallel straight from the mapped bytes: numbers
+ * are decoded digit by digit and labels are matched against the labels seen
+ * before, so no intermediate Strings are created per line. The parsed columns
+ * are then added to the storage with bulk inserts in file order, so the
+ * result is the same as with {@link FileDataReader}.
+ * <p>
+ * The path may be a single file or a directory, in which case every
+ * {@code .txt} file in it is read. Lines that do not match the
+ * {@code "Patient ID: .., Timestamp: .., Label: .., Data: .."} layout are
+ * skipped and counted.
+ */
+public class MappedFileDataReader implements DataReader {
+
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = 256 << 20;
+    // Chunks per worker thread, so faster workers can pick up the slack of slower ones
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Doubles with at most this many significant digits are parsed without Double.parseDouble
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final Path path;
+    private final int parallelism;
+    private final int chunkBytes;
+    // Only records in this time range (inclusive) and of these patients are kept
+    private final long startTime;
+    private final long endTime;
+    private final BitSet patientFilter;
+    // Shared across chunks so every record of a label uses the same String
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+    private volatile long skippedLines;
+
+    /**
+     * Creates a reader that uses one thread per available processor.
+     *
+     * @param path the file or directory to read
+     */
+    public MappedFileDataReader(String path) {
+        this(path, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * Creates a reader with a fixed number of threads and chunk size.
+     *
+     * @param path        the file or directory to read
+     * @param parallelism the number of threads that parse chunks
+     * @param chunkBytes  the approximate size of a chunk in bytes, or 0 to
+     *                    derive it from the file size
+     */
+    public MappedFileDataReader(String path, int parallelism, int chunkBytes) {
+        this(path, parallelism, chunkBytes, Long.MIN_VALUE, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates a reader that only keeps the records of a time range and,
+     * optionally, of some patients.
+     *
+     * @param path          the file or directory to read
+     * @param parallelism   the number of threads that parse chunks
+     * @param chunkBytes    the approximate size of a chunk in bytes, or 0 to
+     *                      derive it from the file size
+     * @param startTime     the inclusive start of the time range
+     * @param endTime       the inclusive end of the time range
+     * @param patientFilter the patient IDs to keep, or {@code null} for all
+     */
+    MappedFileDataReader(String path, int parallelism, int chunkBytes, long startTime, long endTime,
+                         BitSet patientFilter) {
+        if (parallelism < 1 || chunkBytes < 0) {
+            throw new IllegalArgumentException("Invalid parallelism " + parallelism + " or chunk size " + chunkBytes);
+        }
+        this.path = Paths.get(path);
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.patientFilter = patientFilter;
+    }
+
+    @Override
+    public void readData(DataStorage dataStorage) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> entries = Files.list(path)) {
+                files = entries.filter(file -> file.toString().endsWith(".txt")).sorted().collect(Collectors.toList());
+            }
+        } else {
+            files = Arrays.asList(path);
+        }
+        readFiles(files, dataStorage);
+    }
+
+    /**
+     * Reads the given files one after the other, sharing one thread pool.
+     *
+     * @param files       the files to read
+     * @param dataStorage the storage to add the records to
+     * @throws IOException if a file cannot be read
+     */
+    void readFiles(List<Path> files, DataStorage dataStorage) throws IOException {
+        skippedLines = 0;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (Path file : files) {
+                readFile(file, dataStorage, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (skippedLines > 0) {
+            System.err.println("Skipped " + skippedLines + " malformed lines in " + path);
+        }
+    }
+
+    /**
+     * Returns the number of lines skipped by the last {@link #readData} call
+     * because they were malformed.
+     *
+     * @return the number of skipped lines
+     */
+    public long getSkippedLines() {
+        return skippedLines;
+    }
+
+    private void readFile(Path file, DataStorage dataStorage, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            List<Future<Chunk>> chunks = new ArrayList<>();
+            long start = 0;
+            long targetBytes = chunkBytes > 0 ? chunkBytes
+                    : Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / ((long) parallelism * CHUNKS_PER_THREAD)));
+            while (start < size) {
+                long end = nextLineStart(channel, Math.min(size, start + targetBytes), size);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                chunks.add(pool.submit(() -> parse(buffer)));
+                start = end;
+            }
+
+            // Insert in file order while later chunks are still being parsed
+            for (Future<Chunk> future : chunks) {
+                Chunk chunk = future.get();
+                dataStorage.addPatientData(chunk.patientIds, chunk.values, chunk.labels, chunk.timestamps, chunk.count);
+                skippedLines += chunk.skipped;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse " + file, e.getCause());
+        }
+    }
+
+    /**
+     * Returns the position just after the first line break at or after
+     * {@code position}, or {@code size} if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private Chunk parse(ByteBuffer buffer) {
+        Chunk chunk = new Chunk(Math.max(16, buffer.limit() / 64));
+        int limit = buffer.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (!parseLine(buffer, pos, lineEnd, chunk)) {
+                // Blank lines, e.g. a trailing line break, are not counted as malformed
+                if (!isBlank(buffer, pos, lineEnd)) {
+                    chunk.skipped++;
+                }
+            }
+            pos = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses one {@code "Patient ID: 1, Timestamp: 2, Label: ECG, Data: 0.5"}
+     * line between {@code start} and {@code end} into the chunk.
+     *
+     * @return {@code false} if the line is malformed
+     */
+    private boolean parseLine(ByteBuffer buffer, int start, int end, Chunk chunk) {
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        // Patient ID
+        int pos = valueStart(buffer, start, end);
+        int fieldEnd = fieldEnd(buffer, pos, end);
+        if (pos < 0 || fieldEnd == pos) {
+            return false;
+        }
+        long patientId = parseLong(buffer, pos, fieldEnd);
+        if (patientId < Integer.MIN_VALUE || patientId > Integer.MAX_VALUE) {
+            return false;
+        }
+        // Timestamp
+        pos = valueStart(buffer, fieldEnd, end);
+        fieldEnd = fieldEnd(buffer, pos, end);
+        if (pos < 0 || fieldEnd == pos) {
+            return false;
+        }
+        long timestamp = parseLong(buffer, pos, fieldEnd);
+        if (timestamp == Long.MIN_VALUE) {
+            return false;
+        }
+        // Label
+        pos = valueStart(buffer, fieldEnd, end);
+        fieldEnd = fieldEnd(buffer, pos, end);
+        if (pos < 0 || fieldEnd == pos) {
+            return false;
+        }
+        String label = chunk.label(buffer, pos, fieldEnd, labels);
+        // Data, with the "%" of saturation values stripped
+        pos = valueStart(buffer, fieldEnd, end);
+        if (pos < 0) {
+            return false;
+        }
+        int dataEnd = end;
+        while (dataEnd > pos && (buffer.get(dataEnd - 1) == ' ' || buffer.get(dataEnd - 1) == '%')) {
+            dataEnd--;
+        }
+        if (dataEnd == pos) {
+            return false;
+        }
+        double value = parseDouble(buffer, pos, dataEnd);
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        if (timestamp >= startTime && timestamp <= endTime
+                && (patientFilter == null || (patientId >= 0 && patientFilter.get((int) patientId)))) {
+            chunk.add((int) patientId, timestamp, label, value);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the position after the next {@code ": "} at or after
+     * {@code pos}, or -1 if there is none before {@code end}.
+     */
+    private static int valueStart(ByteBuffer buffer, int pos, int end) {
+        if (pos < 0) {
+            return -1;
+        }
+        for (int i = pos; i < end; i++) {
+            if (buffer.get(i) == ':') {
+                return i + 1 < end && buffer.get(i + 1) == ' ' ? i + 2 : i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the next {@code ','} at or after {@code pos}, or
+     * {@code end} if there is none.
+     */
+    private static int fieldEnd(ByteBuffer buffer, int pos, int end) {
+        if (pos < 0) {
+            return -1;
+        }
+        int i = pos;
+        while (i < end && buffer.get(i) != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\r' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a signed decimal integer.
+     *
+     * @return the value, or {@code Long.MIN_VALUE} if the bytes are not a
+     * number or overflow
+     */
+    private static long parseLong(ByteBuffer buffer, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (buffer.get(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        if (pos == end) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number. Plain numbers with at most
+     * {@value #MAX_FAST_DIGITS} significant digits are computed directly,
+     * which is exact because both the digits and the power of ten are exact
+     * doubles. Anything else, e.g. exponents, falls back to
+     * {@link Double#parseDouble}.
+     *
+     * @return the value, or {@code NaN} if the bytes are not a number
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        byte first = buffer.get(pos);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean fast = pos < end;
+        for (; pos < end; pos++) {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+                if (digits > MAX_FAST_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                    fast = false;
+                    break;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                fast = false;
+                break;
+            }
+        }
+        if (fast && (digits > 0 || fractionDigits != 0)) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * The parsed rows of one chunk, in columns ready for a bulk insert.
+     */
+    private static final class Chunk {
+        int[] patientIds;
+        long[] timestamps;
+        String[] labels;
+        double[] values;
+        int count;
+        int skipped;
+        // Bytes of the most recent label; files are usually written per label
+        private byte[] lastLabelBytes = new byte[0];
+        private String lastLabel;
+
+        Chunk(int capacity) {
+            patientIds = new int[capacity];
+            timestamps = new long[capacity];
+            labels = new String[capacity];
+            values = new double[capacity];
+        }
+
+        void add(int patientId, long timestamp, String label, double value) {
+            if (count == patientIds.length) {
+                int capacity = count * 2;
+                patientIds = Arrays.copyOf(patientIds, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            patientIds[count] = patientId;
+            timestamps[count] = timestamp;
+            labels[count] = label;
+            values[count] = value;
+            count++;
+        }
+
+        String label(ByteBuffer buffer, int start, int end, Map<String, String> shared) {
+            int length = end - start;
+            if (length == lastLabelBytes.length) {
+                boolean same = true;
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(start + i) != lastLabelBytes[i]) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    return lastLabel;
+                }
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            String label = new String(bytes, StandardCharsets.UTF_8).trim();
+            lastLabelBytes = bytes;
+            lastLabel = shared.computeIfAbsent(label, key -> key);
+            return lastLabel;
+        }
+    }
+}
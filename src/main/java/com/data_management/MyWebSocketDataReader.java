@@ -1,13 +1,44 @@
 package com.data_management;
 
 import com.cardio_generator.SimpleVersWebSocket;
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import org.java_websocket.handshake.ServerHandshake;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Reads patient data from a {@link WebSocketOutputStrategy} server into a
+ * {@link DataStorage}.
+ * <p>
+ * The reader stays connected: when the connection is lost, or the server is
+ * not up yet, it tries again after a delay that doubles with every failed
+ * attempt, up to a maximum. The reader keeps the sequence number the server
+ * gave the samples it stored, and reconnects with the
+ * {@value WebSocketOutputStrategy#REPLAY_HEADER} header, so the server replays
+ * exactly the samples it missed and a short network outage does not leave
+ * holes or duplicates in the data.
+ */
 public class MyWebSocketDataReader implements DataReader {
+    public static final long DEFAULT_INITIAL_BACKOFF_MS = 500;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 30_000;
 
     private final String websocketUrl;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService reconnector;
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean();
+    private final AtomicInteger reconnects = new AtomicInteger();
+    private volatile ReconnectingClient client;
+    private volatile long backoffMs;
+    private volatile boolean closed;
 
     /**
      * Constructs a new WebSocketDataReader with the specified WebSocket server URL.
@@ -16,31 +47,206 @@ public class MyWebSocketDataReader implements DataReader {
      */
 
     public MyWebSocketDataReader(String websocketUrl) {
+        this(websocketUrl, DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS);
+    }
+
+    /**
+     * Constructs a new WebSocketDataReader with custom reconnect delays.
+     *
+     * @param websocketUrl     the URL of the WebSocket server
+     * @param initialBackoffMs the delay before the first reconnect attempt
+     * @param maxBackoffMs     the longest delay between two reconnect attempts
+     */
+    public MyWebSocketDataReader(String websocketUrl, long initialBackoffMs, long maxBackoffMs) {
+        if (initialBackoffMs <= 0 || maxBackoffMs < initialBackoffMs) {
+            throw new IllegalArgumentException("Backoff must be positive and not exceed the maximum");
+        }
         this.websocketUrl = websocketUrl;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.backoffMs = initialBackoffMs;
+        this.reconnector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
-     * Connects to the WebSocket server and starts receiving data.
-     * Received data is passed to a {@link SimpleVersWebSocket}, which adds it to the provided {@link DataStorage} instance.
+     * Connects to the WebSocket server and starts receiving data into the
+     * provided {@link DataStorage} instance. If the server cannot be reached,
+     * the reader keeps trying in the background.
      *
      * @param dataStorage the {@link DataStorage} instance to populate with incoming data
-     * @throws IOException if there is a failure connecting to the WebSocket server or processing the URI
+     * @throws IOException if the URI is invalid or the reader was closed
      */
     @Override
     public void readData(DataStorage dataStorage) throws IOException {
+        if (closed) {
+            throw new IOException("Reader is closed");
+        }
+        URI uri;
+        try {
+            uri = new URI(websocketUrl);
+        } catch (URISyntaxException e) {
+            throw new IOException("Failed to connect to WebSocket server", e);
+        }
+        if (uri.getHost() == null) {
+            throw new IOException("Failed to connect to WebSocket server: no host in " + websocketUrl);
+        }
         // sets up to read data that is sent to the server
+        client = new ReconnectingClient(uri, dataStorage);
+        client.requestReplay();
         try {
+            // A failed attempt closes the client, which schedules the next one
+            client.connectBlocking(initialBackoffMs * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while connecting to WebSocket server", e);
+        }
+    }
 
-            URI uri = new URI(websocketUrl);
+    /**
+     * Returns whether the reader is connected to the server.
+     *
+     * @return {@code true} if the connection is open
+     */
+    public boolean isConnected() {
+        SimpleVersWebSocket current = client;
+        return current != null && current.isOpen();
+    }
 
-            SimpleVersWebSocket client = new SimpleVersWebSocket(uri);
+    /**
+     * Returns the number of times the reader connected again after losing the
+     * connection.
+     *
+     * @return the reconnect count
+     */
+    public int getReconnectCount() {
+        return reconnects.get();
+    }
 
-            client.connectBlocking();
+    /**
+     * Closes the connection and stops reconnecting.
+     */
+    public void close() {
+        closed = true;
+        reconnector.shutdownNow();
+        SimpleVersWebSocket current = client;
+        if (current != null) {
+            current.close();
+        }
+    }
 
-        } catch (Exception e) {
+    private void scheduleReconnect() {
+        if (closed || !reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+        System.out.println(">> Reconnecting to " + websocketUrl + " in " + delay + " ms");
+        try {
+            reconnector.schedule(this::reconnect, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Closed in the meantime
+            reconnectScheduled.set(false);
+        }
+    }
 
-            throw new IOException("Failed to connect to WebSocket server", e);
+    private void reconnect() {
+        reconnectScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        try {
+            client.requestReplay();
+            // A failed attempt closes the client again, which schedules the next one
+            client.reconnectBlocking();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("!! Reconnect failed: " + e.getMessage());
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * The client of the reader, which tracks the sequence number of the
+     * samples it stored, asks for a replay when it connects and for a
+     * reconnect when it is closed.
+     */
+    private final class ReconnectingClient extends SimpleVersWebSocket {
+        private boolean connectedBefore;
+        // The sequence number of the first sample not stored yet, or -1 before the server sent one
+        private volatile long nextSequence = -1;
+        // The sequence number after the message that arrives next; only touched by the reading thread
+        private long pendingSequence = -1;
+
+        ReconnectingClient(URI endpoint, DataStorage storage) {
+            super(endpoint, storage);
+        }
+
+        /**
+         * Sets the replay header of the next connect to the first sample that
+         * was not stored.
+         */
+        void requestReplay() {
+            long next = nextSequence;
+            addHeader(WebSocketOutputStrategy.REPLAY_HEADER,
+                    next < 0 ? WebSocketOutputStrategy.REPLAY_LIVE : Long.toString(next));
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshakeData) {
+            super.onOpen(handshakeData);
+            backoffMs = initialBackoffMs;
+            pendingSequence = -1;
+            if (connectedBefore) {
+                reconnects.incrementAndGet();
+            }
+            connectedBefore = true;
+        }
+
+        @Override
+        public void onMessage(String msg) {
+            if (msg.startsWith(WebSocketOutputStrategy.SEQUENCE_MARKER + " ")) {
+                try {
+                    long sequence = Long.parseLong(msg.substring(WebSocketOutputStrategy.SEQUENCE_MARKER.length() + 1));
+                    if (nextSequence < 0) {
+                        // Where a client without samples starts
+                        nextSequence = sequence;
+                    } else {
+                        pendingSequence = sequence;
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("!! Invalid sequence marker: " + msg);
+                }
+                return;
+            }
+            super.onMessage(msg);
+            stored();
+        }
+
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            super.onMessage(bytes);
+            stored();
+        }
+
+        /**
+         * Moves the sequence number past a message once its samples are stored.
+         */
+        private void stored() {
+            if (pendingSequence >= 0) {
+                nextSequence = pendingSequence;
+                pendingSequence = -1;
+            }
+        }
 
+        @Override
+        public void onClose(int statusCode, String reason, boolean byRemote) {
+            super.onClose(statusCode, reason, byRemote);
+            scheduleReconnect();
         }
     }
 }
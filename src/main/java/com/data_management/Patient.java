@@ -1,28 +1,35 @@
 package com.data_management;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a patient and manages their medical records.
  * This class stores patient-specific data, allowing for the addition and
  * retrieval
  * of medical records based on specified criteria.
+ * <p>
+ * Records are kept in one time-ordered {@link RecordSeries} per record type,
+ * so range queries for a single type only touch that type's data. Records may
+ * be added and queried from different threads at the same time.
  */
 public class Patient {
     private int patientId;
-    private List<PatientRecord> patientRecords;
+    private Map<String, RecordSeries> seriesByType;
 
     /**
      * Constructs a new Patient with a specified ID.
-     * Initializes an empty list of patient records.
+     * Initializes an empty set of record series.
      *
      * @param patientId the unique identifier for the patient
      */
     public Patient(int patientId) {
         this.patientId = patientId;
-        this.patientRecords = new ArrayList<>();
+        this.seriesByType = new ConcurrentHashMap<>();
     }
 
     /**
@@ -37,8 +44,11 @@ public class Patient {
      *                         milliseconds since UNIX epoch
      */
     public void addRecord(double measurementValue, String recordType, long timestamp) {
-        PatientRecord record = new PatientRecord(this.patientId, measurementValue, recordType, timestamp);
-        this.patientRecords.add(record);
+        RecordSeries series = seriesByType.get(recordType);
+        if (series == null) {
+            series = seriesByType.computeIfAbsent(recordType, type -> new RecordSeries(this.patientId, type));
+        }
+        series.add(measurementValue, timestamp);
     }
 
     /**
@@ -53,13 +63,94 @@ public class Patient {
      * range
      */
     public List<PatientRecord> getRecords(long startTime, long endTime) {
-        List<PatientRecord> records = new ArrayList<>();
-        for (PatientRecord record : this.patientRecords) {
-            if (record.getTimestamp() > startTime && record.getTimestamp() < endTime) {
-                records.add(record);
+        List<RecordSeries.View> views = new ArrayList<>(seriesByType.size());
+        int total = 0;
+        for (RecordSeries series : seriesByType.values()) {
+            RecordSeries.View view = series.range(startTime, endTime);
+            if (!view.isEmpty()) {
+                views.add(view);
+                total += view.size();
             }
         }
-        return records; // temporary placeholder
+        if (views.size() == 1) {
+            return new ArrayList<>(views.get(0));
+        }
+
+        // Merge the per-type series back into a single timestamp-ordered list
+        List<PatientRecord> records = new ArrayList<>(total);
+        int[] positions = new int[views.size()];
+        for (int n = 0; n < total; n++) {
+            int next = -1;
+            long nextTimestamp = Long.MAX_VALUE;
+            for (int v = 0; v < views.size(); v++) {
+                RecordSeries.View view = views.get(v);
+                if (positions[v] < view.size() && (next == -1 || view.getTimestamp(positions[v]) < nextTimestamp)) {
+                    next = v;
+                    nextTimestamp = view.getTimestamp(positions[v]);
+                }
+            }
+            records.add(views.get(next).get(positions[next]++));
+        }
+        return records;
+    }
+
+    /**
+     * Retrieves the records of a single type that fall within a specified time
+     * range. The returned list is a read-only view over the patient's stored
+     * series; no records are copied.
+     *
+     * @param recordType the type of record, e.g. "Saturation"
+     * @param startTime  the exclusive start of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param endTime    the exclusive end of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @return a timestamp-ordered view of the matching records
+     */
+    public List<PatientRecord> getRecords(String recordType, long startTime, long endTime) {
+        RecordSeries series = seriesByType.get(recordType);
+        if (series == null) {
+            return Collections.emptyList();
+        }
+        return series.range(startTime, endTime);
+    }
+
+    /**
+     * Returns aggregates of the records of a single type over a time range,
+     * instead of every record. See {@link RecordSeries#rollup}.
+     *
+     * @param recordType the type of record, e.g. "Saturation"
+     * @param startTime  the exclusive start of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param endTime    the exclusive end of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param resolution the longest bucket the caller can use, in milliseconds
+     * @return a time-ordered view of the buckets
+     */
+    public RollupSeries.View getRollup(String recordType, long startTime, long endTime, long resolution) {
+        RecordSeries series = seriesByType.get(recordType);
+        if (series == null) {
+            return RollupSeries.emptyView(resolution);
+        }
+        return series.rollup(startTime, endTime, resolution);
+    }
+
+    /**
+     * Returns the series holding all records of the given type.
+     *
+     * @param recordType the type of record, e.g. "ECG"
+     * @return the series, or {@code null} if no record of that type was added
+     */
+    public RecordSeries getSeries(String recordType) {
+        return seriesByType.get(recordType);
+    }
+
+    /**
+     * Returns the series of every record type stored for this patient.
+     *
+     * @return an unmodifiable collection of this patient's series
+     */
+    public Collection<RecordSeries> getAllSeries() {
+        return Collections.unmodifiableCollection(seriesByType.values());
     }
 
     public int getPatientId() {
@@ -0,0 +1,324 @@
+package com.data_management;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Stores the measurements of one record type for one patient as a
+ * time-ordered, primitive-backed series.
+ * <p>
+ * Timestamps and values are kept in parallel {@code long[]} and
+ * {@code double[]} arrays sorted by timestamp, so a time range can be located
+ * with two binary searches instead of a scan over every stored record.
+ * Records that arrive in order are appended in place; a record that arrives
+ * out of order rebuilds the arrays, so that views handed out earlier keep
+ * seeing the data they were created over.
+ * <p>
+ * The series is safe for concurrent use: writers are serialized on the
+ * series, while readers never lock. A reader first reads the published size
+ * and then the arrays, which are only ever replaced by longer copies, so it
+ * always sees at least as many valid measurements as the size it read.
+ * <p>
+ * Each added measurement also updates a {@link RollupSeries} per tier, so
+ * aggregates over long time ranges can be read without touching every
+ * measurement. A tier is only kept once two measurements fall into the same
+ * bucket; until then it would hold a copy of the measurements, and is
+ * computed from them when queried instead.
+ */
+public class RecordSeries {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int patientId;
+    private final String recordType;
+    private volatile Columns columns;
+    private volatile int size;
+    // One rollup per tier, finest first; null while the tier would not combine any measurements
+    private volatile RollupSeries[] rollups = new RollupSeries[RollupSeries.TIER_COUNT];
+
+    /**
+     * Creates an empty series for the given patient and record type.
+     *
+     * @param patientId  the unique identifier of the patient
+     * @param recordType the type of record stored in this series, e.g. "ECG"
+     */
+    public RecordSeries(int patientId, String recordType) {
+        this.patientId = patientId;
+        this.recordType = recordType;
+        this.columns = new Columns(new long[INITIAL_CAPACITY], new double[INITIAL_CAPACITY]);
+    }
+
+    /**
+     * Adds a measurement to the series, keeping it ordered by timestamp.
+     * Measurements with equal timestamps keep their insertion order.
+     *
+     * @param measurementValue the measured value
+     * @param timestamp        the time of the measurement, in milliseconds since
+     *                         UNIX epoch
+     */
+    public synchronized void add(double measurementValue, long timestamp) {
+        int n = size;
+        Columns current = columns;
+        if (n == 0 || current.timestamps[n - 1] <= timestamp) {
+            updateRollups(current, n, n, measurementValue, timestamp);
+            if (n == current.timestamps.length) {
+                int capacity = n + (n >> 1);
+                current = new Columns(Arrays.copyOf(current.timestamps, capacity), Arrays.copyOf(current.values, capacity));
+                columns = current;
+            }
+            current.timestamps[n] = timestamp;
+            current.values[n] = measurementValue;
+            size = n + 1;
+            return;
+        }
+
+        // Out-of-order record: copy into fresh arrays so existing views stay intact.
+        int index = upperBound(current.timestamps, n, timestamp);
+        updateRollups(current, n, index, measurementValue, timestamp);
+        int capacity = Math.max(n + 1, current.timestamps.length);
+        long[] newTimestamps = new long[capacity];
+        double[] newValues = new double[capacity];
+        System.arraycopy(current.timestamps, 0, newTimestamps, 0, index);
+        System.arraycopy(current.values, 0, newValues, 0, index);
+        newTimestamps[index] = timestamp;
+        newValues[index] = measurementValue;
+        System.arraycopy(current.timestamps, index, newTimestamps, index + 1, n - index);
+        System.arraycopy(current.values, index, newValues, index + 1, n - index);
+        columns = new Columns(newTimestamps, newValues);
+        size = n + 1;
+    }
+
+    /**
+     * Returns a view of the measurements strictly between {@code startTime} and
+     * {@code endTime}. The view shares the underlying arrays and does not copy
+     * any data.
+     *
+     * @param startTime the exclusive start of the time range, in milliseconds
+     *                  since UNIX epoch
+     * @param endTime   the exclusive end of the time range, in milliseconds
+     *                  since UNIX epoch
+     * @return a view over the matching measurements, ordered by timestamp
+     */
+    public View range(long startTime, long endTime) {
+        int n = size;
+        Columns snapshot = columns;
+        int from = upperBound(snapshot.timestamps, n, startTime);
+        int to = lowerBound(snapshot.timestamps, n, endTime);
+        return new View(snapshot, from, Math.max(from, to));
+    }
+
+    /**
+     * Adds a measurement to the rollups, starting a tier once the measurement
+     * shares a bucket with one of its neighbors.
+     *
+     * @param index where the measurement is going to be inserted
+     */
+    private void updateRollups(Columns current, int n, int index, double measurementValue, long timestamp) {
+        RollupSeries[] tiers = rollups;
+        for (int tier = 0; tier < tiers.length; tier++) {
+            RollupSeries rollup = tiers[tier];
+            if (rollup == null) {
+                long resolution = RollupSeries.tierResolution(tier);
+                long bucket = Math.floorDiv(timestamp, resolution);
+                boolean shared = (index > 0 && Math.floorDiv(current.timestamps[index - 1], resolution) == bucket)
+                        || (index < n && Math.floorDiv(current.timestamps[index], resolution) == bucket);
+                if (!shared) {
+                    continue;
+                }
+                rollup = RollupSeries.of(resolution, current.timestamps, current.values, 0, n);
+                tiers = tiers.clone();
+                tiers[tier] = rollup;
+                rollups = tiers;
+            }
+            rollup.add(measurementValue, timestamp);
+        }
+    }
+
+    /**
+     * Returns the aggregates of the measurements strictly between
+     * {@code startTime} and {@code endTime}, from the coarsest rollup tier
+     * whose buckets are no longer than {@code resolution}. If every tier is
+     * coarser, the finest tier is used.
+     *
+     * @param startTime  the exclusive start of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param endTime    the exclusive end of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param resolution the longest bucket the caller can use, in milliseconds
+     * @return a view over the overlapping buckets, ordered by time
+     */
+    public RollupSeries.View rollup(long startTime, long endTime, long resolution) {
+        int tier = RollupSeries.tierFor(resolution);
+        RollupSeries rollup = rollups[tier];
+        if (rollup != null) {
+            return rollup.range(startTime, endTime);
+        }
+        // Every bucket holds at most one measurement: aggregate the measurements of the overlapping buckets
+        long tierResolution = RollupSeries.tierResolution(tier);
+        long firstBucket = Math.floorDiv(startTime + 1, tierResolution) * tierResolution;
+        long lastBucketEnd = Math.floorDiv(endTime - 1, tierResolution) * tierResolution + tierResolution;
+        int n = size;
+        Columns snapshot = columns;
+        int from = lowerBound(snapshot.timestamps, n, firstBucket);
+        int to = lowerBound(snapshot.timestamps, n, lastBucketEnd);
+        return RollupSeries.of(tierResolution, snapshot.timestamps, snapshot.values, from, Math.max(from, to))
+                .range(startTime, endTime);
+    }
+
+    /**
+     * Returns a view of every measurement from the given position to the end of
+     * the series.
+     *
+     * @param fromIndex the position of the first measurement to include
+     * @return a view over the measurements from {@code fromIndex} onwards
+     */
+    public View from(int fromIndex) {
+        int n = size;
+        return new View(columns, Math.min(fromIndex, n), n);
+    }
+
+    /**
+     * Returns the number of measurements stored in this series.
+     *
+     * @return the series size
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public String getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * The arrays backing a series. A new instance is published whenever the
+     * arrays are replaced, so readers always see a matching pair.
+     */
+    private static final class Columns {
+        private final long[] timestamps;
+        private final double[] values;
+
+        private Columns(long[] timestamps, double[] values) {
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Returns the index of the first element greater than {@code key}.
+     */
+    static int upperBound(long[] array, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first element greater than or equal to {@code key}.
+     */
+    static int lowerBound(long[] array, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A read-only, zero-copy window over a contiguous part of a
+     * {@link RecordSeries}.
+     * <p>
+     * Hot paths should read {@link #getTimestamp(int)} and
+     * {@link #getValue(int)} directly; {@link #get(int)} creates a
+     * {@link PatientRecord} on demand for callers that need the list API.
+     */
+    public final class View extends AbstractList<PatientRecord> implements RandomAccess {
+        private final long[] viewTimestamps;
+        private final double[] viewValues;
+        private final int from;
+        private final int to;
+
+        private View(Columns snapshot, int from, int to) {
+            this.viewTimestamps = snapshot.timestamps;
+            this.viewValues = snapshot.values;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the timestamp of the measurement at the given position.
+         *
+         * @param index the position within this view
+         * @return the timestamp in milliseconds since UNIX epoch
+         */
+        public long getTimestamp(int index) {
+            return viewTimestamps[checkedOffset(index)];
+        }
+
+        /**
+         * Returns the value of the measurement at the given position.
+         *
+         * @param index the position within this view
+         * @return the measurement value
+         */
+        public double getValue(int index) {
+            return viewValues[checkedOffset(index)];
+        }
+
+        /**
+         * Returns the position in the underlying series of the first
+         * measurement of this view.
+         *
+         * @return the inclusive start index in the series
+         */
+        public int startIndex() {
+            return from;
+        }
+
+        /**
+         * Returns the position in the underlying series just after the last
+         * measurement of this view.
+         *
+         * @return the exclusive end index in the series
+         */
+        public int endIndex() {
+            return to;
+        }
+
+        @Override
+        public PatientRecord get(int index) {
+            int offset = checkedOffset(index);
+            return new PatientRecord(patientId, viewValues[offset], recordType, viewTimestamps[offset]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        private int checkedOffset(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return from + index;
+        }
+    }
+}
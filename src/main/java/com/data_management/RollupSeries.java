@@ -0,0 +1,312 @@
+package com.data_management;
+
+/**
+ * Keeps the minimum, maximum, sum and count of the measurements of a
+ * {@link RecordSeries} per time bucket of a fixed resolution, e.g. per minute.
+ * <p>
+ * Every series keeps one rollup per tier ({@value #SECOND} ms, {@value #MINUTE}
+ * ms and {@value #HOUR} ms), updated as records are added, so charts and
+ * trend rules can read a few aggregates instead of every raw record: a
+ * 24 hour trend at minute resolution is 1,440 buckets instead of 86,400
+ * records at 1 Hz.
+ * <p>
+ * Buckets are kept in parallel arrays sorted by their start time, and are
+ * published to readers the same way as in {@link RecordSeries}. A rollup is
+ * only updated by its series, under the series' lock. Only the most recent
+ * bucket is updated in place, so a reader may see it in the middle of an
+ * update, e.g. with the new sum but the previous count. A measurement for an
+ * earlier bucket is added to a copy of the arrays, so views handed out before
+ * keep their values.
+ */
+public class RollupSeries {
+    public static final long SECOND = 1_000;
+    public static final long MINUTE = 60 * SECOND;
+    public static final long HOUR = 60 * MINUTE;
+
+    // Finest first
+    private static final long[] TIERS = {SECOND, MINUTE, HOUR};
+    static final int TIER_COUNT = TIERS.length;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long resolution;
+    private volatile Columns columns;
+    private volatile int size;
+
+    private RollupSeries(long resolution) {
+        this.resolution = resolution;
+        this.columns = new Columns(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a rollup of measurements that are already stored.
+     *
+     * @param resolution the length of a bucket, in milliseconds
+     * @param timestamps the timestamps, in ascending order
+     * @param values     the values, {@code values[i]} taken at {@code timestamps[i]}
+     * @param from       the index of the first measurement to include
+     * @param to         the index after the last measurement to include
+     * @return the rollup
+     */
+    static RollupSeries of(long resolution, long[] timestamps, double[] values, int from, int to) {
+        RollupSeries rollup = new RollupSeries(resolution);
+        for (int i = from; i < to; i++) {
+            rollup.add(values[i], timestamps[i]);
+        }
+        return rollup;
+    }
+
+    /**
+     * Returns the tier used for a requested resolution: the coarsest tier that
+     * is at least as fine as requested, or the finest tier if every tier is
+     * coarser.
+     *
+     * @param requestedResolution the largest bucket the caller can use, in milliseconds
+     * @return the index of the tier
+     */
+    static int tierFor(long requestedResolution) {
+        int tier = 0;
+        while (tier + 1 < TIERS.length && TIERS[tier + 1] <= requestedResolution) {
+            tier++;
+        }
+        return tier;
+    }
+
+    /**
+     * Returns the bucket length of a tier.
+     *
+     * @param tier the index of the tier, finest first
+     * @return the resolution in milliseconds
+     */
+    static long tierResolution(int tier) {
+        return TIERS[tier];
+    }
+
+    /**
+     * Adds a measurement to its bucket. Only called by the owning
+     * {@link RecordSeries}, while it holds its lock, or before the rollup is
+     * shared.
+     *
+     * @param measurementValue the measured value
+     * @param timestamp        the time of the measurement, in milliseconds since
+     *                         UNIX epoch
+     */
+    void add(double measurementValue, long timestamp) {
+        long start = Math.floorDiv(timestamp, resolution) * resolution;
+        int n = size;
+        Columns current = columns;
+        if (n > 0 && current.starts[n - 1] == start) {
+            current.update(n - 1, measurementValue);
+            return;
+        }
+        if (n == 0 || current.starts[n - 1] < start) {
+            if (n == current.starts.length) {
+                current = current.copy(n + (n >> 1), n, n);
+                columns = current;
+            }
+            current.set(n, start, measurementValue);
+            size = n + 1;
+            return;
+        }
+
+        // A record for an earlier bucket: update a copy so existing views stay intact
+        int index = RecordSeries.lowerBound(current.starts, n, start);
+        if (current.starts[index] == start) {
+            Columns updated = current.copy(current.starts.length, n, n);
+            updated.update(index, measurementValue);
+            columns = updated;
+            return;
+        }
+        // A new bucket in the middle: copy into fresh arrays with a gap for it
+        Columns inserted = current.copy(Math.max(n + 1, current.starts.length), index, n);
+        inserted.set(index, start, measurementValue);
+        columns = inserted;
+        size = n + 1;
+    }
+
+    /**
+     * Returns a view of the buckets that overlap the time range strictly
+     * between {@code startTime} and {@code endTime}. The first and last
+     * bucket may also cover measurements outside the range.
+     *
+     * @param startTime the exclusive start of the time range, in milliseconds
+     *                  since UNIX epoch
+     * @param endTime   the exclusive end of the time range, in milliseconds
+     *                  since UNIX epoch
+     * @return a view over the matching buckets, ordered by time
+     */
+    public View range(long startTime, long endTime) {
+        int n = size;
+        Columns snapshot = columns;
+        // The bucket holding startTime + 1 is the first that can hold a record in range
+        long firstStart = Math.floorDiv(startTime + 1, resolution) * resolution;
+        int from = RecordSeries.lowerBound(snapshot.starts, n, firstStart);
+        int to = RecordSeries.lowerBound(snapshot.starts, n, endTime);
+        return new View(resolution, snapshot, from, Math.max(from, to));
+    }
+
+    /**
+     * Returns an empty view, e.g. for a record type without data.
+     *
+     * @param requestedResolution the resolution asked for; the view reports
+     *                            the tier that would have been used
+     * @return a view without buckets
+     */
+    static View emptyView(long requestedResolution) {
+        return new View(TIERS[tierFor(requestedResolution)], new Columns(0), 0, 0);
+    }
+
+    /**
+     * Returns the number of buckets.
+     *
+     * @return the bucket count
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * The arrays backing a rollup. A new instance is published whenever the
+     * arrays are replaced, so readers always see matching arrays.
+     */
+    private static final class Columns {
+        private final long[] starts;
+        private final double[] mins;
+        private final double[] maxs;
+        private final double[] sums;
+        private final int[] counts;
+
+        private Columns(int capacity) {
+            starts = new long[capacity];
+            mins = new double[capacity];
+            maxs = new double[capacity];
+            sums = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        /**
+         * Copies the first {@code length} buckets into arrays of the given
+         * capacity, leaving a gap at {@code gap} if it is before the end.
+         */
+        private Columns copy(int capacity, int gap, int length) {
+            Columns copy = new Columns(capacity);
+            int shift = gap < length ? 1 : 0;
+            System.arraycopy(starts, 0, copy.starts, 0, gap);
+            System.arraycopy(starts, gap, copy.starts, gap + shift, length - gap);
+            System.arraycopy(mins, 0, copy.mins, 0, gap);
+            System.arraycopy(mins, gap, copy.mins, gap + shift, length - gap);
+            System.arraycopy(maxs, 0, copy.maxs, 0, gap);
+            System.arraycopy(maxs, gap, copy.maxs, gap + shift, length - gap);
+            System.arraycopy(sums, 0, copy.sums, 0, gap);
+            System.arraycopy(sums, gap, copy.sums, gap + shift, length - gap);
+            System.arraycopy(counts, 0, copy.counts, 0, gap);
+            System.arraycopy(counts, gap, copy.counts, gap + shift, length - gap);
+            return copy;
+        }
+
+        private void set(int index, long start, double value) {
+            starts[index] = start;
+            mins[index] = value;
+            maxs[index] = value;
+            sums[index] = value;
+            counts[index] = 1;
+        }
+
+        private void update(int index, double value) {
+            mins[index] = Math.min(mins[index], value);
+            maxs[index] = Math.max(maxs[index], value);
+            sums[index] += value;
+            counts[index]++;
+        }
+    }
+
+    /**
+     * A read-only, zero-copy window over a contiguous run of buckets.
+     */
+    public static final class View {
+        private final long resolution;
+        private final long[] starts;
+        private final double[] mins;
+        private final double[] maxs;
+        private final double[] sums;
+        private final int[] counts;
+        private final int from;
+        private final int to;
+
+        private View(long resolution, Columns snapshot, int from, int to) {
+            this.resolution = resolution;
+            this.starts = snapshot.starts;
+            this.mins = snapshot.mins;
+            this.maxs = snapshot.maxs;
+            this.sums = snapshot.sums;
+            this.counts = snapshot.counts;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the length of every bucket.
+         *
+         * @return the resolution in milliseconds
+         */
+        public long getResolution() {
+            return resolution;
+        }
+
+        public int size() {
+            return to - from;
+        }
+
+        public boolean isEmpty() {
+            return to == from;
+        }
+
+        /**
+         * Returns the start of a bucket; the bucket covers the measurements
+         * from there until just before the start plus the resolution.
+         *
+         * @param index the position within this view
+         * @return the start time in milliseconds since UNIX epoch
+         */
+        public long getStart(int index) {
+            return starts[checkedOffset(index)];
+        }
+
+        public double getMin(int index) {
+            return mins[checkedOffset(index)];
+        }
+
+        public double getMax(int index) {
+            return maxs[checkedOffset(index)];
+        }
+
+        public double getSum(int index) {
+            return sums[checkedOffset(index)];
+        }
+
+        public int getCount(int index) {
+            return counts[checkedOffset(index)];
+        }
+
+        /**
+         * Returns the mean of the measurements of a bucket.
+         *
+         * @param index the position within this view
+         * @return the average value
+         */
+        public double getAverage(int index) {
+            int offset = checkedOffset(index);
+            return sums[offset] / counts[offset];
+        }
+
+        private int checkedOffset(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (to - from));
+            }
+            return from + index;
+        }
+    }
+}
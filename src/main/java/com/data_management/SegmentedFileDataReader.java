@@ -0,0 +1,157 @@
+package com.data_management;
+
+import com.cardio_generator.outputs.BinaryRecordCodec;
+import com.cardio_generator.outputs.SegmentIndex;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads one time range, and optionally only some patients, from a folder
+ * written by {@link com.cardio_generator.outputs.FileOutputStrategy}.
+ * <p>
+ * For every data file that has a {@link SegmentIndex}, the index is checked
+ * first and the file is skipped if none of its records can match. Files
+ * without an index, such as the segment that was still being written or
+ * output written without segments, are always read. Text files are parsed
+ * with {@link MappedFileDataReader}, binary files as
+ * {@link BinaryRecordCodec} frames; only matching records are added to the
+ * storage.
+ */
+public class SegmentedFileDataReader implements DataReader {
+
+    private final Path directory;
+    private final long startTime;
+    private final long endTime;
+    private final BitSet patientIds;
+    private int segmentsRead;
+    private int segmentsSkipped;
+
+    /**
+     * Creates a reader for all patients.
+     *
+     * @param directory the folder with the segment files
+     * @param startTime the inclusive start of the time range, in milliseconds
+     *                  since UNIX epoch
+     * @param endTime   the inclusive end of the time range, in milliseconds
+     *                  since UNIX epoch
+     */
+    public SegmentedFileDataReader(String directory, long startTime, long endTime) {
+        this(directory, startTime, endTime, null);
+    }
+
+    /**
+     * Creates a reader for some patients.
+     *
+     * @param directory  the folder with the segment files
+     * @param startTime  the inclusive start of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param endTime    the inclusive end of the time range, in milliseconds
+     *                   since UNIX epoch
+     * @param patientIds the patients to load, or {@code null} for all
+     */
+    public SegmentedFileDataReader(String directory, long startTime, long endTime, int[] patientIds) {
+        if (startTime > endTime) {
+            throw new IllegalArgumentException("Start time " + startTime + " is after end time " + endTime);
+        }
+        this.directory = Paths.get(directory);
+        this.startTime = startTime;
+        this.endTime = endTime;
+        if (patientIds == null) {
+            this.patientIds = null;
+        } else {
+            this.patientIds = new BitSet();
+            for (int patientId : patientIds) {
+                if (patientId >= 0) {
+                    this.patientIds.set(patientId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void readData(DataStorage dataStorage) throws IOException {
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.endsWith(".txt") || name.endsWith(".bin");
+            }).sorted().collect(Collectors.toList());
+        }
+
+        segmentsRead = 0;
+        segmentsSkipped = 0;
+        List<Path> textFiles = new ArrayList<>();
+        for (Path file : files) {
+            if (!isRelevant(file)) {
+                segmentsSkipped++;
+                continue;
+            }
+            segmentsRead++;
+            if (file.getFileName().toString().endsWith(".bin")) {
+                readBinary(file, dataStorage);
+            } else {
+                textFiles.add(file);
+            }
+        }
+        if (!textFiles.isEmpty()) {
+            new MappedFileDataReader(directory.toString(), Runtime.getRuntime().availableProcessors(), 0,
+                    startTime, endTime, patientIds).readFiles(textFiles, dataStorage);
+        }
+    }
+
+    private boolean isRelevant(Path file) {
+        Path indexFile = SegmentIndex.indexPathFor(file);
+        if (!Files.exists(indexFile)) {
+            return true;
+        }
+        try {
+            SegmentIndex index = SegmentIndex.read(indexFile);
+            return index.overlaps(startTime, endTime) && (patientIds == null || index.containsAny(patientIds));
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable segment index " + indexFile + ": " + e.getMessage());
+            return true;
+        }
+    }
+
+    private void readBinary(Path file, DataStorage dataStorage) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (BinaryRecordCodec.read(in, (patientId, timestamp, label, value) -> {
+                if (timestamp >= startTime && timestamp <= endTime
+                        && (patientIds == null || (patientId >= 0 && patientIds.get(patientId)))) {
+                    dataStorage.addPatientData(patientId, value, label, timestamp);
+                }
+            }) >= 0) {
+                // Matching records are added by the handler
+            }
+        }
+    }
+
+    /**
+     * Returns the number of files read by the last {@link #readData} call.
+     *
+     * @return the number of files read
+     */
+    public int getSegmentsRead() {
+        return segmentsRead;
+    }
+
+    /**
+     * Returns the number of files the last {@link #readData} call skipped
+     * because their index showed no matching records.
+     *
+     * @return the number of files skipped
+     */
+    public int getSegmentsSkipped() {
+        return segmentsSkipped;
+    }
+}
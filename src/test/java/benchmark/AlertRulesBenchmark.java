@@ -0,0 +1,71 @@
+package benchmark;
+
+import com.alerts.AlertGenerator;
+import com.alerts.dispatch.AlertDispatcher;
+import com.data_management.DataStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AlertGenerator#evaluateData} over the full history of one
+ * patient at a time, on a synthetic ward from {@link PatientDataFixture} that
+ * ends now, since the rules look at the last day of wall-clock time. Alerts go
+ * to a dispatcher that discards them, so printing is not measured.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=AlertRulesBenchmark}, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main AlertRulesBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AlertRulesBenchmark {
+
+    @Param({"100", "1000"})
+    public int patientCount;
+
+    @Param({"10", "60"})
+    public int historyMinutes;
+
+    private DataStorage storage;
+    private AlertGenerator alertGenerator;
+    private AlertDispatcher dispatcher;
+    private int nextPatient;
+
+    @Setup
+    public void setUp() {
+        storage = new DataStorage();
+        PatientDataFixture.generate(patientCount, historyMinutes, System.currentTimeMillis()).addTo(storage);
+        dispatcher = new AlertDispatcher(alerts -> { });
+        alertGenerator = new AlertGenerator(storage);
+        alertGenerator.setDispatcher(dispatcher);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dispatcher.close();
+    }
+
+    /**
+     * Evaluates every rule for the next patient.
+     */
+    @Benchmark
+    public void evaluateData() {
+        nextPatient = nextPatient % patientCount + 1;
+        alertGenerator.evaluateData(storage.getPatient(nextPatient));
+    }
+}
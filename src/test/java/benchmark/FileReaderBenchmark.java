@@ -0,0 +1,82 @@
+package benchmark;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long {@link FileDataReader#readData} takes to load every file
+ * of a synthetic ward from {@link PatientDataFixture}, written by
+ * {@link FileOutputStrategy} as text or as binary frames.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=FileReaderBenchmark}, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main FileReaderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FileReaderBenchmark {
+
+    @Param({"100", "1000"})
+    public int patientCount;
+
+    @Param({"10"})
+    public int historyMinutes;
+
+    @Param({"text", "binary"})
+    public String format;
+
+    private Path directory;
+    private File[] files;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-reader-benchmark");
+        FileOutputStrategy output = new FileOutputStrategy(directory.toString(), format.equals("binary"));
+        PatientDataFixture.generate(patientCount, historyMinutes, 1_704_067_200_000L).writeTo(output);
+        output.close();
+        files = directory.toFile().listFiles();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Reads all files into an empty storage.
+     */
+    @Benchmark
+    public DataStorage readAll() throws IOException {
+        DataStorage storage = new DataStorage();
+        for (File file : files) {
+            new FileDataReader(file.getPath()).readData(storage);
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,115 @@
+package benchmark;
+
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how ECG generation scales with the number of threads. Each thread
+ * generates its own chunk of patients, like a worker of the
+ * {@link com.cardio_generator.TimingWheelScheduler}. The generator, with a
+ * random stream per patient, is compared with the former approach of one
+ * {@link Random} shared by all threads, whose seed every draw updates with a
+ * CAS.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=GeneratorScalingBenchmark -Djmh.args="-t <threads>"},
+ * or {@code java -cp <test classpath> org.openjdk.jmh.Main GeneratorScalingBenchmark -t <threads>},
+ * for e.g. 1, 2, 4 and the number of cores; the score is samples per second
+ * of all threads together.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class GeneratorScalingBenchmark {
+
+    private static final int PATIENTS = 64 * 1024;
+    private static final int CHUNK_SIZE = 1024;
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+    // Discards the batches, so formatting them as text is not measured
+    private static final OutputStrategy NO_OUTPUT = new OutputStrategy() {
+        @Override
+        public void output(int patientId, long timestamp, String label, String data) {
+        }
+
+        @Override
+        public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        }
+    };
+
+    private static final Random sharedRandom = new Random();
+
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private ECGDataGenerator generator;
+    private double[] sharedLastValues;
+
+    /**
+     * The patients of one thread.
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        int[] patientIds;
+
+        @Setup
+        public void setUp(GeneratorScalingBenchmark benchmark) {
+            int chunk = benchmark.nextChunk.getAndIncrement() % (PATIENTS / CHUNK_SIZE);
+            patientIds = new int[CHUNK_SIZE];
+            Arrays.setAll(patientIds, i -> chunk * CHUNK_SIZE + i + 1);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        generator = new ECGDataGenerator(PATIENTS);
+        sharedLastValues = new double[PATIENTS + 1];
+    }
+
+    /**
+     * {@link ECGDataGenerator#generateBatch} with its per-patient streams.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void perPatientStreams(Worker worker) {
+        generator.generateBatch(worker.patientIds, TIMESTAMP, NO_OUTPUT);
+    }
+
+    /**
+     * The same waveform drawing from one shared {@link Random}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public double sharedRandom(Worker worker) {
+        double sum = 0;
+        double t = TIMESTAMP / 1000.0;
+        for (int patientId : worker.patientIds) {
+            double hr = 60.0 + sharedRandom.nextDouble() * 20.0;
+            double ecgFrequency = hr / 60.0;
+            double pWave = 0.1 * Math.sin(2 * Math.PI * ecgFrequency * t);
+            double qrsComplex = 0.5 * Math.sin(2 * Math.PI * 3 * ecgFrequency * t);
+            double tWave = 0.2 * Math.sin(2 * Math.PI * 2 * ecgFrequency * t + Math.PI / 4);
+            double ecgValue = pWave + qrsComplex + tWave + sharedRandom.nextDouble() * 0.05;
+            sharedLastValues[patientId] = ecgValue;
+            sum += ecgValue;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,122 @@
+package benchmark;
+
+import com.cardio_generator.TimingWheelScheduler;
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.outputs.BinaryRecordCodec;
+import com.cardio_generator.outputs.OutputStrategy;
+import com.data_management.DataStorage;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic patient data for the benchmarks, made by the simulator's own
+ * generators on the virtual clock of {@link TimingWheelScheduler}, with the
+ * same periods as {@code HealthDataSimulator}. The generators are seeded, so
+ * every run of a benchmark works on the same data.
+ * <p>
+ * The rows are kept in columns, in the order the generators produced them.
+ */
+final class PatientDataFixture implements OutputStrategy {
+
+    private static final long SEED = 42;
+
+    int[] patientIds = new int[1024];
+    long[] timestamps = new long[1024];
+    String[] labels = new String[1024];
+    double[] values = new double[1024];
+    int size;
+
+    private PatientDataFixture() {
+    }
+
+    /**
+     * Simulates the given history of a ward.
+     *
+     * @param patientCount   the number of patients
+     * @param historyMinutes the minutes of data per patient
+     * @param endTime        the time of the last tick
+     * @return the generated rows
+     */
+    static PatientDataFixture generate(int patientCount, int historyMinutes, long endTime) {
+        PatientDataFixture fixture = new PatientDataFixture();
+        int[] patients = new int[patientCount];
+        Arrays.setAll(patients, i -> i + 1);
+        SplittableRandom root = new SplittableRandom(SEED);
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(fixture, 1);
+        scheduler.schedule(new ECGDataGenerator(patientCount, root.split()), patients, 0, 1, TimeUnit.SECONDS);
+        scheduler.schedule(new BloodSaturationDataGenerator(patientCount, root.split()), patients, 0, 1,
+                TimeUnit.SECONDS);
+        scheduler.schedule(new BloodPressureDataGenerator(patientCount, root.split()), patients, 0, 1,
+                TimeUnit.MINUTES);
+        scheduler.schedule(new BloodLevelsDataGenerator(patientCount, root.split()), patients, 0, 2,
+                TimeUnit.MINUTES);
+        scheduler.schedule(new AlertGenerator(patientCount, root.split()), patients, 0, 20, TimeUnit.SECONDS);
+        long duration = TimeUnit.MINUTES.toMillis(historyMinutes);
+        try {
+            scheduler.runVirtual(endTime - duration, duration, 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            scheduler.shutdown();
+        }
+        return fixture;
+    }
+
+    /**
+     * Adds all rows to a storage, in bulk.
+     *
+     * @param storage the storage to fill
+     */
+    void addTo(DataStorage storage) {
+        storage.addPatientData(patientIds, values, labels, timestamps, size);
+    }
+
+    /**
+     * Sends all rows to an output, one at a time.
+     *
+     * @param output the output to write to
+     */
+    void writeTo(OutputStrategy output) {
+        for (int i = 0; i < size; i++) {
+            output.output(patientIds[i], timestamps[i], labels[i], values[i]);
+        }
+    }
+
+    @Override
+    public void output(int patientId, long timestamp, String label, String data) {
+        add(patientId, timestamp, label, BinaryRecordCodec.parseValue(data));
+    }
+
+    @Override
+    public void output(int patientId, long timestamp, String label, double value) {
+        add(patientId, timestamp, label, value);
+    }
+
+    @Override
+    public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+        for (int i = 0; i < patientIds.length; i++) {
+            add(patientIds[i], timestamp, label, values[i]);
+        }
+    }
+
+    private void add(int patientId, long timestamp, String label, double value) {
+        if (size == patientIds.length) {
+            int capacity = size * 2;
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        patientIds[size] = patientId;
+        timestamps[size] = timestamp;
+        labels[size] = label;
+        values[size] = value;
+        size++;
+    }
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import com.alerts.AlertGenerator;
+import com.alerts.SaturationDropDetector;
+import com.data_management.PatientRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the nested-loop rapid saturation drop checks that used to live in
+ * {@code AlertGenerator} and {@code OxygenSaturationStrategy} with the linear
+ * {@link SaturationDropDetector}, on 24 hours of 1 Hz saturation data.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=RapidDropBenchmark}, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main RapidDropBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RapidDropBenchmark {
+
+    private static final int SAMPLES = 24 * 60 * 60; // 24 hours at 1 Hz
+
+    private List<PatientRecord> records;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        records = new ArrayList<>(SAMPLES);
+        long start = 1_700_000_000_000L;
+        int value = 97;
+        for (int i = 0; i < SAMPLES; i++) {
+            // Same random walk as BloodSaturationDataGenerator, with an occasional desaturation
+            value = Math.min(Math.max(value + random.nextInt(3) - 1, 90), 100);
+            double reading = (i % 3600 == 1800) ? value - 7 : value;
+            records.add(new PatientRecord(1, reading, "Saturation", start + i * 1000L));
+        }
+    }
+
+    /**
+     * The former {@code AlertGenerator.bloodSaturationRapidDropAlert} loop,
+     * counting the alerts it would have triggered.
+     */
+    @Benchmark
+    public int nestedLoopAlertGenerator() {
+        int alerts = 0;
+        for (int i = 0; i < records.size(); i++) {
+            for (int j = i; j < records.size(); j++) {
+                PatientRecord r1 = records.get(i);
+                PatientRecord r2 = records.get(j);
+                long timeDiff = r2.getTimestamp() - r1.getTimestamp();
+                if (timeDiff > AlertGenerator.TEN_MIN_MS) {
+                    break;
+                } else if (r2.getMeasurementValue() - r1.getMeasurementValue() < -5.0) {
+                    alerts++;
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * The former {@code OxygenSaturationStrategy.checkRapidDrop} loop, counting
+     * the alerts it would have triggered.
+     */
+    @Benchmark
+    public int nestedLoopStrategy() {
+        int alerts = 0;
+        for (int i = 0; i < records.size(); i++) {
+            for (int j = i + 1; j < records.size(); j++) {
+                long timeDiff = records.get(j).getTimestamp() - records.get(i).getTimestamp();
+                if (timeDiff > AlertGenerator.TEN_MIN_MS) {
+                    break;
+                }
+                if (records.get(j).getMeasurementValue() - records.get(i).getMeasurementValue() < -5.0) {
+                    alerts++;
+                    break;
+                }
+            }
+        }
+        return alerts;
+    }
+
+    @Benchmark
+    public int monotonicDeque() {
+        SaturationDropDetector detector = new SaturationDropDetector();
+        int alerts = 0;
+        for (PatientRecord record : records) {
+            if (detector.offer(record.getMeasurementValue(), record.getTimestamp())) {
+                alerts++;
+            }
+        }
+        return alerts;
+    }
+}
@@ -0,0 +1,112 @@
+package benchmark;
+
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+import com.data_management.RollupSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hot paths of {@link DataStorage} on a synthetic ward from
+ * {@link PatientDataFixture}: bulk ingest of the whole history into an empty
+ * storage, the time range queries of {@link Patient#getRecords}, and the same
+ * history read as per-minute rollups with {@link Patient#getRollup}.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=StorageBenchmark}, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main StorageBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class StorageBenchmark {
+
+    @Param({"100", "1000"})
+    public int patientCount;
+
+    @Param({"10", "60"})
+    public int historyMinutes;
+
+    private PatientDataFixture fixture;
+    private DataStorage storage;
+    private long endTime;
+    private int nextPatient;
+
+    @Setup
+    public void setUp() {
+        endTime = 1_704_067_200_000L;
+        fixture = PatientDataFixture.generate(patientCount, historyMinutes, endTime);
+        storage = new DataStorage();
+        fixture.addTo(storage);
+    }
+
+    private Patient nextPatient() {
+        nextPatient = nextPatient % patientCount + 1;
+        return storage.getPatient(nextPatient);
+    }
+
+    /**
+     * Adds the whole history to an empty storage with the bulk
+     * {@code addPatientData}; the score is the time of one ward.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DataStorage ingest() {
+        DataStorage empty = new DataStorage();
+        fixture.addTo(empty);
+        return empty;
+    }
+
+    /**
+     * All records of one patient in the last minute.
+     */
+    @Benchmark
+    public List<PatientRecord> recordsOfLastMinute() {
+        return nextPatient().getRecords(endTime - 60_000, endTime + 1);
+    }
+
+    /**
+     * Sums the ECG values of one patient over the whole history. The query
+     * returns a view of the series, so reading the records is what costs.
+     */
+    @Benchmark
+    public double ecgOfWholeHistory() {
+        List<PatientRecord> records = nextPatient().getRecords("ECG",
+                endTime - TimeUnit.MINUTES.toMillis(historyMinutes) - 1, endTime + 1);
+        double sum = 0;
+        for (int i = 0; i < records.size(); i++) {
+            sum += records.get(i).getMeasurementValue();
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the per-minute ECG averages of one patient over the whole history,
+     * the way a trend chart reads it.
+     */
+    @Benchmark
+    public double ecgTrendPerMinute() {
+        RollupSeries.View minutes = nextPatient().getRollup("ECG",
+                endTime - TimeUnit.MINUTES.toMillis(historyMinutes) - 1, endTime + 1, RollupSeries.MINUTE);
+        double sum = 0;
+        for (int i = 0; i < minutes.size(); i++) {
+            sum += minutes.getAverage(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import com.cardio_generator.SimpleVersWebSocket;
+import com.data_management.DataStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many messages per second one {@link SimpleVersWebSocket}
+ * connection parses and stores, compared with the former split/trim/replace
+ * parser that stored one record at a time. Messages hold {@code linesPerMessage}
+ * samples, so 1 is the unbatched server output and larger values are batches.
+ * <p>
+ * Run with {@code mvn -P benchmark verify -Djmh.include=WebSocketIngestBenchmark}, or
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main WebSocketIngestBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketIngestBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String[] LABELS = {"ECG", "Saturation", "HeartRate", "SystolicPressure"};
+
+    @Param({"1", "100"})
+    public int linesPerMessage;
+
+    private String[] messages;
+    private DataStorage storage;
+    private SimpleVersWebSocket client;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        messages = new String[MESSAGES];
+        long timestamp = 1_700_000_000_000L;
+        for (int m = 0; m < MESSAGES; m++) {
+            StringBuilder message = new StringBuilder();
+            for (int i = 0; i < linesPerMessage; i++) {
+                if (i > 0) {
+                    message.append('\n');
+                }
+                String label = LABELS[random.nextInt(LABELS.length)];
+                message.append(1 + random.nextInt(100)).append(',').append(timestamp++).append(',').append(label)
+                        .append(',').append(Math.round(random.nextDouble() * 10000) / 100.0);
+                if (label.equals("Saturation")) {
+                    message.append('%');
+                }
+            }
+            messages[m] = message.toString();
+        }
+    }
+
+    /**
+     * Starts every invocation with empty storage. The messages repeat their
+     * timestamps, and storing them again would measure out-of-order inserts
+     * instead of parsing. An invocation handles {@value #MESSAGES} messages,
+     * so the setup is cheap in comparison.
+     */
+    @Setup(Level.Invocation)
+    public void resetStorage() throws Exception {
+        storage = new DataStorage();
+        DataStorage.setInstance(storage);
+        client = new SimpleVersWebSocket(new URI("ws://localhost:8887"));
+    }
+
+    /**
+     * The character scanner with one bulk insert per message.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void scannerWithBatchedInsert() {
+        for (String message : messages) {
+            client.onMessage(message);
+        }
+    }
+
+    /**
+     * The former {@code SimpleVersWebSocket.processMessage}, without the
+     * printing of every message.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void splitWithSingleInserts() {
+        for (String message : messages) {
+            for (String line : message.split("\n")) {
+                String[] tokens = line.split(",", 4);
+                if (tokens.length != 4) {
+                    continue;
+                }
+                try {
+                    int id = Integer.parseInt(tokens[0].trim());
+                    long time = Long.parseLong(tokens[1].trim());
+                    String type = tokens[2].trim();
+                    double val = Double.parseDouble(tokens[3].trim().replace("%", ""));
+                    storage.addPatientData(id, val, type, time);
+                } catch (NumberFormatException e) {
+                    // Skipped like in the client
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package data_management;
+
+import com.cardio_generator.SimpleVersWebSocket;
+import com.cardio_generator.outputs.BinaryRecordCodec;
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+import com.data_management.PatientRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryRecordCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFrameRoundTrip() {
+        int[] ids = {1, 2, 3};
+        long[] timestamps = {1000L, 2000L, 3000L};
+        String[] labels = {"ECG", "Saturation", "SystolicPressure"};
+        double[] values = {0.42, 97.0, 120.0};
+
+        ByteBuffer frame = BinaryRecordCodec.encode(ids, timestamps, labels, values, 3);
+        assertEquals(BinaryRecordCodec.HEADER_BYTES + 3 * BinaryRecordCodec.RECORD_BYTES, frame.remaining());
+
+        List<String> decoded = new ArrayList<>();
+        int count = BinaryRecordCodec.decode(frame, (patientId, timestamp, label, value) ->
+                decoded.add(patientId + "," + timestamp + "," + label + "," + value));
+
+        assertEquals(3, count);
+        assertEquals("1,1000,ECG,0.42", decoded.get(0));
+        assertEquals("2,2000,Saturation,97.0", decoded.get(1));
+        assertEquals("3,3000,SystolicPressure,120.0", decoded.get(2));
+    }
+
+    @Test
+    public void testParseValueHandlesTextFormats() {
+        assertEquals(97.0, BinaryRecordCodec.parseValue("97.0%"));
+        assertEquals(1.0, BinaryRecordCodec.parseValue("triggered"));
+        assertEquals(0.0, BinaryRecordCodec.parseValue("resolved"));
+        assertTrue(Double.isNaN(BinaryRecordCodec.parseValue("eighty")));
+    }
+
+    @Test
+    public void testUnknownLabelIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryRecordCodec.encode(1, 0L, "Unknown", 1.0));
+    }
+
+    @Test
+    public void testTruncatedFrameIsRejected() {
+        ByteBuffer frame = BinaryRecordCodec.encode(1, 0L, "ECG", 1.0);
+        frame.limit(frame.limit() - 1);
+        assertThrows(IllegalArgumentException.class, () -> BinaryRecordCodec.decode(frame, (a, b, c, d) -> { }));
+    }
+
+    @Test
+    public void testBinaryFileOutputIsReadBack() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString(), true);
+        for (int i = 0; i < 10; i++) {
+            output.output(1, 1000L + i, "Saturation", 90.0 + i);
+        }
+        output.close();
+
+        DataStorage storage = new DataStorage();
+        new FileDataReader(tempDir.resolve("Saturation.bin").toString()).readData(storage);
+
+        List<PatientRecord> records = storage.getRecords(1, 0, Long.MAX_VALUE);
+        assertEquals(10, records.size());
+        assertEquals(99.0, records.get(9).getMeasurementValue());
+        assertEquals("Saturation", records.get(9).getRecordType());
+    }
+
+    @Test
+    public void testWebSocketClientStoresBinaryFrame() throws Exception {
+        DataStorage storage = new DataStorage();
+        DataStorage.setInstance(storage);
+        SimpleVersWebSocket client = new SimpleVersWebSocket(new URI("ws://localhost:8887"));
+
+        client.onMessage(BinaryRecordCodec.encode(new int[]{1, 2}, new long[]{1000L, 1000L},
+                new String[]{"ECG", "ECG"}, new double[]{0.5, 0.6}, 2));
+
+        assertEquals(2, storage.getAllPatients().size());
+        assertEquals(0.6, storage.getRecords(2, 0, Long.MAX_VALUE).get(0).getMeasurementValue());
+    }
+}
@@ -0,0 +1,118 @@
+package data_management;
+
+import com.data_management.DataStorage;
+import com.data_management.Patient;
+import com.data_management.RecordSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test for concurrent ingestion into {@link DataStorage} while other
+ * threads keep querying it.
+ */
+class ConcurrentDataStorageTest {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 2;
+    private static final int WRITES_PER_WRITER = 250_000;
+    private static final int PATIENTS = 64;
+    private static final String[] TYPES = {"ECG", "Saturation", "SystolicPressure", "DiastolicPressure"};
+
+    @Test
+    void testNoRecordsLostUnderConcurrentWritesAndReads() throws Exception {
+        DataStorage storage = new DataStorage();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                int patientsPerWriter = PATIENTS / WRITERS;
+                for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                    // Each writer feeds its own patients, like one data source per bed
+                    int patientId = writer * patientsPerWriter + (i % patientsPerWriter) + 1;
+                    String type = TYPES[(i / patientsPerWriter) % TYPES.length];
+                    storage.addPatientData(patientId, writer, type, i);
+                }
+                return null;
+            }));
+        }
+
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    for (Patient patient : storage.getAllPatients()) {
+                        for (RecordSeries series : patient.getAllSeries()) {
+                            // Query the most recent part of the series, like an alert evaluation would
+                            int size = series.size();
+                            RecordSeries.View view = series.from(Math.max(0, size - 256));
+                            assertTrue(view.size() >= Math.min(size, 256), "Published records must stay visible");
+                            for (int i = 1; i < view.size(); i++) {
+                                assertTrue(view.getTimestamp(i - 1) <= view.getTimestamp(i), "Series must stay sorted");
+                            }
+                        }
+                    }
+                    Thread.yield();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long stored = 0;
+        for (Patient patient : storage.getAllPatients()) {
+            stored += patient.getRecords(Long.MIN_VALUE, Long.MAX_VALUE).size();
+        }
+        assertEquals(PATIENTS, storage.getAllPatients().size());
+        assertEquals((long) WRITERS * WRITES_PER_WRITER, stored, "No record may be lost");
+
+        double writesPerSecond = WRITERS * (double) WRITES_PER_WRITER / (elapsedNanos / 1e9);
+        assertTrue(writesPerSecond > 100_000, "Expected more than 100k writes/sec but got " + (long) writesPerSecond);
+    }
+
+    @Test
+    void testGetInstanceReturnsSingleInstanceAcrossThreads() throws Exception {
+        DataStorage.setInstance(null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DataStorage>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return DataStorage.getInstance();
+            }));
+        }
+        start.countDown();
+        DataStorage first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<DataStorage> result : results) {
+            assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 
 import com.data_management.DataStorage;
 import com.data_management.PatientRecord;
+import com.data_management.RollupSeries;
 
 import java.util.List;
 
@@ -46,6 +47,91 @@ class DataStorageTest {
     }
 
 
-}
 
+    @Test
+    void testRollupPicksTheCoarsestTierForTheResolution() {
+        DataStorage storage = new DataStorage();
+        long start = 1_704_067_200_000L; // Midnight, so buckets line up with the day
+        int seconds = 24 * 60 * 60;
+        for (int i = 0; i < seconds; i++) {
+            // A sawtooth of 0..59 within every minute, so each minute has min 0, max 59 and average 29.5
+            storage.addPatientData(1, i % 60, "Saturation", start + i * 1000L);
+        }
+        long end = start + seconds * 1000L;
+
+        RollupSeries.View minutes = storage.getRollup(1, "Saturation", start - 1, end, 60_000);
+        assertEquals(RollupSeries.MINUTE, minutes.getResolution());
+        assertEquals(1440, minutes.size());
+        assertEquals(start, minutes.getStart(0));
+        assertEquals(0, minutes.getMin(5), 0.001);
+        assertEquals(59, minutes.getMax(5), 0.001);
+        assertEquals(29.5, minutes.getAverage(5), 0.001);
+        assertEquals(60, minutes.getCount(5));
+
+        // 5 minutes is not a tier, so the minute tier is the coarsest that is fine enough
+        assertEquals(RollupSeries.MINUTE, storage.getRollup(1, "Saturation", start - 1, end, 300_000).getResolution());
+        assertEquals(24, storage.getRollup(1, "Saturation", start - 1, end, RollupSeries.HOUR).size());
+        // Finer than every tier: the finest tier
+        RollupSeries.View raw = storage.getRollup(1, "Saturation", start - 1, start + 10_000, 100);
+        assertEquals(RollupSeries.SECOND, raw.getResolution());
+        assertEquals(10, raw.size());
+
+        assertTrue(storage.getRollup(1, "ECG", start - 1, end, 60_000).isEmpty());
+        assertTrue(storage.getRollup(2, "Saturation", start - 1, end, 60_000).isEmpty());
+    }
+
+    @Test
+    void testRollupIncludesOutOfOrderRecords() {
+        DataStorage storage = new DataStorage();
+        long minute = 1_704_067_200_000L;
+        storage.addPatientData(1, 10.0, "HeartRate", minute + 120_000);
+        storage.addPatientData(1, 20.0, "HeartRate", minute + 130_000);
+        // Late records: one for an existing bucket, one for a new earlier bucket
+        storage.addPatientData(1, 40.0, "HeartRate", minute + 150_000);
+        storage.addPatientData(1, 5.0, "HeartRate", minute + 125_000);
+        storage.addPatientData(1, 70.0, "HeartRate", minute + 1_000);
+
+        RollupSeries.View view = storage.getRollup(1, "HeartRate", minute - 1, minute + 180_000, 60_000);
+        assertEquals(2, view.size());
+        assertEquals(minute, view.getStart(0));
+        assertEquals(70.0, view.getAverage(0), 0.001);
+        assertEquals(minute + 120_000, view.getStart(1));
+        assertEquals(5.0, view.getMin(1), 0.001);
+        assertEquals(40.0, view.getMax(1), 0.001);
+        assertEquals(75.0, view.getSum(1), 0.001);
+        assertEquals(4, view.getCount(1));
+
+        // A late record for an earlier bucket does not change a view handed out before
+        storage.addPatientData(1, 30.0, "HeartRate", minute + 2_000);
+        assertEquals(1, view.getCount(0));
+        assertEquals(70.0, view.getSum(0), 0.001);
+        RollupSeries.View updated = storage.getRollup(1, "HeartRate", minute - 1, minute + 180_000, 60_000);
+        assertEquals(2, updated.getCount(0));
+        assertEquals(100.0, updated.getSum(0), 0.001);
+    }
 
+    @Test
+    void testRollupOfDenseAndSparseRecords() {
+        DataStorage storage = new DataStorage();
+        long start = 1_704_067_200_000L;
+        // 10 Hz for 3 seconds, so every second bucket combines 10 records
+        for (int i = 0; i < 30; i++) {
+            storage.addPatientData(1, i, "ECG", start + i * 100L);
+        }
+        RollupSeries.View seconds = storage.getRollup(1, "ECG", start - 1, start + 3_000, RollupSeries.SECOND);
+        assertEquals(3, seconds.size());
+        assertEquals(10, seconds.getCount(2));
+        assertEquals(24.5, seconds.getAverage(2), 0.001);
+
+        // Every 2 minutes, so minute buckets hold a single record each and come from the records themselves
+        for (int i = 0; i < 5; i++) {
+            storage.addPatientData(1, 100 + i, "Cholesterol", start + i * 120_000L);
+        }
+        RollupSeries.View minutes = storage.getRollup(1, "Cholesterol", start + 60_000, start + 600_000,
+                RollupSeries.MINUTE);
+        assertEquals(4, minutes.size());
+        assertEquals(start + 120_000, minutes.getStart(0));
+        assertEquals(101, minutes.getMin(0), 0.001);
+        assertEquals(1, minutes.getCount(3));
+    }
+}
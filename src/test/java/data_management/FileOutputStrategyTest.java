@@ -0,0 +1,97 @@
+package data_management;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileOutputStrategyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentWritersProduceCompleteLines() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int patientId = thread + 1;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    output.output(patientId, 1000L + i, "ECG", i * 0.5);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        output.close();
+
+        List<String> lines = Files.readAllLines(tempDir.resolve("ECG.txt"));
+        assertEquals(20000, lines.size());
+        assertTrue(lines.stream().allMatch(line -> line.matches("Patient ID: \\d+, Timestamp: \\d+, Label: ECG, Data: [0-9.]+")));
+
+        DataStorage storage = new DataStorage();
+        new FileDataReader(tempDir.resolve("ECG.txt").toString()).readData(storage);
+        assertEquals(5000, storage.getRecords(3, 0, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testBackgroundFlusherWritesWithoutClose() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString(), false, 10, 1_000_000);
+        output.output(1, 1000L, "Saturation", "97.0%");
+
+        Path file = tempDir.resolve("Saturation.txt");
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((!Files.exists(file) || Files.size(file) == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("Patient ID: 1, Timestamp: 1000, Label: Saturation, Data: 97.0%", Files.readAllLines(file).get(0));
+        output.close();
+    }
+
+    @Test
+    public void testOutputAfterCloseIsIgnored() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString());
+        output.output(1, 1000L, "ECG", 0.5);
+        output.close();
+        output.output(1, 2000L, "ECG", 0.6);
+        output.output(1, 2000L, "Cholesterol", 180.0);
+
+        assertEquals(1, Files.readAllLines(tempDir.resolve("ECG.txt")).size());
+        assertFalse(Files.exists(tempDir.resolve("Cholesterol.txt")));
+    }
+
+    @Test
+    public void testBatchWritesTheSameLinesAsSingleOutput() throws Exception {
+        Path single = tempDir.resolve("single");
+        Path batched = tempDir.resolve("batched");
+        int[] patientIds = {3, 1, 2};
+        double[] values = {97.0, 95.0, 99.0};
+
+        FileOutputStrategy output = new FileOutputStrategy(single.toString());
+        for (int i = 0; i < patientIds.length; i++) {
+            output.output(patientIds[i], 1000L, "Saturation", values[i]);
+        }
+        output.close();
+        output = new FileOutputStrategy(batched.toString());
+        output.outputBatch("Saturation", 1000L, patientIds, values);
+        output.close();
+
+        assertEquals(Files.readAllLines(single.resolve("Saturation.txt")),
+                Files.readAllLines(batched.resolve("Saturation.txt")));
+    }
+}
@@ -0,0 +1,187 @@
+package data_management;
+
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodLevelsDataGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.BloodSaturationDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeneratorBatchTest {
+
+    private static final int PATIENTS = 100;
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+
+    /**
+     * Records the batches it receives, per label.
+     */
+    private static class RecordingOutput implements OutputStrategy {
+        final Map<String, List<double[]>> batches = new LinkedHashMap<>();
+        int singleOutputs;
+
+        @Override
+        public void output(int patientId, long timestamp, String label, String data) {
+            assertEquals(TIMESTAMP, timestamp);
+            singleOutputs++;
+        }
+
+        @Override
+        public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+            assertEquals(TIMESTAMP, timestamp);
+            assertEquals(PATIENTS, patientIds.length);
+            assertEquals(patientIds.length, values.length);
+            batches.computeIfAbsent(label, k -> new ArrayList<>()).add(values);
+        }
+    }
+
+    private static int[] patientIds() {
+        int[] ids = new int[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            ids[i] = i + 1;
+        }
+        return ids;
+    }
+
+    private static RecordingOutput generate(PatientDataGenerator generator) {
+        RecordingOutput output = new RecordingOutput();
+        generator.generateBatch(patientIds(), TIMESTAMP, output);
+        return output;
+    }
+
+    private static void assertInRange(double[] values, double min, double max) {
+        for (double value : values) {
+            assertTrue(value >= min && value <= max, value + " is outside " + min + ".." + max);
+        }
+    }
+
+    @Test
+    void testEachMetricIsSentAsOneBatch() {
+        RecordingOutput ecg = generate(new ECGDataGenerator(PATIENTS));
+        assertEquals(List.of("ECG"), new ArrayList<>(ecg.batches.keySet()));
+
+        RecordingOutput saturation = generate(new BloodSaturationDataGenerator(PATIENTS));
+        assertInRange(saturation.batches.get("Saturation").get(0), 90, 100);
+
+        RecordingOutput pressure = generate(new BloodPressureDataGenerator(PATIENTS));
+        assertEquals(List.of("SystolicPressure", "DiastolicPressure"), new ArrayList<>(pressure.batches.keySet()));
+        assertInRange(pressure.batches.get("SystolicPressure").get(0), 90, 180);
+        assertInRange(pressure.batches.get("DiastolicPressure").get(0), 60, 120);
+
+        RecordingOutput levels = generate(new BloodLevelsDataGenerator(PATIENTS));
+        assertEquals(List.of("Cholesterol", "WhiteBloodCells", "RedBloodCells"),
+                new ArrayList<>(levels.batches.keySet()));
+        assertEquals(0, ecg.singleOutputs + saturation.singleOutputs + pressure.singleOutputs + levels.singleOutputs);
+    }
+
+    @Test
+    void testAlertsUseTheBatchTimestamp() {
+        AlertGenerator generator = new AlertGenerator(PATIENTS);
+        RecordingOutput output = new RecordingOutput();
+        for (int round = 0; round < 20; round++) {
+            generator.generateBatch(patientIds(), TIMESTAMP, output);
+        }
+        assertTrue(output.singleOutputs > 0, "Some alerts should have been triggered");
+        assertTrue(output.batches.isEmpty());
+    }
+
+    @Test
+    void testValuesDoNotDependOnTheThreadsThatGenerateThem() throws InterruptedException {
+        int rounds = 200;
+        BloodSaturationDataGenerator sequential = new BloodSaturationDataGenerator(PATIENTS, new SplittableRandom(1));
+        BloodSaturationDataGenerator parallel = new BloodSaturationDataGenerator(PATIENTS, new SplittableRandom(1));
+        RecordingOutput expected = new RecordingOutput();
+        for (int round = 0; round < rounds; round++) {
+            sequential.generateBatch(patientIds(), TIMESTAMP, expected);
+        }
+
+        // Four threads share the generator, each with a quarter of the patients
+        double[] last = new double[PATIENTS + 1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int[] quarter = Arrays.copyOfRange(patientIds(), t * PATIENTS / 4, (t + 1) * PATIENTS / 4);
+            threads[t] = new Thread(() -> {
+                OutputStrategy output = new OutputStrategy() {
+                    @Override
+                    public void output(int patientId, long timestamp, String label, String data) {
+                    }
+
+                    @Override
+                    public void outputBatch(String label, long timestamp, int[] ids, double[] values) {
+                        for (int i = 0; i < ids.length; i++) {
+                            last[ids[i]] = values[i];
+                        }
+                    }
+                };
+                for (int round = 0; round < rounds; round++) {
+                    parallel.generateBatch(quarter, TIMESTAMP, output);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double[] lastExpected = expected.batches.get("Saturation").get(rounds - 1);
+        for (int i = 0; i < PATIENTS; i++) {
+            assertEquals(lastExpected[i], last[i + 1], "Patient " + (i + 1));
+        }
+    }
+
+    @Test
+    void testEcgEmitsABlockOfSamplesAtTheSampleRate() {
+        ECGDataGenerator generator = new ECGDataGenerator(PATIENTS, new SplittableRandom(3), 250);
+        List<Long> timestamps = new ArrayList<>();
+        List<double[]> rows = new ArrayList<>();
+        OutputStrategy output = new OutputStrategy() {
+            @Override
+            public void output(int patientId, long timestamp, String label, String data) {
+                fail("Expected batches only");
+            }
+
+            @Override
+            public void outputBatch(String label, long timestamp, int[] patientIds, double[] values) {
+                assertEquals(PATIENTS, values.length);
+                timestamps.add(timestamp);
+                rows.add(values);
+            }
+        };
+
+        // The first call starts the signal, every further second emits 250 samples
+        generator.generateBatch(patientIds(), TIMESTAMP, output);
+        assertEquals(List.of(TIMESTAMP), timestamps);
+        int seconds = 60;
+        for (int second = 1; second <= seconds; second++) {
+            generator.generateBatch(patientIds(), TIMESTAMP + second * 1000L, output);
+        }
+        assertEquals(1 + seconds * 250, timestamps.size());
+        for (int k = 1; k < timestamps.size(); k++) {
+            assertEquals(timestamps.get(k - 1) + 4, timestamps.get(k));
+        }
+
+        // Count the R peaks of the first patient: 60 to 80 bpm, plus the odd premature beat
+        int beats = 0;
+        boolean inPeak = false;
+        for (double[] row : rows) {
+            assertTrue(row[0] > -1.5 && row[0] < 2.5, row[0] + " mV is not a plausible ECG value");
+            if (!inPeak && row[0] > 0.7) {
+                beats++;
+                inPeak = true;
+            } else if (row[0] < 0.3) {
+                inPeak = false;
+            }
+        }
+        assertTrue(beats >= 55 && beats <= 90, "Expected about 60-80 beats per minute but got " + beats);
+    }
+}
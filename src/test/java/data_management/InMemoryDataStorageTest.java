@@ -0,0 +1,58 @@
+package data_management;
+
+import com.data_management.InMemoryDataStorage;
+import com.data_management.Patient;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDataStorageTest {
+
+    @Test
+    void testLookupAcrossManyPatients() {
+        InMemoryDataStorage storage = new InMemoryDataStorage();
+        for (int id = 1; id <= 10_000; id++) {
+            storage.addPatientData(id, id * 0.5, "HeartRate", 1000L + id);
+        }
+
+        assertEquals(10_000, storage.getAllPatients().size());
+        for (int id = 1; id <= 10_000; id++) {
+            Patient patient = storage.getPatient(id);
+            assertNotNull(patient, "Patient " + id + " should be found");
+            assertEquals(id, patient.getPatientId());
+        }
+        assertNull(storage.getPatient(0));
+        assertNull(storage.getPatient(10_001));
+        assertEquals(1, storage.getRecords(42, 0L, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    void testBulkInsert() {
+        InMemoryDataStorage storage = new InMemoryDataStorage();
+        int[] ids = {1, 1, 2, 3, 1};
+        double[] values = {98.0, 97.0, 120.0, 80.0, 96.0};
+        String[] types = {"Saturation", "Saturation", "SystolicPressure", "DiastolicPressure", "Saturation"};
+        long[] timestamps = {1000L, 2000L, 1000L, 1000L, 3000L};
+
+        storage.addPatientData(ids, values, types, timestamps);
+
+        assertEquals(3, storage.getAllPatients().size());
+        assertEquals(3, storage.getPatient(1).getRecords("Saturation", 0L, Long.MAX_VALUE).size());
+        assertEquals(120.0, storage.getPatient(2).getRecords(0L, Long.MAX_VALUE).get(0).getMeasurementValue(), 0.001);
+    }
+
+    @Test
+    void testAddPatientKeepsExistingEntry() {
+        InMemoryDataStorage storage = new InMemoryDataStorage();
+        Patient first = new Patient(5);
+        storage.addPatient(first);
+        storage.addPatient(new Patient(5));
+
+        assertSame(first, storage.getPatient(5));
+        assertEquals(1, storage.getAllPatients().size());
+
+        storage.clear();
+        assertNull(storage.getPatient(5));
+        assertTrue(storage.getAllPatients().isEmpty());
+    }
+}
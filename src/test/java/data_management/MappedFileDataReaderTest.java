@@ -0,0 +1,79 @@
+package data_management;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.data_management.DataStorage;
+import com.data_management.FileDataReader;
+import com.data_management.MappedFileDataReader;
+import com.data_management.PatientRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileDataReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMatchesFileDataReaderAcrossChunks() throws Exception {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString());
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            int patientId = 1 + random.nextInt(20);
+            output.output(patientId, 1000L + i, "ECG", random.nextGaussian());
+            output.output(patientId, 1000L + i, "Saturation", 90 + random.nextInt(10));
+        }
+        output.close();
+
+        for (String label : new String[]{"ECG", "Saturation"}) {
+            String file = tempDir.resolve(label + ".txt").toString();
+            DataStorage expected = new DataStorage();
+            new FileDataReader(file).readData(expected);
+            DataStorage actual = new DataStorage();
+            // Small chunks so the file is split into many parallel pieces
+            new MappedFileDataReader(file, 4, 4096).readData(actual);
+
+            assertEquals(expected.getAllPatients().size(), actual.getAllPatients().size());
+            for (int patientId = 1; patientId <= 20; patientId++) {
+                List<PatientRecord> expectedRecords = expected.getRecords(patientId, 0, Long.MAX_VALUE);
+                List<PatientRecord> actualRecords = actual.getRecords(patientId, 0, Long.MAX_VALUE);
+                assertEquals(expectedRecords.size(), actualRecords.size());
+                for (int i = 0; i < expectedRecords.size(); i++) {
+                    assertEquals(expectedRecords.get(i).getTimestamp(), actualRecords.get(i).getTimestamp());
+                    assertEquals(expectedRecords.get(i).getMeasurementValue(), actualRecords.get(i).getMeasurementValue());
+                    assertEquals(label, actualRecords.get(i).getRecordType());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadsDirectoryAndSkipsMalformedLines() throws Exception {
+        Files.write(tempDir.resolve("ECG.txt"), (
+                "Patient ID: 1, Timestamp: 1000, Label: ECG, Data: 1.0E-4\r\n"
+                        + "garbage\n"
+                        + "Patient ID: 1, Timestamp: 1001, Label: ECG, Data: 0.12345678901234567\n"
+                        + "Patient ID: x, Timestamp: 1002, Label: ECG, Data: 1.0\n"
+                        + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(tempDir.resolve("Saturation.txt"),
+                "Patient ID: 2, Timestamp: 1000, Label: Saturation, Data: 97.0%\n".getBytes(StandardCharsets.UTF_8));
+
+        DataStorage storage = new DataStorage();
+        MappedFileDataReader reader = new MappedFileDataReader(tempDir.toString());
+        reader.readData(storage);
+
+        List<PatientRecord> ecg = storage.getRecords(1, 0, Long.MAX_VALUE);
+        assertEquals(2, ecg.size());
+        assertEquals(1.0E-4, ecg.get(0).getMeasurementValue());
+        assertEquals(0.12345678901234567, ecg.get(1).getMeasurementValue());
+        assertEquals(97.0, storage.getRecords(2, 0, Long.MAX_VALUE).get(0).getMeasurementValue());
+        assertEquals(2, reader.getSkippedLines());
+    }
+}
@@ -0,0 +1,86 @@
+package data_management;
+
+import com.data_management.Patient;
+import com.data_management.PatientRecord;
+import com.data_management.RecordSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatientTest {
+
+    @Test
+    void testRangeQueryExcludesBounds() {
+        Patient patient = new Patient(1);
+        patient.addRecord(1.0, "ECG", 1000L);
+        patient.addRecord(2.0, "ECG", 2000L);
+        patient.addRecord(3.0, "ECG", 3000L);
+
+        List<PatientRecord> records = patient.getRecords("ECG", 1000L, 3000L);
+
+        assertEquals(1, records.size());
+        assertEquals(2.0, records.get(0).getMeasurementValue(), 0.001);
+        assertEquals(2000L, records.get(0).getTimestamp());
+    }
+
+    @Test
+    void testOutOfOrderRecordsAreSorted() {
+        Patient patient = new Patient(1);
+        patient.addRecord(3.0, "Saturation", 3000L);
+        patient.addRecord(1.0, "Saturation", 1000L);
+        patient.addRecord(2.0, "Saturation", 2000L);
+
+        List<PatientRecord> records = patient.getRecords("Saturation", 0L, Long.MAX_VALUE);
+
+        assertEquals(3, records.size());
+        assertEquals(1000L, records.get(0).getTimestamp());
+        assertEquals(2000L, records.get(1).getTimestamp());
+        assertEquals(3000L, records.get(2).getTimestamp());
+    }
+
+    @Test
+    void testAllTypesAreMergedByTimestamp() {
+        Patient patient = new Patient(7);
+        patient.addRecord(120.0, "SystolicPressure", 1000L);
+        patient.addRecord(98.0, "Saturation", 500L);
+        patient.addRecord(80.0, "DiastolicPressure", 1500L);
+        patient.addRecord(97.0, "Saturation", 2000L);
+
+        List<PatientRecord> records = patient.getRecords(0L, Long.MAX_VALUE);
+
+        assertEquals(4, records.size());
+        assertEquals("Saturation", records.get(0).getRecordType());
+        assertEquals("SystolicPressure", records.get(1).getRecordType());
+        assertEquals("DiastolicPressure", records.get(2).getRecordType());
+        assertEquals("Saturation", records.get(3).getRecordType());
+        assertEquals(7, records.get(3).getPatientId());
+    }
+
+    @Test
+    void testViewIsUnaffectedByLaterRecords() {
+        Patient patient = new Patient(1);
+        for (int i = 0; i < 100; i++) {
+            patient.addRecord(i, "ECG", 1000L + i);
+        }
+        RecordSeries.View view = patient.getSeries("ECG").range(0L, Long.MAX_VALUE);
+
+        patient.addRecord(-1.0, "ECG", 500L); // out of order
+        for (int i = 100; i < 200; i++) {
+            patient.addRecord(i, "ECG", 1000L + i);
+        }
+
+        assertEquals(100, view.size());
+        assertEquals(0.0, view.getValue(0), 0.001);
+        assertEquals(1099L, view.getTimestamp(99));
+        assertEquals(201, patient.getSeries("ECG").size());
+    }
+
+    @Test
+    void testUnknownTypeReturnsEmptyList() {
+        Patient patient = new Patient(1);
+        assertTrue(patient.getRecords("HeartRate", 0L, Long.MAX_VALUE).isEmpty());
+        assertNull(patient.getSeries("HeartRate"));
+    }
+}
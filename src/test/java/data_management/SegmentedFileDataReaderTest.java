@@ -0,0 +1,95 @@
+package data_management;
+
+import com.cardio_generator.outputs.FileOutputStrategy;
+import com.cardio_generator.outputs.SegmentIndex;
+import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
+import com.data_management.SegmentedFileDataReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentedFileDataReaderTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Writes 10 hours of ECG data, one sample per minute for patients 1 and 2,
+     * plus patient 3 in the last hour only, into one-hour segments.
+     */
+    private void writeSegments(boolean binary) {
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString(), binary, 100, 1024, HOUR, 0);
+        for (long t = 0; t < 10 * HOUR; t += 60_000L) {
+            output.output(1, t, "ECG", 0.1);
+            output.output(2, t, "ECG", 0.2);
+            if (t >= 9 * HOUR) {
+                output.output(3, t, "ECG", 0.3);
+            }
+        }
+        output.close();
+    }
+
+    @Test
+    public void testSegmentsRollByTimeAndAreIndexed() throws Exception {
+        writeSegments(false);
+
+        assertTrue(Files.exists(tempDir.resolve("ECG-000001.txt")));
+        assertTrue(Files.exists(tempDir.resolve("ECG-000010.txt")));
+        assertFalse(Files.exists(tempDir.resolve("ECG-000011.txt")));
+
+        SegmentIndex index = SegmentIndex.read(tempDir.resolve("ECG-000003.idx"));
+        assertEquals(2 * HOUR, index.getMinTimestamp());
+        assertEquals(3 * HOUR - 60_000L, index.getMaxTimestamp());
+        assertEquals(120, index.getRecordCount());
+        assertTrue(index.containsPatient(2));
+        assertFalse(index.containsPatient(3));
+    }
+
+    @Test
+    public void testTimeRangeSkipsOtherSegments() throws Exception {
+        writeSegments(false);
+
+        DataStorage storage = new DataStorage();
+        SegmentedFileDataReader reader = new SegmentedFileDataReader(tempDir.toString(), 4 * HOUR, 5 * HOUR - 1);
+        reader.readData(storage);
+
+        assertEquals(1, reader.getSegmentsRead());
+        assertEquals(9, reader.getSegmentsSkipped());
+        List<PatientRecord> records = storage.getRecords(1, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(60, records.size());
+        assertEquals(4 * HOUR, records.get(0).getTimestamp());
+    }
+
+    @Test
+    public void testPatientFilterUsesBitmap() throws Exception {
+        writeSegments(true);
+
+        DataStorage storage = new DataStorage();
+        SegmentedFileDataReader reader = new SegmentedFileDataReader(tempDir.toString(), 0, 10 * HOUR, new int[]{3});
+        reader.readData(storage);
+
+        assertEquals(1, reader.getSegmentsRead());
+        assertEquals(1, storage.getAllPatients().size());
+        assertEquals(60, storage.getRecords(3, Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+
+    @Test
+    public void testRestartContinuesNumbering() throws Exception {
+        writeSegments(false);
+        FileOutputStrategy output = new FileOutputStrategy(tempDir.toString(), false, 100, 1024, HOUR, 0);
+        output.output(1, 11 * HOUR, "ECG", 0.1);
+        output.close();
+
+        assertTrue(Files.exists(tempDir.resolve("ECG-000011.txt")));
+        // The last segment of the first run was indexed and is not appended to
+        assertEquals(180, Files.readAllLines(tempDir.resolve("ECG-000010.txt")).size());
+    }
+}
@@ -0,0 +1,121 @@
+package data_management;
+
+import com.cardio_generator.outputs.TcpOutputStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TcpOutputStrategyTest {
+
+    private TcpOutputStrategy output;
+
+    @AfterEach
+    public void tearDown() {
+        if (output != null) {
+            output.close();
+        }
+    }
+
+    private void awaitClients(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (output.getClientCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, output.getClientCount());
+    }
+
+    @Test
+    public void testEveryClientReceivesAllMessages() throws Exception {
+        output = new TcpOutputStrategy(0, false);
+        try (Socket first = new Socket("localhost", output.getPort());
+             Socket second = new Socket("localhost", output.getPort())) {
+            awaitClients(2);
+
+            for (int i = 0; i < 1000; i++) {
+                output.output(1, 1000L + i, "ECG", "0.5");
+            }
+
+            for (Socket socket : new Socket[]{first, second}) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                assertEquals("1,1000,ECG,0.5", reader.readLine());
+                String last = null;
+                for (int i = 1; i < 1000; i++) {
+                    last = reader.readLine();
+                }
+                assertEquals("1,1999,ECG,0.5", last);
+            }
+        }
+    }
+
+    @Test
+    public void testSlowClientDoesNotBlockOutputAndIsDisconnected() throws Exception {
+        output = new TcpOutputStrategy(0, false, 64 * 1024, TcpOutputStrategy.SlowConsumerPolicy.DISCONNECT);
+        try (Socket stalled = new Socket("localhost", output.getPort())) {
+            stalled.setReceiveBufferSize(4096);
+            awaitClients(1);
+
+            // The stalled client never reads; output must still return promptly
+            long start = System.nanoTime();
+            String payload = new String(new char[200]).replace('\0', 'x');
+            for (int i = 0; i < 200_000 && output.getDisconnectedClients() == 0; i++) {
+                output.output(1, i, "ECG", payload);
+            }
+            assertTrue(System.nanoTime() - start < 30_000_000_000L);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (output.getDisconnectedClients() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, output.getDisconnectedClients());
+            assertEquals(0, output.getClientCount());
+        }
+    }
+
+    @Test
+    public void testSlowClientMessagesAreDropped() throws Exception {
+        output = new TcpOutputStrategy(0, false, 16 * 1024, TcpOutputStrategy.SlowConsumerPolicy.DROP);
+        try (Socket stalled = new Socket("localhost", output.getPort())) {
+            stalled.setReceiveBufferSize(4096);
+            awaitClients(1);
+
+            String payload = new String(new char[200]).replace('\0', 'x');
+            for (int i = 0; i < 200_000 && output.getDroppedMessages() == 0; i++) {
+                output.output(1, i, "ECG", payload);
+            }
+
+            assertTrue(output.getDroppedMessages() > 0);
+            assertEquals(1, output.getClientCount());
+        }
+    }
+    @Test
+    public void testMessageLargerThanQueueLimitIsSentToIdleClient() throws Exception {
+        output = new TcpOutputStrategy(0, false, 64, TcpOutputStrategy.SlowConsumerPolicy.DISCONNECT);
+        try (Socket socket = new Socket("localhost", output.getPort())) {
+            awaitClients(1);
+
+            int[] patientIds = new int[100];
+            double[] values = new double[100];
+            for (int i = 0; i < patientIds.length; i++) {
+                patientIds[i] = i + 1;
+                values[i] = 0.5;
+            }
+            output.outputBatch("ECG", 1000L, patientIds, values);
+
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            for (int i = 1; i <= patientIds.length; i++) {
+                assertTrue(reader.readLine().startsWith(i + ",1000,ECG,"));
+            }
+            assertEquals(0, output.getDisconnectedClients());
+            assertEquals(0, output.getDroppedMessages());
+            assertEquals(1, output.getClientCount());
+        }
+    }
+}
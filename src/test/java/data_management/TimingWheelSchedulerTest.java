@@ -0,0 +1,133 @@
+package data_management;
+
+import com.cardio_generator.TimingWheelScheduler;
+import com.cardio_generator.generators.AlertGenerator;
+import com.cardio_generator.generators.BloodPressureDataGenerator;
+import com.cardio_generator.generators.ECGDataGenerator;
+import com.cardio_generator.generators.PatientDataGenerator;
+import com.cardio_generator.outputs.OutputStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelSchedulerTest {
+
+    private static final OutputStrategy NO_OUTPUT = (patientId, timestamp, label, data) -> { };
+
+    private TimingWheelScheduler scheduler;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Counts how often it ran for each patient.
+     */
+    private static class CountingGenerator implements PatientDataGenerator {
+        final AtomicIntegerArray runs;
+
+        CountingGenerator(int patientCount) {
+            runs = new AtomicIntegerArray(patientCount + 1);
+        }
+
+        @Override
+        public void generate(int patientId, OutputStrategy outputStrategy) {
+            runs.incrementAndGet(patientId);
+        }
+    }
+
+    private static int[] patients(int from, int to) {
+        int[] ids = new int[to - from + 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = from + i;
+        }
+        return ids;
+    }
+
+    @Test
+    void testManyPatientsRunWithFewThreads() throws InterruptedException {
+        int patientCount = 20_000;
+        CountingGenerator generator = new CountingGenerator(patientCount);
+        scheduler = new TimingWheelScheduler(NO_OUTPUT, 2, 10, 64);
+        scheduler.schedule(generator, patients(1, patientCount / 2), 10, 50, TimeUnit.MILLISECONDS);
+        scheduler.schedule(generator, patients(patientCount / 2 + 1, patientCount), 30, 50, TimeUnit.MILLISECONDS);
+        scheduler.start();
+
+        Thread.sleep(500);
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int patientId = 1; patientId <= patientCount; patientId++) {
+            min = Math.min(min, generator.runs.get(patientId));
+            max = Math.max(max, generator.runs.get(patientId));
+        }
+        assertTrue(min >= 3, "Every patient should run about every 50 ms, but one ran " + min + " times");
+        assertTrue(max - min <= 1, "Patients of both groups should run equally often");
+        assertEquals(scheduler.getGeneratedCount(), sumOf(generator.runs));
+    }
+
+    @Test
+    void testPeriodLongerThanOneTurnOfTheWheel() throws InterruptedException {
+        CountingGenerator generator = new CountingGenerator(1);
+        // 4 slots of 10 ms, so a 100 ms period wraps around the wheel
+        scheduler = new TimingWheelScheduler(NO_OUTPUT, 1, 10, 4);
+        scheduler.schedule(generator, new int[]{1}, 10, 100, TimeUnit.MILLISECONDS);
+        scheduler.start();
+
+        Thread.sleep(350);
+        int runs = generator.runs.get(1);
+        assertTrue(runs >= 3 && runs <= 4, "Expected a run every 100 ms but got " + runs + " runs");
+    }
+
+    @Test
+    void testVirtualClockIsDeterministic() throws InterruptedException {
+        String first = replay(42);
+        assertEquals(first, replay(42), "The same seed should produce the same output");
+        assertNotEquals(first, replay(7), "Another seed should produce other values");
+        // Ticks of 100 ms from the start time; a delay of 0 still waits for the first tick
+        assertTrue(first.contains("\n1,1000001000,ECG,"), "Expected the first ECG after one virtual second");
+        assertTrue(first.contains(",1003540100,SystolicPressure,"), "Expected the last blood pressure of the hour");
+    }
+
+    /**
+     * Simulates one hour of three seeded generators on the virtual clock and
+     * returns everything they output.
+     */
+    private String replay(long seed) throws InterruptedException {
+        StringBuilder output = new StringBuilder();
+        SplittableRandom root = new SplittableRandom(seed);
+        TimingWheelScheduler virtual = new TimingWheelScheduler(
+                (patientId, timestamp, label, data) -> output.append(patientId).append(',').append(timestamp)
+                        .append(',').append(label).append(',').append(data).append('\n'),
+                4);
+        int[] patients = patients(1, 20);
+        virtual.schedule(new ECGDataGenerator(20, root.split()), patients, 1, 1, TimeUnit.SECONDS);
+        virtual.schedule(new BloodPressureDataGenerator(20, root.split()), patients, 0, 1, TimeUnit.MINUTES);
+        virtual.schedule(new AlertGenerator(20, root.split()), patients, 3, 20, TimeUnit.SECONDS);
+        long start = System.nanoTime();
+        assertEquals(36_000, virtual.runVirtual(1_000_000_000L, TimeUnit.HOURS.toMillis(1), 0));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10), "A virtual hour should not take real time");
+        assertEquals(36_000, virtual.getTickCount());
+        virtual.shutdown();
+        return output.toString();
+    }
+
+    private static long sumOf(AtomicIntegerArray counts) {
+        long sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            sum += counts.get(i);
+        }
+        return sum;
+    }
+}
@@ -5,6 +5,9 @@ import com.alerts.decorator.PriorityAlertDecorator;
 import com.alerts.decorator.RepeatedAlertDecorator;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AlertDecoratorTest {
@@ -37,4 +40,21 @@ class AlertDecoratorTest {
         // Call repeatCheck() and just ensure it completes (can also capture output if needed)
         decorator.repeatCheck();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRepeatedAlertRepeatCheckDoesNotBlock() throws Exception {
+        Alert baseAlert = new Alert("789", "High BP", 3000L);
+        RepeatedAlertDecorator decorator = new RepeatedAlertDecorator(baseAlert, 3, 10);
+
+        long start = System.nanoTime();
+        ScheduledFuture<?> checks = decorator.repeatCheck();
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+        // The task cancels itself after the last check
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!checks.isDone() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(checks.isCancelled());
+    }
+}
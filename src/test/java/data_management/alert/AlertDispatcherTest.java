@@ -0,0 +1,150 @@
+package data_management.alert;
+
+import com.alerts.Alert;
+import com.alerts.AlertGenerator;
+import com.alerts.dispatch.AlertDispatcher;
+import com.alerts.dispatch.AlertSink;
+import com.alerts.dispatch.ConsoleAlertSink;
+import com.alerts.factory.BloodOxygenAlertFactory;
+import com.data_management.InMemoryDataStorage;
+import com.data_management.PatientRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertDispatcherTest {
+
+    private final List<Alert> received = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private final AlertSink collectingSink = alerts -> {
+        batchSizes.add(alerts.size());
+        received.addAll(alerts);
+    };
+
+    @AfterEach
+    void tearDown() {
+        AlertDispatcher.setDefault(null);
+    }
+
+    @Test
+    void testAllAlertsAreDeliveredInOrder() {
+        AlertDispatcher dispatcher = new AlertDispatcher(1000, 64, AlertDispatcher.OverflowPolicy.BLOCK, collectingSink);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(dispatcher.submit(new Alert("1", "Condition " + i, i)));
+        }
+        dispatcher.close();
+
+        assertEquals(500, received.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, received.get(i).getTimestamp());
+        }
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 64));
+        assertEquals(500, dispatcher.getDeliveredCount());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void testDropNewestWhenSinkIsStalled() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AlertSink stalledSink = alerts -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        AlertDispatcher dispatcher = new AlertDispatcher(10, 1, AlertDispatcher.OverflowPolicy.DROP_NEWEST, stalledSink);
+
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (dispatcher.submit(new Alert("1", "Low Saturation Alert", i))) {
+                accepted++;
+            }
+        }
+        release.countDown();
+        dispatcher.close();
+
+        // At most the queue plus the batch being delivered can be accepted
+        assertTrue(accepted <= 11, "Accepted " + accepted);
+        assertEquals(100 - accepted, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    void testAlertsSubmittedDuringCloseAreDeliveredOrDropped() throws InterruptedException {
+        AlertDispatcher dispatcher = new AlertDispatcher(4, 1, AlertDispatcher.OverflowPolicy.BLOCK, collectingSink);
+        AtomicLong attempts = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    attempts.incrementAndGet();
+                    dispatcher.submit(new Alert("1", "Low Saturation Alert", i));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        Thread.sleep(5);
+        dispatcher.close();
+        for (Thread producer : producers) {
+            producer.join(5000);
+            assertFalse(producer.isAlive(), "A producer is blocked on the closed dispatcher");
+        }
+
+        assertEquals(attempts.get(), dispatcher.getDeliveredCount() + dispatcher.getDroppedCount());
+        assertEquals(0, dispatcher.getQueuedCount());
+    }
+
+    @Test
+    void testDefaultDispatcherReceivesTriggeredAlerts() {
+        AlertDispatcher dispatcher = new AlertDispatcher(collectingSink);
+        AlertDispatcher.setDefault(dispatcher);
+
+        new Alert("3", "High Heart Rate Alert", 42L).triggerAlert();
+        new BloodOxygenAlertFactory().raiseAlert("3", "Low Saturation Alert", 43L);
+        dispatcher.close();
+
+        assertEquals(2, received.size());
+        assertNull(AlertDispatcher.getDefault(), "Closing the default dispatcher should unset it");
+    }
+
+    @Test
+    void testAlertGeneratorUsesItsDispatcher() {
+        AlertDispatcher dispatcher = new AlertDispatcher(collectingSink);
+        AlertGenerator generator = new AlertGenerator(new InMemoryDataStorage());
+        generator.setDispatcher(dispatcher);
+
+        List<PatientRecord> records = new ArrayList<>();
+        records.add(new PatientRecord(1, 190.0, "SystolicPressure", 1000L));
+        generator.bloodPressureCriticalThresholdAlert(records, "SystolicPressure");
+        dispatcher.close();
+
+        assertEquals(1, received.size());
+        assertEquals("SystolicPressure Critical Threshold Alert", received.get(0).getCondition());
+    }
+
+    @Test
+    void testConsoleSinkPrintsOneLinePerAlert() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ConsoleAlertSink sink = new ConsoleAlertSink(new PrintStream(output));
+        List<Alert> alerts = new ArrayList<>();
+        alerts.add(new Alert("1", "ECG Irregularity", 1L));
+        alerts.add(new Alert("2", "Low Saturation Alert", 2L));
+
+        sink.deliver(alerts);
+
+        String[] lines = output.toString().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertEquals("Alert for patient 1, Condition: ECG Irregularity, Time: 1", lines[0]);
+    }
+}
@@ -0,0 +1,85 @@
+package data_management.alert;
+
+import com.alerts.AlertEvaluationScheduler;
+import com.alerts.AlertGenerator;
+import com.data_management.DataStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertEvaluationSchedulerTest {
+
+    private static final int PATIENTS = 5000;
+
+    private DataStorage storage;
+    private AlertEvaluationScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        storage = new DataStorage();
+        long now = System.currentTimeMillis();
+        for (int id = 1; id <= PATIENTS; id++) {
+            // Normal readings, so no alerts are printed
+            storage.addPatientData(id, 97.0, "Saturation", now - 1000);
+            storage.addPatientData(id, 120.0, "SystolicPressure", now - 1000);
+        }
+        scheduler = new AlertEvaluationScheduler(storage, new AlertGenerator(storage, true), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testEveryPatientIsEvaluatedOncePerCycle() {
+        Map<Integer, AtomicInteger> evaluations = new ConcurrentHashMap<>();
+        scheduler.addStrategy(patient ->
+                evaluations.computeIfAbsent(patient.getPatientId(), id -> new AtomicInteger()).incrementAndGet());
+
+        scheduler.runCycle();
+        scheduler.runCycle();
+
+        assertEquals(PATIENTS, evaluations.size());
+        evaluations.values().forEach(count -> assertEquals(2, count.get()));
+        assertEquals(2, scheduler.getCycleCount());
+        assertEquals(PATIENTS, scheduler.getLastCyclePatientCount());
+        assertEquals(0, scheduler.getMissedDeadlineCount());
+        assertTrue(scheduler.getLastCycleDuration(TimeUnit.NANOSECONDS) > 0);
+    }
+
+    @Test
+    void testCycleStopsAtDeadline() {
+        scheduler.addStrategy(patient -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        scheduler.runCycle(50, TimeUnit.MILLISECONDS);
+
+        assertTrue(scheduler.getLastCycleSkippedCount() > 0, "Slow evaluations should run past the deadline");
+        assertEquals(PATIENTS, scheduler.getLastCyclePatientCount() + scheduler.getLastCycleSkippedCount());
+        assertEquals(1, scheduler.getMissedDeadlineCount());
+    }
+
+    @Test
+    void testPeriodicCycles() throws InterruptedException {
+        scheduler.start(20, TimeUnit.MILLISECONDS);
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while (scheduler.getCycleCount() < 3 && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+        assertTrue(scheduler.getCycleCount() >= 3);
+        assertThrows(IllegalStateException.class, () -> scheduler.start(20, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,96 @@
+package data_management.alert;
+
+import com.alerts.Alert;
+import com.alerts.AlertGenerator;
+import com.alerts.AlertSuppressionCache;
+import com.alerts.dispatch.AlertDispatcher;
+import com.data_management.InMemoryDataStorage;
+import com.data_management.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertSuppressionCacheTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void testDuplicateAlertIsSuppressedUntilRenotifyInterval() {
+        AlertSuppressionCache cache = new AlertSuppressionCache(10 * MINUTE, 60 * MINUTE);
+
+        assertTrue(cache.shouldNotify("1", "Low Saturation Alert", 0));
+        assertFalse(cache.shouldNotify("1", "Low Saturation Alert", 0), "Same sample seen again");
+        assertFalse(cache.shouldNotify("1", "Low Saturation Alert", 5 * MINUTE));
+        assertTrue(cache.shouldNotify("1", "Low Saturation Alert", 10 * MINUTE));
+        assertEquals(2, cache.getSuppressedCount());
+    }
+
+    @Test
+    void testPatientsAndConditionsAreTrackedSeparately() {
+        AlertSuppressionCache cache = new AlertSuppressionCache();
+
+        assertTrue(cache.shouldNotify("1", "Low Saturation Alert", 0));
+        assertTrue(cache.shouldNotify("2", "Low Saturation Alert", 0));
+        assertTrue(cache.shouldNotify("1", "ECG Irregularity", 0));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testExpiredEntriesAreEvicted() {
+        AlertSuppressionCache cache = new AlertSuppressionCache(MINUTE, 10 * MINUTE);
+        for (int patient = 0; patient < 100; patient++) {
+            cache.shouldNotify(String.valueOf(patient), "ECG Irregularity", 0);
+        }
+        assertEquals(100, cache.size());
+
+        cache.shouldNotify("1000", "ECG Irregularity", 20 * MINUTE);
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testRepeatedEvaluationReportsEachAlertOnce() {
+        List<Alert> alerts = Collections.synchronizedList(new ArrayList<>());
+        AlertDispatcher dispatcher = new AlertDispatcher(alerts::addAll);
+        InMemoryDataStorage storage = new InMemoryDataStorage();
+        Patient patient = new Patient(1);
+        storage.addPatient(patient);
+        long now = System.currentTimeMillis();
+        patient.addRecord(85.0, "Saturation", now - 2000);
+        patient.addRecord(86.0, "Saturation", now - 1000);
+
+        AlertGenerator generator = new AlertGenerator(storage);
+        generator.setSuppressionCache(new AlertSuppressionCache());
+        generator.setDispatcher(dispatcher);
+        for (int cycle = 0; cycle < 5; cycle++) {
+            generator.evaluateData(patient);
+        }
+        dispatcher.close();
+
+        assertEquals(1, alerts.stream().filter(alert -> alert.getCondition().equals("Low Saturation Alert")).count());
+        assertTrue(generator.getSuppressionCache().getSuppressedCount() > 0);
+    }
+
+    @Test
+    void testGeneratorReportsEveryAlertByDefault() {
+        List<Alert> alerts = Collections.synchronizedList(new ArrayList<>());
+        AlertDispatcher dispatcher = new AlertDispatcher(alerts::addAll);
+        InMemoryDataStorage storage = new InMemoryDataStorage();
+        Patient patient = new Patient(1);
+        storage.addPatient(patient);
+        patient.addRecord(85.0, "Saturation", System.currentTimeMillis() - 1000);
+
+        AlertGenerator generator = new AlertGenerator(storage);
+        generator.setDispatcher(dispatcher);
+        generator.evaluateData(patient);
+        generator.evaluateData(patient);
+        dispatcher.close();
+
+        assertNull(generator.getSuppressionCache());
+        assertEquals(2, alerts.stream().filter(alert -> alert.getCondition().equals("Low Saturation Alert")).count());
+    }
+}
@@ -0,0 +1,70 @@
+package data_management.alert;
+
+import com.alerts.Alert;
+import com.alerts.EcgAnomalyDetector;
+import com.alerts.IncrementalAlertEvaluator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EcgAnomalyDetectorTest {
+
+    @Test
+    void testMatchesRecomputedWindowAverage() {
+        Random random = new Random(7);
+        double[] samples = new double[5000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 1.0 + random.nextDouble() * (i % 97 == 0 ? 3.0 : 0.3);
+        }
+
+        int windowSize = 25;
+        double threshold = 1.4;
+        EcgAnomalyDetector detector = new EcgAnomalyDetector(windowSize, threshold);
+        for (int i = 0; i < samples.length; i++) {
+            boolean expected = false;
+            if (i >= windowSize) {
+                double sum = 0;
+                for (int j = i - windowSize; j < i; j++) {
+                    sum += samples[j];
+                }
+                expected = samples[i] > threshold * (sum / windowSize);
+            }
+            assertEquals(expected, detector.offer(samples[i]), "Mismatch at sample " + i);
+        }
+    }
+
+    @Test
+    void testNoAlertUntilWindowIsFull() {
+        EcgAnomalyDetector detector = new EcgAnomalyDetector(3, 1.5);
+        assertFalse(detector.offer(1.0));
+        assertFalse(detector.offer(1.0));
+        assertFalse(detector.offer(5.0));
+        assertTrue(detector.offer(20.0));
+    }
+
+    @Test
+    void testInvalidWindowIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new EcgAnomalyDetector(0, 1.5));
+    }
+
+    @Test
+    void testPerPatientSettingsInIncrementalEvaluator() {
+        List<Alert> alerts = new ArrayList<>();
+        EcgAnomalyDetector.Settings strict = new EcgAnomalyDetector.Settings(2, 1.1);
+        IncrementalAlertEvaluator evaluator = new IncrementalAlertEvaluator(alerts::add,
+                patientId -> patientId == 1 ? strict : EcgAnomalyDetector.Settings.DEFAULT);
+
+        double[] values = {1.0, 1.0, 1.2};
+        for (int i = 0; i < values.length; i++) {
+            evaluator.onMeasurement(1, values[i], "ECG", i);
+            evaluator.onMeasurement(2, values[i], "ECG", i);
+        }
+
+        assertEquals(1, alerts.size());
+        assertEquals("1", alerts.get(0).getPatientId());
+    }
+}
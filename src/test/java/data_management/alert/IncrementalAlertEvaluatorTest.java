@@ -0,0 +1,143 @@
+package data_management.alert;
+
+import com.alerts.Alert;
+import com.alerts.IncrementalAlertEvaluator;
+import com.data_management.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalAlertEvaluatorTest {
+
+    private List<Alert> alerts;
+    private IncrementalAlertEvaluator evaluator;
+    private Patient patient;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        alerts = new ArrayList<>();
+        evaluator = new IncrementalAlertEvaluator(alerts::add);
+        patient = new Patient(1);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    void testAlertFiresOnlyOnce() {
+        patient.addRecord(90.0, "Saturation", now - 60_000);
+        evaluator.evaluate(patient);
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("Low Saturation Alert"));
+    }
+
+    @Test
+    void testOnlyNewRecordsAreEvaluated() {
+        patient.addRecord(190.0, "SystolicPressure", now - 60_000);
+        evaluator.evaluate(patient);
+        patient.addRecord(120.0, "SystolicPressure", now - 30_000);
+        patient.addRecord(185.0, "SystolicPressure", now - 10_000);
+        evaluator.evaluate(patient);
+
+        assertEquals(2, count("SystolicPressure Critical Threshold Alert"));
+    }
+
+    @Test
+    void testLateRecordDoesNotRepeatAlerts() {
+        patient.addRecord(190.0, "SystolicPressure", now - 10_000);
+        evaluator.evaluate(patient);
+        // Inserted before the evaluated record, which shifts it to a later position
+        patient.addRecord(200.0, "SystolicPressure", now - 20_000);
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("SystolicPressure Critical Threshold Alert"));
+    }
+
+    @Test
+    void testLateRecordWithLatestTimestampIsEvaluated() {
+        patient.addRecord(120.0, "SystolicPressure", now - 10_000);
+        patient.addRecord(185.0, "SystolicPressure", now - 5_000);
+        evaluator.evaluate(patient);
+        patient.addRecord(80.0, "SystolicPressure", now - 30_000);
+        patient.addRecord(190.0, "SystolicPressure", now - 5_000);
+        evaluator.evaluate(patient);
+        evaluator.evaluate(patient);
+
+        assertEquals(2, count("SystolicPressure Critical Threshold Alert"));
+    }
+
+    @Test
+    void testRecordsOlderThanOneDayAreSkippedOnFirstEvaluation() {
+        patient.addRecord(50.0, "DiastolicPressure", now - 2L * 24 * 60 * 60 * 1000);
+        evaluator.evaluate(patient);
+
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void testTrendAcrossEvaluations() {
+        patient.addRecord(100.0, "SystolicPressure", now - 30_000);
+        patient.addRecord(111.0, "SystolicPressure", now - 20_000);
+        evaluator.evaluate(patient);
+        patient.addRecord(122.0, "SystolicPressure", now - 10_000);
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("SystolicPressure Trend Alert increase"));
+    }
+
+    @Test
+    void testRapidDropWithinTenMinutes() {
+        patient.addRecord(98.0, "Saturation", now - 9 * 60_000);
+        patient.addRecord(97.0, "Saturation", now - 6 * 60_000);
+        patient.addRecord(92.5, "Saturation", now - 60_000);
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("Rapid Drop of Blood Saturation"));
+    }
+
+    @Test
+    void testNoRapidDropOutsideWindow() {
+        patient.addRecord(98.0, "Saturation", now - 20 * 60_000);
+        patient.addRecord(92.5, "Saturation", now - 60_000);
+        evaluator.evaluate(patient);
+
+        assertEquals(0, count("Rapid Drop of Blood Saturation"));
+    }
+
+    @Test
+    void testHypotensiveHypoxemia() {
+        patient.addRecord(85.0, "SystolicPressure", now - 3000);
+        patient.addRecord(91.0, "Saturation", now - 2000);
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("Hypotensive Hypoxemia Alert"));
+    }
+
+    @Test
+    void testEcgSpike() {
+        double[] values = {1.0, 1.0, 1.1, 0.9, 1.0, 2.0};
+        for (int i = 0; i < values.length; i++) {
+            patient.addRecord(values[i], "ECG", now - 10_000 + i * 1000);
+        }
+        evaluator.evaluate(patient);
+
+        assertEquals(1, count("ECG Irregularity"));
+    }
+
+    @Test
+    void testStreamingMeasurements() {
+        evaluator.onMeasurement(2, 50.0, "DiastolicPressure", now);
+        evaluator.onMeasurement(2, 70.0, "HeartRate", now);
+
+        assertEquals(1, alerts.size());
+        assertEquals("2", alerts.get(0).getPatientId());
+    }
+
+    private long count(String condition) {
+        return alerts.stream().filter(alert -> alert.getCondition().equals(condition)).count();
+    }
+}
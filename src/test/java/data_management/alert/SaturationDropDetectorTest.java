@@ -0,0 +1,50 @@
+package data_management.alert;
+
+import com.alerts.SaturationDropDetector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaturationDropDetectorTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void testDropWithinWindowStartsEpisode() {
+        SaturationDropDetector detector = new SaturationDropDetector();
+        assertFalse(detector.offer(98.0, 0));
+        assertFalse(detector.offer(96.0, 2 * MINUTE));
+        assertTrue(detector.offer(92.5, 9 * MINUTE));
+        assertTrue(detector.isInEpisode());
+    }
+
+    @Test
+    void testOneAlertPerEpisode() {
+        SaturationDropDetector detector = new SaturationDropDetector();
+        int episodes = 0;
+        double[] values = {98, 92, 91, 92, 97, 97, 91, 90};
+        for (int i = 0; i < values.length; i++) {
+            if (detector.offer(values[i], i * MINUTE)) {
+                episodes++;
+            }
+        }
+        // 92, 91, 92 form the first episode; 97 ends it; 91, 90 form the second
+        assertEquals(2, episodes);
+    }
+
+    @Test
+    void testHighReadingLeavesWindow() {
+        SaturationDropDetector detector = new SaturationDropDetector();
+        detector.offer(99.0, 0);
+        detector.offer(95.0, 5 * MINUTE);
+        // 99 is now more than ten minutes old, 95 is the highest reading left
+        assertFalse(detector.offer(93.0, 10 * MINUTE + 1));
+    }
+
+    @Test
+    void testExactlyFivePointsIsNotADrop() {
+        SaturationDropDetector detector = new SaturationDropDetector();
+        detector.offer(97.0, 0);
+        assertFalse(detector.offer(92.0, MINUTE));
+    }
+}
@@ -1,15 +1,42 @@
 package data_management.websocket;
 
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
 import com.data_management.DataStorage;
 import com.data_management.MyWebSocketDataReader;
+import com.data_management.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MyWebSocketDataReaderTest {
 
+    private WebSocketOutputStrategy server;
+    private MyWebSocketDataReader reader;
+    private Proxy proxy;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (reader != null) {
+            reader.close();
+        }
+        if (proxy != null) {
+            proxy.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
     @Test
     public void testMalformedWebSocketUrlThrowsIOException() {
         MyWebSocketDataReader reader = new MyWebSocketDataReader("::::");
@@ -25,4 +52,146 @@ public class MyWebSocketDataReaderTest {
         assertDoesNotThrow(() -> reader.readData(DataStorage.getInstance()));
         */
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConnectsOnceServerStarts() throws Exception {
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        DataStorage storage = new DataStorage();
+        reader = new MyWebSocketDataReader("ws://localhost:" + port, 50, 200);
+        assertDoesNotThrow(() -> reader.readData(storage));
+        assertFalse(reader.isConnected());
+
+        server = new WebSocketOutputStrategy(port);
+        await(() -> server.getConnectionCount() == 1);
+        server.output(7, 1000L, "HeartRate", "72.0");
+        await(() -> storage.getPatient(7) != null);
+    }
+
+    @Test
+    public void testReconnectReplaysMissedSamples() throws Exception {
+        server = new WebSocketOutputStrategy(0);
+        proxy = new Proxy(server.getPort());
+        DataStorage storage = new DataStorage();
+        reader = new MyWebSocketDataReader("ws://localhost:" + proxy.getPort(), 50, 200);
+        reader.readData(storage);
+        // The client sees the connection open before the server has registered it
+        await(() -> server.getConnectionCount() == 1);
+
+        for (int i = 0; i < 100; i++) {
+            server.output(1, 1000L + i, "HeartRate", "70.0");
+        }
+        await(() -> recordCount(storage) == 100);
+
+        // A network outage: the connection is dropped and samples are produced meanwhile
+        proxy.dropConnections();
+        await(() -> !reader.isConnected());
+        for (int i = 100; i < 200; i++) {
+            server.output(1, 1000L + i, "HeartRate", "70.0");
+        }
+        // Same timestamp as the last stored sample, and older: resuming by time would skip these
+        server.output(2, 1099L, "HeartRate", "80.0");
+        server.output(3, 500L, "HeartRate", "90.0");
+
+        await(() -> reader.getReconnectCount() == 1 && recordCount(storage) >= 200);
+        await(() -> recordCount(storage, 2) == 1 && recordCount(storage, 3) == 1);
+        Thread.sleep(100);
+        assertEquals(200, recordCount(storage), "Every sample should be stored exactly once");
+        assertEquals(1, recordCount(storage, 2));
+        assertEquals(1, recordCount(storage, 3));
+    }
+
+    private static int recordCount(DataStorage storage) {
+        return recordCount(storage, 1);
+    }
+
+    private static int recordCount(DataStorage storage, int patientId) {
+        Patient patient = storage.getPatient(patientId);
+        return patient == null ? 0 : patient.getRecords(0, Long.MAX_VALUE).size();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for condition");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A TCP proxy whose connections can be dropped to simulate a network
+     * outage.
+     */
+    private static class Proxy {
+        private final ServerSocket listener;
+        private final int targetPort;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+        Proxy(int targetPort) throws IOException {
+            this.listener = new ServerSocket(0);
+            this.targetPort = targetPort;
+            Thread acceptor = new Thread(this::accept, "test-proxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return listener.getLocalPort();
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    Socket client = listener.accept();
+                    Socket upstream = new Socket("localhost", targetPort);
+                    sockets.add(client);
+                    sockets.add(upstream);
+                    pipe(client, upstream);
+                    pipe(upstream, client);
+                }
+            } catch (IOException e) {
+                // Proxy closed
+            }
+        }
+
+        private void pipe(Socket from, Socket to) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[8192];
+                try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    // Connection dropped
+                }
+                closeQuietly(from);
+                closeQuietly(to);
+            }, "test-proxy-pipe");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void dropConnections() {
+            for (Socket socket : sockets) {
+                closeQuietly(socket);
+            }
+            sockets.clear();
+        }
+
+        void close() throws IOException {
+            listener.close();
+            dropConnections();
+        }
+
+        private static void closeQuietly(Socket socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
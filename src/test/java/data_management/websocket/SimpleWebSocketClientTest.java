@@ -2,10 +2,12 @@ package data_management.websocket;
 
 import com.cardio_generator.SimpleVersWebSocket;
 import com.data_management.DataStorage;
+import com.data_management.PatientRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.URI;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,4 +44,23 @@ public class SimpleWebSocketClientTest {
         client.onMessage(message);
         assertEquals(0, storage.getAllPatients().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchedMessageIsStoredExceptMalformedLines() {
+        client.onMessage("1,1000,Saturation,97.5%\n"
+                + "2, 1001 , HeartRate , 72\n"
+                + "x,1002,HeartRate,70\n"
+                + "1,1003,Saturation,-0.125\n"
+                + "1,1004,Saturation,1.5e2\n"
+                + "3,1005,HeartRate,\n");
+
+        List<PatientRecord> saturation = storage.getPatient(1).getRecords(0, Long.MAX_VALUE);
+        assertEquals(3, saturation.size());
+        assertEquals(97.5, saturation.get(0).getMeasurementValue());
+        assertEquals(-0.125, saturation.get(1).getMeasurementValue());
+        assertEquals(150.0, saturation.get(2).getMeasurementValue());
+        assertSame(saturation.get(0).getRecordType(), saturation.get(1).getRecordType());
+        assertEquals(72.0, storage.getPatient(2).getRecords(0, Long.MAX_VALUE).get(0).getMeasurementValue());
+        assertNull(storage.getPatient(3));
+    }
+}
@@ -0,0 +1,236 @@
+package data_management.websocket;
+
+import com.cardio_generator.outputs.BinaryRecordCodec;
+import com.cardio_generator.outputs.Subscription;
+import com.cardio_generator.outputs.WebSocketOutputStrategy;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WebSocketOutputStrategyTest {
+
+    private WebSocketOutputStrategy output;
+
+    @AfterEach
+    public void tearDown() {
+        if (output != null) {
+            output.close();
+        }
+    }
+
+    /**
+     * Counts received messages and the samples in them.
+     */
+    private static class CountingClient extends WebSocketClient {
+        final AtomicInteger messages = new AtomicInteger();
+        final AtomicInteger samples = new AtomicInteger();
+        final Set<String> received = ConcurrentHashMap.newKeySet();
+
+        CountingClient(URI uri, boolean compression) {
+            super(uri, compression ? new Draft_6455(new PerMessageDeflateExtension()) : new Draft_6455());
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {
+        }
+
+        @Override
+        public void onMessage(String message) {
+            messages.incrementAndGet();
+            for (String line : message.split("\n")) {
+                String[] fields = line.split(",");
+                received.add(fields[0] + "," + fields[2]);
+                samples.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onMessage(ByteBuffer bytes) {
+            messages.incrementAndGet();
+            samples.addAndGet(BinaryRecordCodec.decode(bytes,
+                    (patientId, timestamp, label, value) -> received.add(patientId + "," + label)));
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onError(Exception ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private void awaitSamples(CountingClient client, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.samples.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, client.samples.get());
+    }
+
+    private void awaitConnections(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        // A client sees its connection open before the server has registered it
+        while (output.getConnectionCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, output.getConnectionCount());
+    }
+
+    @Test
+    public void testTextSamplesAreBatchedForAllClients() throws Exception {
+        output = new WebSocketOutputStrategy(0, false, 50, true);
+        URI uri = new URI("ws://localhost:" + output.getPort());
+        CountingClient compressed = new CountingClient(uri, true);
+        CountingClient plain = new CountingClient(uri, false);
+        assertTrue(compressed.connectBlocking(5, TimeUnit.SECONDS));
+        assertTrue(plain.connectBlocking(5, TimeUnit.SECONDS));
+        awaitConnections(2);
+        assertInstanceOf(PerMessageDeflateExtension.class, ((Draft_6455) compressed.getConnection().getDraft()).getExtension(),
+                "Compression should be negotiated with a client that offers it");
+        assertFalse(((Draft_6455) plain.getConnection().getDraft()).getExtension() instanceof PerMessageDeflateExtension);
+
+        for (int i = 0; i < 500; i++) {
+            output.output(i % 10, 1000L + i, "ECG", 0.5);
+        }
+
+        awaitSamples(compressed, 500);
+        awaitSamples(plain, 500);
+        assertTrue(compressed.messages.get() < 500, "Samples should be sent in batches");
+        assertEquals(compressed.messages.get(), plain.messages.get());
+        compressed.closeBlocking();
+        plain.closeBlocking();
+    }
+
+    @Test
+    public void testBinarySamplesAreSentAsMultiRecordFrames() throws Exception {
+        output = new WebSocketOutputStrategy(0, true, 50, false);
+        CountingClient client = new CountingClient(new URI("ws://localhost:" + output.getPort()), false);
+        assertTrue(client.connectBlocking(5, TimeUnit.SECONDS));
+        awaitConnections(1);
+
+        for (int i = 0; i < 500; i++) {
+            output.output(1, 1000L + i, "Saturation", 97.0);
+        }
+
+        awaitSamples(client, 500);
+        assertTrue(client.messages.get() < 500, "Samples should be sent in batches");
+        client.closeBlocking();
+    }
+
+    @Test
+    public void testCloseSendsPendingBatch() throws Exception {
+        output = new WebSocketOutputStrategy(0, false, 60_000, false);
+        CountingClient client = new CountingClient(new URI("ws://localhost:" + output.getPort()), false);
+        assertTrue(client.connectBlocking(5, TimeUnit.SECONDS));
+        awaitConnections(1);
+
+        output.output(1, 1000L, "ECG", 0.5);
+        output.output(1, 1001L, "ECG", 0.6);
+        // The batch window is far off, so only close can send the samples
+        output.close();
+        output = null;
+
+        awaitSamples(client, 2);
+        assertEquals(1, client.messages.get());
+    }
+
+    @Test
+    public void testSubscribedClientOnlyReceivesMatchingSamples() throws Exception {
+        output = new WebSocketOutputStrategy(0, false);
+        URI uri = new URI("ws://localhost:" + output.getPort());
+        CountingClient bedside = new CountingClient(uri, false);
+        CountingClient wall = new CountingClient(uri, false);
+        assertTrue(bedside.connectBlocking(5, TimeUnit.SECONDS));
+        assertTrue(wall.connectBlocking(5, TimeUnit.SECONDS));
+        awaitConnections(2);
+        bedside.send("subscribe patients=1 labels=ECG");
+        Thread.sleep(300); // Let the server handle the subscription
+
+        for (int i = 0; i < 100; i++) {
+            for (int patientId = 1; patientId <= 10; patientId++) {
+                output.output(patientId, 1000L + i, "ECG", 0.5);
+                output.output(patientId, 1000L + i, "HeartRate", 70.0);
+            }
+        }
+
+        awaitSamples(wall, 2000);
+        awaitSamples(bedside, 100);
+        assertEquals(Set.of("1,ECG"), bedside.received);
+        bedside.closeBlocking();
+        wall.closeBlocking();
+    }
+
+    @Test
+    public void testSubscriptionDownsamplesBatches() throws Exception {
+        output = new WebSocketOutputStrategy(0, true, 20, false);
+        CountingClient client = new CountingClient(new URI("ws://localhost:" + output.getPort()), false);
+        assertTrue(client.connectBlocking(5, TimeUnit.SECONDS));
+        client.send(new Subscription(new int[]{2}, null, 100).toMessage());
+        Thread.sleep(300); // Let the server handle the subscription
+
+        for (int i = 0; i < 1000; i++) {
+            output.output(2, 1000L + i, "Saturation", 97.0);
+            output.output(3, 1000L + i, "Saturation", 96.0);
+        }
+
+        awaitSamples(client, 10);
+        Thread.sleep(100);
+        assertEquals(10, client.samples.get());
+        assertEquals(Set.of("2,Saturation"), client.received);
+        client.closeBlocking();
+    }
+
+    @Test
+    public void testSubscriptionMessages() {
+        Subscription subscription = Subscription.parse("subscribe patients=3,1 labels=ECG interval=250");
+        assertEquals("subscribe patients=1,3 labels=ECG interval=250", subscription.toMessage());
+        assertTrue(subscription.accept(1, 1000, "ECG"));
+        assertFalse(subscription.accept(1, 1100, "ECG"));
+        assertTrue(subscription.accept(1, 1250, "ECG"));
+        assertFalse(subscription.accept(2, 1000, "ECG"));
+        assertFalse(subscription.accept(3, 1000, "Saturation"));
+
+        assertTrue(Subscription.parse("subscribe").isAll());
+        assertFalse(Subscription.isSubscribeMessage("1,1000,ECG,0.5"));
+        assertThrows(IllegalArgumentException.class, () -> Subscription.parse("subscribe patients=x"));
+        assertThrows(IllegalArgumentException.class, () -> Subscription.parse("subscribe colour=red"));
+    }
+
+    @Test
+    public void testSubscriptionRejectsOutOfRangePatientIds() {
+        assertThrows(IllegalArgumentException.class, () -> Subscription.parse("subscribe patients=-1"));
+        assertThrows(IllegalArgumentException.class, () -> Subscription.parse("subscribe patients=2147483648"));
+
+        // The largest ID costs no more than a small one
+        Subscription subscription = Subscription.parse("subscribe patients=2147483647 interval=100");
+        assertTrue(subscription.accept(Integer.MAX_VALUE, 1000, "ECG"));
+        assertFalse(subscription.accept(Integer.MAX_VALUE, 1050, "ECG"));
+        assertFalse(subscription.accept(1, 1000, "ECG"));
+    }
+
+    @Test
+    public void testDownsamplingAllPatientsHandlesAnyPatientId() {
+        Subscription subscription = Subscription.parse("subscribe interval=1000");
+        for (int patientId : new int[]{100_000_000, Integer.MAX_VALUE, -5}) {
+            assertTrue(subscription.accept(patientId, 1000, "ECG"));
+            assertFalse(subscription.accept(patientId, 1500, "ECG"));
+            assertTrue(subscription.accept(patientId, 1500, "Saturation"));
+            assertTrue(subscription.accept(patientId, 2000, "ECG"));
+        }
+        assertTrue(subscription.accept(1, 1500, "ECG"));
+    }
+}